@@ -0,0 +1,352 @@
+package junitconverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junitconverter.ConversionResult.Outcome;
+
+/**
+ * Converts many files at once, spreading the work over a fixed pool of worker threads. Every file is converted in
+ * place and in isolation: an exception thrown while converting one file is recorded in that file's
+ * {@link ConversionResult} and does not affect any other file. Results always come back in the order the files were
+ * given, whatever the number of workers.
+ * <p>
+ * A run makes two passes over the files. The first one only reads the header of every file into a
+ * {@link TypeHierarchyIndex}, so that the second one, which converts them, recognizes test cases that extend
+ * {@link junit.framework.TestCase} through base classes of the source tree.
+ * <p>
+ * With a {@link ConversionManifest}, files that haven't changed since the last run aren't converted again.
+ */
+public class BatchConverter
+{
+
+	private final int threads;
+
+	private CandidateFilter candidateFilter;
+	private ConversionManifest manifest;
+	private FactsCache factsCache;
+	private boolean outline = true;
+	private boolean scanner;
+	private ParseBudget budget;
+	private boolean failFast;
+
+	/**
+	 * Creates a batch converter with one worker per available processor.
+	 */
+	public BatchConverter()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads
+	 *            The number of worker threads to use (at least one).
+	 */
+	public BatchConverter(int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("At least one worker thread is needed, got " + threads);
+		}
+		this.threads = threads;
+	}
+
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * @param candidateFilter
+	 *            Used to skip files that can't be tests before parsing them (null to parse every file).
+	 */
+	public void setCandidateFilter(CandidateFilter candidateFilter)
+	{
+		this.candidateFilter = candidateFilter;
+	}
+
+	/**
+	 * @param manifest
+	 *            Used to skip the files that haven't changed since the last run, and updated with the files of this run,
+	 *            forgetting any others (null to process every file). Saving it is up to the caller.
+	 */
+	public void setManifest(ConversionManifest manifest)
+	{
+		this.manifest = manifest;
+	}
+
+	/**
+	 * @param factsCache
+	 *            Used to skip parsing files whose facts are known from an earlier run (null to parse every file).
+	 */
+	public void setFactsCache(FactsCache factsCache)
+	{
+		this.factsCache = factsCache;
+	}
+
+	/**
+	 * @param outline
+	 *            Whether to skip method bodies when parsing (see {@link TestClassConverter#setOutline(boolean)}).
+	 */
+	public void setOutline(boolean outline)
+	{
+		this.outline = outline;
+	}
+
+	/**
+	 * @param scanner
+	 *            Whether to scan sources rather than parse them (see {@link TestClassConverter#setScanner(boolean)}).
+	 */
+	public void setScanner(boolean scanner)
+	{
+		this.scanner = scanner;
+	}
+
+	/**
+	 * @param budget
+	 *            How much parsing a file may cost (see {@link TestClassConverter#setBudget(ParseBudget)}).
+	 */
+	public void setBudget(ParseBudget budget)
+	{
+		this.budget = budget;
+	}
+
+	/**
+	 * @param failFast
+	 *            Whether to skip files at their first syntax error (see {@link TestClassConverter#setFailFast(boolean)}).
+	 */
+	public void setFailFast(boolean failFast)
+	{
+		this.failFast = failFast;
+	}
+
+	/**
+	 * Converts all of the given files in place.
+	 *
+	 * @param files
+	 *            The files to convert.
+	 * @return One result per file, in the same order as <code>files</code>.
+	 */
+	public ConversionReport convert(List<File> files) throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final List<ScannedFile> scannedFiles = scan(executor, files);
+			final TypeHierarchyIndex typeHierarchy = new TypeHierarchyIndex();
+			// Added in file order, so that the first of two classes with the same name always wins
+			for (ScannedFile scannedFile : scannedFiles)
+			{
+				if (scannedFile != null)
+				{
+					typeHierarchy.add(scannedFile.header);
+				}
+			}
+			final CandidateFilter filter = candidateFilter == null ? null : candidateFilter
+					.withBaseClasses(typeHierarchy.getTestCaseBaseSimpleNames());
+			// Converters keep no per-file state, so the workers all share this one
+			final TestClassConverter converter = new TestClassConverter();
+			converter.setTypeHierarchyIndex(typeHierarchy);
+			converter.setFactsCache(factsCache);
+			converter.setOutline(outline);
+			converter.setScanner(scanner);
+			converter.setBudget(budget);
+			converter.setFailFast(failFast);
+
+			if (manifest != null)
+			{
+				manifest.setConfiguration(TestClassConverter.VERSION, ContentHash.of(converter.getConfiguration()
+						+ ";filter=" + (candidateFilter == null ? "none" : candidateFilter.getBaseClasses())));
+				manifest.retain(files);
+			}
+
+			List<Future<ConversionResult>> futures = new ArrayList<Future<ConversionResult>>(files.size());
+			for (int i = 0; i < files.size(); i++)
+			{
+				final File file = files.get(i);
+				final ScannedFile scannedFile = scannedFiles.get(i);
+				futures.add(executor.submit(new Callable<ConversionResult>()
+				{
+					public ConversionResult call()
+					{
+						return convertFile(file, scannedFile, typeHierarchy, filter, converter);
+					}
+				}));
+			}
+
+			List<ConversionResult> results = new ArrayList<ConversionResult>(files.size());
+			for (int i = 0; i < futures.size(); i++)
+			{
+				results.add(resultOf(files.get(i), futures.get(i)));
+			}
+			return new ConversionReport(results);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the header of every file, and hashes it when there's a manifest, in parallel. Files that can't be read
+	 * get a null entry, the conversion pass will report them.
+	 */
+	private List<ScannedFile> scan(ExecutorService executor, List<File> files) throws InterruptedException
+	{
+		List<Future<ScannedFile>> futures = new ArrayList<Future<ScannedFile>>(files.size());
+		for (final File file : files)
+		{
+			futures.add(executor.submit(new Callable<ScannedFile>()
+			{
+				public ScannedFile call() throws IOException
+				{
+					return new ScannedFile(SourceBuffer.read(file), manifest != null);
+				}
+			}));
+		}
+
+		List<ScannedFile> scannedFiles = new ArrayList<ScannedFile>(files.size());
+		for (Future<ScannedFile> future : futures)
+		{
+			try
+			{
+				scannedFiles.add(future.get());
+			}
+			catch (ExecutionException e)
+			{
+				scannedFiles.add(null);
+			}
+		}
+		return scannedFiles;
+	}
+
+	private ConversionResult convertFile(File file, ScannedFile scannedFile, TypeHierarchyIndex typeHierarchy,
+			CandidateFilter filter, TestClassConverter converter)
+	{
+		String fingerprint = null;
+		if (manifest != null && scannedFile != null)
+		{
+			fingerprint = scannedFile.fingerprint(typeHierarchy);
+			if (manifest.isUnchanged(file, fingerprint))
+			{
+				return new ConversionResult(file, Outcome.UNCHANGED);
+			}
+		}
+
+		try
+		{
+			// Read again rather than kept from the first pass, which would keep the whole tree in memory
+			SourceBuffer source = SourceBuffer.read(file);
+			if (filter != null && !filter.isCandidate(source.bytes()))
+			{
+				updateManifest(file, fingerprint);
+				return new ConversionResult(file, Outcome.FILTERED);
+			}
+			String convertedHash = converter.convertAndHash(source, file);
+			if (convertedHash != null)
+			{
+				if (manifest != null && scannedFile != null)
+				{
+					updateManifest(file, scannedFile.convertedFingerprint(typeHierarchy, convertedHash));
+				}
+				return new ConversionResult(file, Outcome.CONVERTED);
+			}
+			updateManifest(file, fingerprint);
+			return new ConversionResult(file, Outcome.NOT_A_TEST);
+		}
+		catch (ParseBudgetExceededException e)
+		{
+			if (manifest != null)
+			{
+				manifest.remove(file);
+			}
+			return new ConversionResult(file, Outcome.OVER_BUDGET, e.getMessage());
+		}
+		catch (SyntaxErrorException e)
+		{
+			if (manifest != null)
+			{
+				manifest.remove(file);
+			}
+			return new ConversionResult(file, Outcome.SYNTAX_ERROR, e.getMessage());
+		}
+		catch (Exception e)
+		{
+			if (manifest != null)
+			{
+				manifest.remove(file);
+			}
+			return new ConversionResult(file, Outcome.FAILED, e.toString());
+		}
+	}
+
+	private void updateManifest(File file, String fingerprint)
+	{
+		if (manifest != null && fingerprint != null)
+		{
+			manifest.update(file, fingerprint);
+		}
+	}
+
+	private ConversionResult resultOf(File file, Future<ConversionResult> future) throws InterruptedException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (ExecutionException e)
+		{
+			// Only errors get here, convertFile() already catches exceptions
+			return new ConversionResult(file, Outcome.FAILED, e.getCause().toString());
+		}
+	}
+
+	/**
+	 * What the first pass learns of a file.
+	 */
+	private static class ScannedFile
+	{
+
+		private final TypeHeader header;
+		private final String hash;
+
+		public ScannedFile(SourceBuffer source, boolean hashed)
+		{
+			this.header = TypeHeader.read(source.charStream());
+			this.hash = hashed ? ContentHash.of(source.bytes()) : null;
+		}
+
+		/**
+		 * Whether a file gets converted depends on its content, and on whether its superclasses lead to TestCase.
+		 * The latter can change without the file changing, so it's part of what the manifest records.
+		 *
+		 * @return What the manifest records for the file.
+		 */
+		public String fingerprint(TypeHierarchyIndex typeHierarchy)
+		{
+			return fingerprint(typeHierarchy, header, hash);
+		}
+
+		/**
+		 * @param convertedHash
+		 *            The hash of the file as converted.
+		 * @return What the manifest records for the file once converted, without reading it again.
+		 */
+		public String convertedFingerprint(TypeHierarchyIndex typeHierarchy, String convertedHash)
+		{
+			return fingerprint(typeHierarchy, header.converted(), convertedHash);
+		}
+
+		private static String fingerprint(TypeHierarchyIndex typeHierarchy, TypeHeader header, String hash)
+		{
+			return typeHierarchy.isTestCase(header) ? ContentHash.of(hash + " TestCase") : hash;
+		}
+	}
+}
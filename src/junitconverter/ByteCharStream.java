@@ -0,0 +1,78 @@
+package junitconverter;
+
+import java.nio.ByteBuffer;
+
+import org.antlr.runtime.ANTLRStringStream;
+
+/**
+ * A {@link org.antlr.runtime.CharStream} that reads single-byte characters straight out of a {@link ByteBuffer},
+ * widening each byte only when the lexer asks for it. This is only correct for sources whose every character is
+ * encoded in one byte (ASCII, or any file read as ISO-8859-1); {@link SourceBuffer} decides when that's the case.
+ * <p>
+ * The buffer may be a memory-mapped file, in which case the source never has to be copied onto the heap at all.
+ * Marking, rewinding and line tracking are inherited from {@link ANTLRStringStream}, which only ever reaches its
+ * characters through the methods overridden here.
+ */
+public class ByteCharStream extends ANTLRStringStream
+{
+
+	private final ByteBuffer bytes;
+
+	/**
+	 * @param bytes
+	 *            The characters of the source, from index zero up to the buffer's limit.
+	 */
+	public ByteCharStream(ByteBuffer bytes)
+	{
+		this.bytes = bytes;
+		this.n = bytes.limit();
+	}
+
+	@Override
+	public void consume()
+	{
+		if (p < n)
+		{
+			charPositionInLine++;
+			if (bytes.get(p) == '\n')
+			{
+				line++;
+				charPositionInLine = 0;
+			}
+			p++;
+		}
+	}
+
+	@Override
+	public int LA(int i)
+	{
+		if (i == 0)
+		{
+			return 0; // undefined
+		}
+		if (i < 0)
+		{
+			i++; // e.g., translate LA(-1) to use offset i=0; then data[p+0-1]
+			if ((p + i - 1) < 0)
+			{
+				return EOF; // invalid; no char before first char
+			}
+		}
+		if ((p + i - 1) >= n)
+		{
+			return EOF;
+		}
+		return bytes.get(p + i - 1) & 0xff;
+	}
+
+	@Override
+	public String substring(int start, int stop)
+	{
+		char[] chars = new char[stop - start + 1];
+		for (int i = 0; i < chars.length; i++)
+		{
+			chars[i] = (char) (bytes.get(start + i) & 0xff);
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,93 @@
+package junitconverter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * A cheap test on the raw bytes of a source file that tells whether it could possibly be a test case or a suite,
+ * so that files that can't be are never lexed or parsed. It only looks for markers, it doesn't understand Java:
+ * false positives are expected (and later rejected by the parser), false negatives are not.
+ * <p>
+ * A file is a candidate if it mentions <code>suite</code>, or if it has an <code>extends</code> clause and mentions
+ * <code>TestCase</code> or one of the known base classes. Test cases that extend <code>TestCase</code> through a base
+ * class whose name doesn't contain <code>TestCase</code> are only found if that base class is given, see
+ * {@link TypeHierarchyIndex#getTestCaseBaseSimpleNames()}.
+ */
+public class CandidateFilter
+{
+
+	private static final String SUITE = "suite"; //$NON-NLS-1$
+	private static final String EXTENDS = "extends"; //$NON-NLS-1$
+
+	private final Set<String> baseClasses;
+	private final MarkerMatcher matcher;
+	private final int suiteMask;
+	private final int extendsMask;
+	private final int baseClassesMask;
+
+	public CandidateFilter()
+	{
+		this(Collections.<String> emptyList());
+	}
+
+	/**
+	 * @param baseClasses
+	 *            The simple names of classes that test cases may extend instead of {@link TestCase}.
+	 */
+	public CandidateFilter(Collection<String> baseClasses)
+	{
+		this.baseClasses = new TreeSet<String>(baseClasses);
+		this.baseClasses.add(TestCase.class.getSimpleName());
+		this.baseClasses.remove(SUITE);
+		this.baseClasses.remove(EXTENDS);
+
+		List<Set<String>> markers = new ArrayList<Set<String>>();
+		markers.add(Collections.singleton(SUITE));
+		markers.add(Collections.singleton(EXTENDS));
+		markers.add(this.baseClasses);
+		matcher = new MarkerMatcher(markers);
+		suiteMask = matcher.maskOf(SUITE);
+		extendsMask = matcher.maskOf(EXTENDS);
+		baseClassesMask = matcher.maskOf(TestCase.class.getSimpleName());
+	}
+
+	/**
+	 * @return The simple names of the classes that test cases may extend, including {@link TestCase} (sorted).
+	 */
+	public Set<String> getBaseClasses()
+	{
+		return Collections.unmodifiableSet(baseClasses);
+	}
+
+	/**
+	 * @return A filter that also knows of the given base classes.
+	 */
+	public CandidateFilter withBaseClasses(Collection<String> moreBaseClasses)
+	{
+		Set<String> allBaseClasses = new TreeSet<String>(baseClasses);
+		allBaseClasses.addAll(moreBaseClasses);
+		return new CandidateFilter(allBaseClasses);
+	}
+
+	/**
+	 * @param source
+	 *            The raw bytes of the file, between the buffer's position and limit.
+	 * @return Whether the file might be a test case or a suite.
+	 */
+	public boolean isCandidate(ByteBuffer source)
+	{
+		int found = matcher.scan(source);
+		if ((found & suiteMask) != 0)
+		{
+			return true;
+		}
+		return (found & extendsMask) != 0 && (found & baseClassesMask) != 0;
+	}
+}
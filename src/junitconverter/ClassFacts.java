@@ -0,0 +1,450 @@
+package junitconverter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junitconverter.testcase.AnnotationSet;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+
+/**
+ * What the conversion needs to know of a parsed class, taken from the {@link JavaParser} or the {@link OutlineScanner}
+ * once it's done (both are a {@link FactsSource}). The facts don't refer to the parser, its tokens or its memo tables,
+ * which can all be garbage collected before the class is edited.
+ * <p>
+ * Facts are never changed once created. Lines are counted from one, as the parser does, except in the
+ * {@link ImportIndex} and the references.
+ * <p>
+ * Facts can be written in a compact binary form and read back (see {@link FactsCache}), which gives facts equal to
+ * those of parsing the source again.
+ */
+public class ClassFacts
+{
+
+	/**
+	 * The version of the grammar and of the facts taken from it, to be changed whenever the same source would give
+	 * other facts, so that facts written by an older version are not read back.
+	 */
+	public static final int GRAMMAR_VERSION = 4;
+
+	private static final String CLASS_ANNOTATIONS = ""; //$NON-NLS-1$
+
+	/**
+	 * What the conversion needs to know of a method.
+	 */
+	public static class MethodFacts
+	{
+
+		private final String name;
+		private final int line;
+		private final String visibility;
+		private final int visibilityLine;
+		private final int visibilityPos;
+		private final AnnotationSet annotations;
+
+		/**
+		 * @param line
+		 *            The line of the name of the method.
+		 * @param visibility
+		 *            The visibility modifier of the method, empty if it has none.
+		 * @param visibilityLine
+		 *            The line of the visibility modifier (0 if it has none).
+		 * @param visibilityPos
+		 *            The position of the visibility modifier in its line (-1 if it has none).
+		 */
+		public MethodFacts(String name, int line, String visibility, int visibilityLine, int visibilityPos,
+				AnnotationSet annotations)
+		{
+			this.name = name;
+			this.line = line;
+			this.visibility = visibility;
+			this.visibilityLine = visibilityLine;
+			this.visibilityPos = visibilityPos;
+			this.annotations = annotations;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public int getLine()
+		{
+			return line;
+		}
+
+		public String getVisibility()
+		{
+			return visibility;
+		}
+
+		public int getVisibilityLine()
+		{
+			return visibilityLine;
+		}
+
+		public int getVisibilityPos()
+		{
+			return visibilityPos;
+		}
+
+		public AnnotationSet getAnnotations()
+		{
+			return annotations;
+		}
+	}
+
+	private final String fullName;
+	private final int typeLine;
+	private final AnnotationSet annotations;
+	private final String superName;
+	private final int extendsLine;
+	private final int extendsPos;
+	private final int superEndLine;
+	private final int superEndPos;
+	private final Map<String, MethodFacts> methods;
+	private final List<String> suiteClasses;
+	private final ImportIndex imports;
+	private final Map<String, LineSet> references;
+	private final LineSet superConstructorInvocations;
+	private final LineSet superMethodInvocations;
+	private final LineSet overrideAnnotationsLines;
+
+	/**
+	 * Takes the facts from a parser or a scanner that is done with a whole source.
+	 */
+	public ClassFacts(FactsSource source)
+	{
+		this.fullName = source.getFullName();
+		this.typeLine = source.getTypeLine();
+		AnnotationSet classAnnotations = source.getAnnotations(CLASS_ANNOTATIONS);
+		this.annotations = classAnnotations == null ? AnnotationSet.EMPTY : classAnnotations;
+		this.superName = source.getSuperName();
+		this.extendsLine = source.getExtendsLine();
+		this.extendsPos = source.getExtendsPos();
+		this.superEndLine = source.getSuperEndLine();
+		this.superEndPos = source.getSuperEndPos();
+		Map<String, MethodFacts> methods = new LinkedHashMap<String, MethodFacts>();
+		for (Map.Entry<String, Integer> method : source.getMethodsWithLines().entrySet())
+		{
+			String name = method.getKey();
+			methods.put(name, new MethodFacts(name, method.getValue(), source.getVisibility(name), source
+					.getVisibilityLine(name), source.getVisibilityPos(name), source.getAnnotations(name)));
+		}
+		this.methods = Collections.unmodifiableMap(methods);
+		this.suiteClasses = Collections.unmodifiableList(source.getSuiteClasses());
+		this.imports = source.getImportIndex().unmodifiable();
+		this.references = Collections.unmodifiableMap(source.getReferences());
+		this.superConstructorInvocations = source.getSuperConstructorInvocations();
+		this.superMethodInvocations = source.getSuperMethodInvocations();
+		this.overrideAnnotationsLines = source.getOverrideAnnotationsLines();
+	}
+
+	private ClassFacts(String fullName, int typeLine, AnnotationSet annotations, String superName, int extendsLine,
+			int extendsPos, int superEndLine, int superEndPos, Map<String, MethodFacts> methods,
+			List<String> suiteClasses, ImportIndex imports, Map<String, LineSet> references,
+			LineSet superConstructorInvocations, LineSet superMethodInvocations, LineSet overrideAnnotationsLines)
+	{
+		this.fullName = fullName;
+		this.typeLine = typeLine;
+		this.annotations = annotations;
+		this.superName = superName;
+		this.extendsLine = extendsLine;
+		this.extendsPos = extendsPos;
+		this.superEndLine = superEndLine;
+		this.superEndPos = superEndPos;
+		this.methods = Collections.unmodifiableMap(methods);
+		this.suiteClasses = Collections.unmodifiableList(suiteClasses);
+		this.imports = imports;
+		this.references = Collections.unmodifiableMap(references);
+		this.superConstructorInvocations = superConstructorInvocations;
+		this.superMethodInvocations = superMethodInvocations;
+		this.overrideAnnotationsLines = overrideAnnotationsLines;
+	}
+
+	/**
+	 * Reads facts written by {@link #writeTo(DataOutput)}. The version is up to the caller.
+	 */
+	public static ClassFacts readFrom(DataInput in) throws IOException
+	{
+		String fullName = readNullableString(in);
+		int typeLine = in.readInt();
+		AnnotationSet annotations = readAnnotations(in);
+		String superName = readNullableString(in);
+		int extendsLine = in.readInt();
+		int extendsPos = in.readInt();
+		int superEndLine = in.readInt();
+		int superEndPos = in.readInt();
+
+		int methodCount = readCount(in);
+		Map<String, MethodFacts> methods = new LinkedHashMap<String, MethodFacts>();
+		for (int i = 0; i < methodCount; i++)
+		{
+			String name = in.readUTF();
+			methods.put(name, new MethodFacts(name, in.readInt(), in.readUTF(), in.readInt(), in.readInt(),
+					readAnnotations(in)));
+		}
+
+		int suiteClassCount = readCount(in);
+		List<String> suiteClasses = new ArrayList<String>();
+		for (int i = 0; i < suiteClassCount; i++)
+		{
+			suiteClasses.add(in.readUTF());
+		}
+
+		ImportIndex imports = new ImportIndex();
+		imports.setPackageLine(in.readInt());
+		int importCount = readCount(in);
+		for (int i = 0; i < importCount; i++)
+		{
+			imports.addImport(in.readUTF(), in.readBoolean(), in.readBoolean(), in.readInt());
+		}
+
+		int referenceCount = readCount(in);
+		Map<String, LineSet> references = new LinkedHashMap<String, LineSet>();
+		for (int i = 0; i < referenceCount; i++)
+		{
+			references.put(in.readUTF(), readLines(in));
+		}
+
+		return new ClassFacts(fullName, typeLine, annotations, superName, extendsLine, extendsPos, superEndLine,
+				superEndPos, methods, suiteClasses, imports.unmodifiable(), references, readLines(in), readLines(in), readLines(in));
+	}
+
+	/**
+	 * Writes the facts in a compact binary form, to be read back by {@link #readFrom(DataInput)}.
+	 */
+	public void writeTo(DataOutput out) throws IOException
+	{
+		writeNullableString(out, fullName);
+		out.writeInt(typeLine);
+		writeAnnotations(out, annotations);
+		writeNullableString(out, superName);
+		out.writeInt(extendsLine);
+		out.writeInt(extendsPos);
+		out.writeInt(superEndLine);
+		out.writeInt(superEndPos);
+
+		out.writeInt(methods.size());
+		for (MethodFacts method : methods.values())
+		{
+			out.writeUTF(method.getName());
+			out.writeInt(method.getLine());
+			out.writeUTF(method.getVisibility());
+			out.writeInt(method.getVisibilityLine());
+			out.writeInt(method.getVisibilityPos());
+			writeAnnotations(out, method.getAnnotations());
+		}
+
+		out.writeInt(suiteClasses.size());
+		for (String suiteClass : suiteClasses)
+		{
+			out.writeUTF(suiteClass);
+		}
+
+		out.writeInt(imports.getPackageLine());
+		List<ImportIndex.Entry> entries = imports.getEntries();
+		out.writeInt(entries.size());
+		for (ImportIndex.Entry entry : entries)
+		{
+			out.writeUTF(entry.getName());
+			out.writeBoolean(entry.isStatic());
+			out.writeBoolean(entry.isOnDemand());
+			out.writeInt(entry.getLine());
+		}
+
+		out.writeInt(references.size());
+		for (Map.Entry<String, LineSet> reference : references.entrySet())
+		{
+			out.writeUTF(reference.getKey());
+			writeLines(out, reference.getValue());
+		}
+
+		writeLines(out, superConstructorInvocations);
+		writeLines(out, superMethodInvocations);
+		writeLines(out, overrideAnnotationsLines);
+	}
+
+	/**
+	 * @return The fully qualified name of the class, null if the source has no class.
+	 */
+	public String getFullName()
+	{
+		return fullName;
+	}
+
+	public int getTypeLine()
+	{
+		return typeLine;
+	}
+
+	/**
+	 * @return The annotations of the class.
+	 */
+	public AnnotationSet getAnnotations()
+	{
+		return annotations;
+	}
+
+	/**
+	 * @return The super class, as written in the extends clause (null if none).
+	 */
+	public String getSuperName()
+	{
+		return superName;
+	}
+
+	public int getExtendsLine()
+	{
+		return extendsLine;
+	}
+
+	public int getExtendsPos()
+	{
+		return extendsPos;
+	}
+
+	public int getSuperEndLine()
+	{
+		return superEndLine;
+	}
+
+	public int getSuperEndPos()
+	{
+		return superEndPos;
+	}
+
+	/**
+	 * @return The methods of the class by name, in the order they're declared in. Of overloaded methods, only the
+	 *         last one is kept.
+	 */
+	public Map<String, MethodFacts> getMethods()
+	{
+		return methods;
+	}
+
+	/**
+	 * @return The method, null if the class has none by that name.
+	 */
+	public MethodFacts getMethod(String name)
+	{
+		return methods.get(name);
+	}
+
+	/**
+	 * @return The names of the classes added in the suite() method, as written.
+	 */
+	public List<String> getSuiteClasses()
+	{
+		return suiteClasses;
+	}
+
+	/**
+	 * @return The import section of the class, which can't be changed: those who change it work on a
+	 *         {@link ImportIndex#copy() copy}.
+	 */
+	public ImportIndex getImports()
+	{
+		return imports;
+	}
+
+	/**
+	 * @return The lines (first is zero) where each identifier is used outside of the import declarations.
+	 */
+	public Map<String, LineSet> getReferences()
+	{
+		return references;
+	}
+
+	public LineSet getSuperConstructorInvocations()
+	{
+		return superConstructorInvocations;
+	}
+
+	public LineSet getSuperMethodInvocations()
+	{
+		return superMethodInvocations;
+	}
+
+	public LineSet getOverrideAnnotationsLines()
+	{
+		return overrideAnnotationsLines;
+	}
+
+	/* --- Helper Methods --- */
+
+	private static String readNullableString(DataInput in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullableString(DataOutput out, String string) throws IOException
+	{
+		out.writeBoolean(string != null);
+		if (string != null)
+		{
+			out.writeUTF(string);
+		}
+	}
+
+	/**
+	 * @return A count of what follows, which can't be negative. Lists aren't sized after counts, so that a corrupt
+	 *         one runs into the end of the input rather than out of memory.
+	 */
+	private static int readCount(DataInput in) throws IOException
+	{
+		int count = in.readInt();
+		if (count < 0)
+		{
+			throw new IOException("Negative count: " + count); //$NON-NLS-1$
+		}
+		return count;
+	}
+
+	private static AnnotationSet readAnnotations(DataInput in) throws IOException
+	{
+		int count = readCount(in);
+		AnnotationSet annotations = AnnotationSet.EMPTY;
+		for (int i = 0; i < count; i++)
+		{
+			annotations = annotations.with(in.readUTF());
+		}
+		return annotations;
+	}
+
+	private static void writeAnnotations(DataOutput out, AnnotationSet annotations) throws IOException
+	{
+		List<String> names = annotations.getNames();
+		out.writeInt(names.size());
+		for (String name : names)
+		{
+			out.writeUTF(name);
+		}
+	}
+
+	private static LineSet readLines(DataInput in) throws IOException
+	{
+		int count = readCount(in);
+		LineSet lines = new LineSet();
+		for (int i = 0; i < count; i++)
+		{
+			lines.add(in.readInt());
+		}
+		return lines;
+	}
+
+	private static void writeLines(DataOutput out, LineSet lines) throws IOException
+	{
+		out.writeInt(lines.size());
+		for (int i = 0; i < lines.size(); i++)
+		{
+			out.writeInt(lines.get(i));
+		}
+	}
+}
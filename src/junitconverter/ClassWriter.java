@@ -1,5 +1,7 @@
 package junitconverter;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 
@@ -23,9 +25,22 @@ public interface ClassWriter {
 	 * @param line The new line.
 	 */
 	public void replaceLine(int lineNumber, String line);
+
+	/**
+	 * Deletes an original line of code, keeping the lines inserted at it.
+	 * The line can't be replaced or deleted again once deleted.
+	 * @param lineNumber The line to delete.
+	 */
+	public void deleteLine(int lineNumber);
 	
 	/**
 	 * @return The resulting lines of code.
 	 */
 	public List<String> result();
+
+	/**
+	 * Writes the resulting lines of code, each followed by a new line.
+	 * @param writer Where to write them.
+	 */
+	public void writeTo(Writer writer) throws IOException;
 }
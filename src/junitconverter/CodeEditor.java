@@ -2,6 +2,7 @@ package junitconverter;
 
 import java.lang.annotation.Annotation;
 
+import junitconverter.testcase.ImportIndex;
 import junitconverter.testcase.TestCaseClass;
 import junitconverter.testcase.TestCaseMethod;
 
@@ -26,9 +27,9 @@ public interface CodeEditor
 	void annotateMethod(TestCaseClass testCaseClass, TestCaseMethod method, Class<? extends Annotation> annotation);
 
 	/**
-	 * Adds an <code>import</code> statement to the requested class. Does not check whether the import is already there.
-	 * The new import is added where the first import is currently (we assume there is always at least one import line
-	 * at the beginning of a class).
+	 * Adds an <code>import</code> statement to the requested class, unless the class is already imported (by name or
+	 * on demand). The new import is added where the first import is currently, or after the package declaration if
+	 * there are no imports.
 	 * 
 	 * @param testCaseClass
 	 *            The class to add the import to.
@@ -37,6 +38,16 @@ public interface CodeEditor
 	 */
 	void importClass(TestCaseClass testCaseClass, Class<?> klass);
 
+	/**
+	 * Removes an <code>import</code> statement from the class, by deleting its line.
+	 * 
+	 * @param testCaseClass
+	 *            The class to remove the import from.
+	 * @param entry
+	 *            The import, as found in the class' {@link ImportIndex}.
+	 */
+	void removeImport(TestCaseClass testCaseClass, ImportIndex.Entry entry);
+
 	/**
 	 * Changes the visibility of the given method to the given visibility.
 	 * 
@@ -51,7 +62,7 @@ public interface CodeEditor
 
 	/**
 	 * Adds a static import for all of a class' static data at the same location as
-	 * {@link #importClass(TestCaseClass, Class)}.
+	 * {@link #importClass(TestCaseClass, Class)}, unless there's already one.
 	 * 
 	 * @param testCaseClass
 	 *            The class to insert the import to.
@@ -0,0 +1,88 @@
+package junitconverter;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-1 digests of file contents, as hexadecimal strings, to tell whether a file changed between two runs.
+ */
+public final class ContentHash
+{
+
+	private static final String ALGORITHM = "SHA-1"; //$NON-NLS-1$
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private ContentHash()
+	{
+		// Static methods only
+	}
+
+	/**
+	 * @return The hash of the bytes between the buffer's position and limit. The buffer itself is left untouched.
+	 */
+	public static String of(ByteBuffer bytes)
+	{
+		MessageDigest digest = newDigest();
+		digest.update(bytes.duplicate());
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * @return The hash of the UTF-8 encoding of the text.
+	 */
+	public static String of(String text)
+	{
+		try
+		{
+			return of(ByteBuffer.wrap(text.getBytes("UTF-8"))); //$NON-NLS-1$
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException("UTF-8 is always supported", e);
+		}
+	}
+
+	/**
+	 * @return A stream that hashes the bytes written through it to <code>out</code>, so that a file's hash can be had
+	 *         as it's written (see {@link #of(DigestOutputStream)}).
+	 */
+	public static DigestOutputStream hashing(OutputStream out)
+	{
+		return new DigestOutputStream(out, newDigest());
+	}
+
+	/**
+	 * @return The hash of the bytes written through a stream from {@link #hashing(OutputStream)}.
+	 */
+	public static String of(DigestOutputStream out)
+	{
+		return toHex(out.getMessageDigest().digest());
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(ALGORITHM + " is always supported", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(hex);
+	}
+}
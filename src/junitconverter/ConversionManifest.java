@@ -0,0 +1,220 @@
+package junitconverter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the content hash of every file of a source tree as it was left by the last run, so that an incremental
+ * run can skip the files that haven't changed since. The manifest is kept in a file at the root of the source tree,
+ * and only lists the files of the last run.
+ * <p>
+ * Hashes are only valid for the converter version and configuration they were computed with: when either changes,
+ * the manifest starts over empty. Files can be looked up and updated by any number of threads.
+ * <p>
+ * The file format is line based: a header of <code>key=value</code> lines, then one <code>hash path</code> line per
+ * file, paths being relative to the root and using <code>/</code> as a separator.
+ */
+public class ConversionManifest
+{
+
+	public static final String FILENAME = ".junitconverter-manifest"; //$NON-NLS-1$
+
+	private static final String VERSION_KEY = "version="; //$NON-NLS-1$
+	private static final String CONFIGURATION_KEY = "configuration="; //$NON-NLS-1$
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+	private final File root;
+	private final String rootPath;
+	private final Map<String, String> hashes = new ConcurrentHashMap<String, String>();
+	private String version;
+	private String configuration;
+
+	/**
+	 * Creates an empty manifest.
+	 *
+	 * @param root
+	 *            The root of the source tree, where the manifest is saved.
+	 */
+	public ConversionManifest(File root)
+	{
+		this.root = root;
+		String path = root.getAbsolutePath();
+		this.rootPath = path.endsWith(File.separator) ? path : path + File.separator;
+	}
+
+	/**
+	 * Loads the manifest of a source tree. If there's none yet, or it can't be understood, the manifest is empty.
+	 */
+	public static ConversionManifest load(File root) throws IOException
+	{
+		ConversionManifest manifest = new ConversionManifest(root);
+		File file = manifest.getFile();
+		if (!file.isFile())
+		{
+			return manifest;
+		}
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+		try
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.startsWith(VERSION_KEY))
+				{
+					manifest.version = line.substring(VERSION_KEY.length());
+				}
+				else if (line.startsWith(CONFIGURATION_KEY))
+				{
+					manifest.configuration = line.substring(CONFIGURATION_KEY.length());
+				}
+				else
+				{
+					int separator = line.indexOf(' ');
+					if (separator == -1)
+					{
+						// Not ours, don't trust any of it
+						return new ConversionManifest(root);
+					}
+					manifest.hashes.put(line.substring(separator + 1), line.substring(0, separator));
+				}
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return manifest;
+	}
+
+	public File getFile()
+	{
+		return new File(root, FILENAME);
+	}
+
+	/**
+	 * Sets the converter version and configuration of the run about to start. If they differ from those the manifest
+	 * was saved with, all the hashes are forgotten.
+	 */
+	public void setConfiguration(String version, String configuration)
+	{
+		if (!version.equals(this.version) || !configuration.equals(this.configuration))
+		{
+			hashes.clear();
+		}
+		this.version = version;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * @return Whether the file was left with exactly this content by the last run.
+	 */
+	public boolean isUnchanged(File file, String hash)
+	{
+		return hash.equals(hashes.get(relativePath(file)));
+	}
+
+	/**
+	 * Records the content the file was left with.
+	 */
+	public void update(File file, String hash)
+	{
+		hashes.put(relativePath(file), hash);
+	}
+
+	/**
+	 * Forgets a file, so that the next run processes it whatever its content.
+	 */
+	public void remove(File file)
+	{
+		hashes.remove(relativePath(file));
+	}
+
+	public int size()
+	{
+		return hashes.size();
+	}
+
+	/**
+	 * Forgets the files that aren't among the given ones, such as those deleted since the last run, so that the
+	 * manifest only ever lists the files of the last run.
+	 */
+	public void retain(Collection<File> files)
+	{
+		Set<String> paths = new HashSet<String>();
+		for (File file : files)
+		{
+			paths.add(relativePath(file));
+		}
+		hashes.keySet().retainAll(paths);
+	}
+
+	/**
+	 * Writes the manifest aside and then renames it over the previous one, so that a run that's interrupted while
+	 * saving leaves the previous manifest whole.
+	 */
+	public void save() throws IOException
+	{
+		File file = getFile();
+		File temp = File.createTempFile(FILENAME, TEMP_SUFFIX, root);
+		boolean replaced = false;
+		try
+		{
+			PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), ENCODING));
+			try
+			{
+				writer.print(VERSION_KEY + version + "\n");
+				writer.print(CONFIGURATION_KEY + configuration + "\n");
+				// Sorted, so that the manifest can be diffed
+				for (Map.Entry<String, String> entry : new TreeMap<String, String>(hashes).entrySet())
+				{
+					writer.print(entry.getValue() + " " + entry.getKey() + "\n");
+				}
+			}
+			finally
+			{
+				writer.close();
+			}
+			if (writer.checkError())
+			{
+				throw new IOException("Could not write " + temp);
+			}
+			// Renaming over an existing file fails on some platforms
+			replaced = temp.renameTo(file) || (file.delete() && temp.renameTo(file));
+			if (!replaced)
+			{
+				throw new IOException("Can't replace " + file + " with " + temp);
+			}
+		}
+		finally
+		{
+			if (!replaced)
+			{
+				temp.delete();
+			}
+		}
+	}
+
+	private String relativePath(File file)
+	{
+		String path = file.getAbsolutePath();
+		if (path.startsWith(rootPath))
+		{
+			path = path.substring(rootPath.length());
+		}
+		return path.replace(File.separatorChar, '/');
+	}
+}
@@ -0,0 +1,71 @@
+package junitconverter;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+import junitconverter.ConversionResult.Outcome;
+
+/**
+ * The per-file results of a batch run, in the order the files were given.
+ */
+public class ConversionReport
+{
+
+	private final List<ConversionResult> results;
+
+	public ConversionReport(List<ConversionResult> results)
+	{
+		this.results = Collections.unmodifiableList(results);
+	}
+
+	public List<ConversionResult> getResults()
+	{
+		return results;
+	}
+
+	/**
+	 * @return How many files ended up with the given outcome.
+	 */
+	public int count(Outcome outcome)
+	{
+		int count = 0;
+		for (ConversionResult result : results)
+		{
+			if (result.getOutcome() == outcome)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Prints every file that was left untouched for a reason, followed by a one line summary.
+	 */
+	public void print(PrintStream out)
+	{
+		for (ConversionResult result : results)
+		{
+			if (result.getReason() != null)
+			{
+				out.println(result);
+			}
+		}
+		out.println(summary());
+	}
+
+	public String summary()
+	{
+		StringBuilder summary = new StringBuilder();
+		summary.append(results.size()).append(" files:");
+		for (Outcome outcome : Outcome.values())
+		{
+			summary.append(' ').append(outcome.name().toLowerCase().replace('_', ' ')).append(' ')
+					.append(count(outcome)).append(',');
+		}
+		// Remove the extra comma
+		summary.setLength(summary.length() - 1);
+		return summary.toString();
+	}
+}
@@ -0,0 +1,80 @@
+package junitconverter;
+
+import java.io.File;
+
+/**
+ * The outcome of running the converter over a single file.
+ */
+public class ConversionResult
+{
+
+	public enum Outcome
+	{
+		/** The file was a test case or suite and has been rewritten. */
+		CONVERTED,
+		/** The file was parsed but is neither a test case nor a suite. */
+		NOT_A_TEST,
+		/** The {@link CandidateFilter} ruled the file out, it wasn't parsed at all. */
+		FILTERED,
+		/** The {@link ConversionManifest} says the file hasn't changed since the last run, it was skipped. */
+		UNCHANGED,
+		/**
+		 * Parsing the file went over the {@link ParseBudget} and the scanner couldn't stand in; the file was left
+		 * untouched.
+		 */
+		OVER_BUDGET,
+		/** Fail-fast parsing found a syntax error in the file, which was left untouched. */
+		SYNTAX_ERROR,
+		/** Conversion threw an exception; the file was left untouched. */
+		FAILED;
+	}
+
+	private final File file;
+	private final Outcome outcome;
+	private final String reason;
+
+	public ConversionResult(File file, Outcome outcome)
+	{
+		this(file, outcome, null);
+	}
+
+	/**
+	 * @param file
+	 *            The file that was processed.
+	 * @param outcome
+	 *            What happened to it.
+	 * @param reason
+	 *            A human readable explanation (null if none).
+	 */
+	public ConversionResult(File file, Outcome outcome, String reason)
+	{
+		this.file = file;
+		this.outcome = outcome;
+		this.reason = reason;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public Outcome getOutcome()
+	{
+		return outcome;
+	}
+
+	public String getReason()
+	{
+		return reason;
+	}
+
+	@Override
+	public String toString()
+	{
+		if (reason == null)
+		{
+			return file.getPath() + ": " + outcome;
+		}
+		return file.getPath() + ": " + outcome + " (" + reason + ")";
+	}
+}
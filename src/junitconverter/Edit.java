@@ -0,0 +1,80 @@
+package junitconverter;
+
+/**
+ * A single change to the lines of a class, as recorded by an {@link EditPlan}. Edits are immutable, and refer to lines
+ * by their number in the original class.
+ */
+public final class Edit implements Comparable<Edit>
+{
+
+	public enum Kind
+	{
+		/** Inserts a line before the original line. */
+		INSERT,
+		/** Replaces the line (the last one inserted there, if any, else the original one). */
+		REPLACE,
+		/** Deletes the original line, whatever was inserted before it. */
+		DELETE;
+	}
+
+	private final Kind kind;
+	private final int line;
+	private final String text;
+	private final int sequence;
+
+	/**
+	 * @param kind
+	 *            What the edit does.
+	 * @param line
+	 *            The original line it applies to.
+	 * @param text
+	 *            The new line (null for a deletion).
+	 * @param sequence
+	 *            The order the edit was made in, among all the edits of the class.
+	 */
+	public Edit(Kind kind, int line, String text, int sequence)
+	{
+		this.kind = kind;
+		this.line = line;
+		this.text = text;
+		this.sequence = sequence;
+	}
+
+	public Kind getKind()
+	{
+		return kind;
+	}
+
+	public int getLine()
+	{
+		return line;
+	}
+
+	public String getText()
+	{
+		return text;
+	}
+
+	public int getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	 * Orders edits by line, then in the order they were made.
+	 */
+	public int compareTo(Edit other)
+	{
+		if (line != other.line)
+		{
+			return line < other.line ? -1 : 1;
+		}
+		return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+	}
+
+	@Override
+	public String toString()
+	{
+		return text == null ? kind + " " + line : kind + " " + line + ": " + text;
+	}
+}
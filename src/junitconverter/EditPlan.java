@@ -0,0 +1,190 @@
+package junitconverter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link ClassWriter} that doesn't touch anything while the stages run: it only records their changes as
+ * {@link Edit}s. Once all the stages are done, the edits are sorted once and merged with the original lines in a
+ * single pass, so converting a class costs O(lines + edits) however many stages run and edits they make.
+ * <p>
+ * The result is the same as {@link SimpleClassWriter}'s: lines inserted at the same original line end up in front of
+ * those inserted there before, replacing a line that had lines inserted at it replaces the last of those, and deleting
+ * a line only deletes the original one.
+ */
+public class EditPlan implements ClassWriter
+{
+
+	private final List<? extends CharSequence> lines;
+	private final List<Edit> edits = new ArrayList<Edit>();
+	private boolean sorted = true;
+
+	/**
+	 * @param lines
+	 *            The source of the class, which is only referred to and must not change while the plan is used.
+	 */
+	public EditPlan(List<? extends CharSequence> lines)
+	{
+		this.lines = lines;
+	}
+
+	public void insertLine(int lineNumber, String line)
+	{
+		checkLine(lineNumber, lines.size() + 1);
+		add(Edit.Kind.INSERT, lineNumber, line);
+	}
+
+	public void replaceLine(int lineNumber, String line)
+	{
+		// Replacing past the last line is only valid if something was inserted there, which apply() checks
+		checkLine(lineNumber, lines.size() + 1);
+		add(Edit.Kind.REPLACE, lineNumber, line);
+	}
+
+	public void deleteLine(int lineNumber)
+	{
+		checkLine(lineNumber, lines.size());
+		add(Edit.Kind.DELETE, lineNumber, null);
+	}
+
+	/**
+	 * @return The edits recorded so far, by line and then in the order they were made.
+	 */
+	public List<Edit> getEdits()
+	{
+		sort();
+		return Collections.unmodifiableList(edits);
+	}
+
+	public List<String> result()
+	{
+		final List<String> result = new ArrayList<String>(lines.size() + edits.size());
+		try
+		{
+			apply(new LineSink()
+			{
+				public void line(CharSequence line)
+				{
+					result.add(line.toString());
+				}
+			});
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("Lists don't throw I/O errors", e);
+		}
+		return result;
+	}
+
+	public void writeTo(final Writer writer) throws IOException
+	{
+		apply(new LineSink()
+		{
+			public void line(CharSequence line) throws IOException
+			{
+				LineTable.write(line, writer);
+				writer.write('\n');
+			}
+		});
+	}
+
+	/* --- Helper Methods --- */
+
+	private void add(Edit.Kind kind, int lineNumber, String line)
+	{
+		Edit edit = new Edit(kind, lineNumber, line, edits.size());
+		if (!edits.isEmpty() && edit.compareTo(edits.get(edits.size() - 1)) < 0)
+		{
+			sorted = false;
+		}
+		edits.add(edit);
+	}
+
+	private void sort()
+	{
+		if (!sorted)
+		{
+			Collections.sort(edits);
+			sorted = true;
+		}
+	}
+
+	/**
+	 * Merges the sorted edits with the original lines.
+	 */
+	private void apply(LineSink sink) throws IOException
+	{
+		sort();
+		// The lines inserted at the current line, the last one inserted (which comes first) at the end
+		List<String> inserted = new ArrayList<String>();
+		int next = 0;
+		int lineNumber = 0;
+		for (CharSequence original : lines)
+		{
+			next = applyLine(lineNumber++, original, next, inserted, sink);
+		}
+		applyLine(lineNumber, null, next, inserted, sink);
+	}
+
+	/**
+	 * @return The index of the first edit of the next lines.
+	 */
+	private int applyLine(int lineNumber, CharSequence original, int next, List<String> inserted, LineSink sink)
+			throws IOException
+	{
+		CharSequence line = original;
+		for (; next < edits.size() && edits.get(next).getLine() == lineNumber; next++)
+		{
+			Edit edit = edits.get(next);
+			if (edit.getKind() == Edit.Kind.INSERT)
+			{
+				inserted.add(edit.getText());
+			}
+			else if (edit.getKind() == Edit.Kind.REPLACE && !inserted.isEmpty())
+			{
+				inserted.set(inserted.size() - 1, edit.getText());
+			}
+			else if (original == null)
+			{
+				throw new IndexOutOfBoundsException("Line: " + lineNumber + ", Size: " + lines.size());
+			}
+			else if (line == null)
+			{
+				throw new IllegalStateException("Line " + lineNumber + " was deleted");
+			}
+			else
+			{
+				line = edit.getText();
+			}
+		}
+		for (int i = inserted.size() - 1; i >= 0; i--)
+		{
+			sink.line(inserted.get(i));
+		}
+		inserted.clear();
+		if (line != null)
+		{
+			sink.line(line);
+		}
+		return next;
+	}
+
+	private static void checkLine(int lineNumber, int size)
+	{
+		if (lineNumber < 0 || lineNumber >= size)
+		{
+			throw new IndexOutOfBoundsException("Line: " + lineNumber + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Where the lines of the result go.
+	 */
+	private interface LineSink
+	{
+		void line(CharSequence line) throws IOException;
+	}
+}
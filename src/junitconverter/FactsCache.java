@@ -0,0 +1,161 @@
+package junitconverter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the {@link ClassFacts} of parsed sources in a directory, so that later runs can take the facts of a source
+ * that hasn't changed instead of lexing and parsing it again. Facts are only worth keeping because parsing costs far
+ * more than anything else a conversion does; they don't depend on the stages, so runs with other stages share them.
+ * <p>
+ * Every source has one file per parser, named after the {@link ContentHash} of its content and the parser that took
+ * its facts, as outline parsing, full parsing and the {@link OutlineScanner} needn't find the same facts. The file
+ * starts with the {@link ClassFacts#GRAMMAR_VERSION} it was written with: facts of another version are not read, and are replaced
+ * once the source has been parsed again. The cache is only an optimization, so files that can't be read are treated
+ * as missing and files that can't be written are not written. Any number of threads can use the cache at once.
+ */
+public class FactsCache
+{
+
+	private static final int MAGIC = 0x4a434643; // JCFC
+	private static final String SUFFIX = ".facts"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+	private final File directory;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * @param directory
+	 *            Where the facts are kept, created if needed.
+	 */
+	public FactsCache(File directory)
+	{
+		this.directory = directory;
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * @param hash
+	 *            The content hash of the source.
+	 * @param parser
+	 *            What took the facts, as a name that can be part of a file name.
+	 * @return The facts of the source, null if they're not in the cache.
+	 */
+	public ClassFacts get(String hash, String parser)
+	{
+		File file = fileOf(hash, parser);
+		if (!file.isFile())
+		{
+			misses.incrementAndGet();
+			return null;
+		}
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try
+			{
+				if (in.readInt() != MAGIC || in.readInt() != ClassFacts.GRAMMAR_VERSION)
+				{
+					misses.incrementAndGet();
+					return null;
+				}
+				ClassFacts facts = ClassFacts.readFrom(in);
+				hits.incrementAndGet();
+				return facts;
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// Truncated or not ours, the source is parsed again and the file replaced
+			misses.incrementAndGet();
+			return null;
+		}
+		catch (RuntimeException e)
+		{
+			// Corrupt in a way the facts can't be built from, same as above
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Keeps the facts of a source. The file is written aside and then renamed, so that no thread ever reads half of
+	 * it.
+	 *
+	 * @param hash
+	 *            The content hash of the source.
+	 * @param parser
+	 *            What took the facts, as for {@link #get(String, String)}.
+	 */
+	public void put(String hash, String parser, ClassFacts facts)
+	{
+		File temp = null;
+		try
+		{
+			directory.mkdirs();
+			temp = File.createTempFile(hash, TEMP_SUFFIX, directory);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try
+			{
+				out.writeInt(MAGIC);
+				out.writeInt(ClassFacts.GRAMMAR_VERSION);
+				facts.writeTo(out);
+			}
+			finally
+			{
+				out.close();
+			}
+			File file = fileOf(hash, parser);
+			// Renaming over an existing file fails on some platforms
+			if (!temp.renameTo(file) && (!file.delete() || !temp.renameTo(file)))
+			{
+				temp.delete();
+			}
+		}
+		catch (IOException e)
+		{
+			// The facts will be parsed again next time
+			if (temp != null)
+			{
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * @return How many sources had their facts in the cache.
+	 */
+	public int getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return How many sources had to be parsed.
+	 */
+	public int getMisses()
+	{
+		return misses.get();
+	}
+
+	private File fileOf(String hash, String parser)
+	{
+		return new File(directory, hash + '-' + parser + SUFFIX);
+	}
+}
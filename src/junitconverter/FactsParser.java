@@ -0,0 +1,16 @@
+package junitconverter;
+
+import org.antlr.runtime.TokenStream;
+
+/**
+ * The base class of the generated {@link JavaParser} (the superClass option of Java.g), which only declares that the
+ * parser is a {@link FactsSource}: ANTLR can't add interfaces to the parsers it generates.
+ */
+public abstract class FactsParser extends MemoizingParser implements FactsSource
+{
+
+	public FactsParser(TokenStream input)
+	{
+		super(input);
+	}
+}
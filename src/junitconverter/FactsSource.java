@@ -0,0 +1,69 @@
+package junitconverter;
+
+import java.util.List;
+import java.util.Map;
+
+import junitconverter.testcase.AnnotationSet;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+
+/**
+ * What {@link ClassFacts} are taken from: the {@link JavaParser} or the {@link OutlineScanner}, once they're done with
+ * a whole source. Lines are counted from one, except in the {@link ImportIndex} and the references.
+ */
+public interface FactsSource
+{
+
+	/**
+	 * @return The fully qualified name of the class.
+	 */
+	String getFullName();
+
+	int getTypeLine();
+
+	/**
+	 * @param method
+	 *            A method, or the empty string for the class itself.
+	 * @return The annotations of the method, null if there are none.
+	 */
+	AnnotationSet getAnnotations(String method);
+
+	String getSuperName();
+
+	int getExtendsLine();
+
+	int getExtendsPos();
+
+	int getSuperEndLine();
+
+	int getSuperEndPos();
+
+	/**
+	 * @return The methods of the class and the lines they start at, in the order of the source.
+	 */
+	Map<String, Integer> getMethodsWithLines();
+
+	String getVisibility(String method);
+
+	int getVisibilityLine(String method);
+
+	int getVisibilityPos(String method);
+
+	/**
+	 * @return The names of the classes added in the suite() method, as written.
+	 */
+	List<String> getSuiteClasses();
+
+	ImportIndex getImportIndex();
+
+	/**
+	 * @return The lines (first is zero) where each identifier is used outside of the import declarations.
+	 */
+	Map<String, LineSet> getReferences();
+
+	LineSet getSuperConstructorInvocations();
+
+	LineSet getSuperMethodInvocations();
+
+	LineSet getOverrideAnnotationsLines();
+}
@@ -164,19 +164,47 @@
  *      Character.isJavaIdentifierPart(int) returns true."
  */
 grammar Java;
-options {k=2; backtrack=true; memoize=true;}
+/* No global backtracking: declarations, which are all outline parsing goes through, are LL(*).
+   Only the statement and expression rules that can't be told apart without parsing ahead (local
+   variables from expressions, casts from parenthesized expressions...) backtrack, through their own
+   options or syntactic predicates. The few ambiguities left (dangling else, switch labels,
+   assignments, annotations and qualified names followed by more of the same) are resolved greedily,
+   as backtracking did, by predicates on their first tokens, and the type of a cast is told from an
+   expression by trying it first. ANTLR generates the parser without warnings, so that a new warning
+   is a new ambiguity. What backtracking memoizes is kept by MemoizingParser.
+   Only the rules that backtracking often tries again at the same token are memoized: the ones
+   'ant profile-memo' lists for the benchmark corpus, which it checks this grammar against. Memoizing
+   every rule made 29 lookups for every hit there. */
+options {backtrack=false; memoize=false; superClass=FactsParser;}
 @header {
 package junitconverter;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Set;
-import java.util.Arrays;
-import java.util.Collections;
 
+import junitconverter.testcase.AnnotationSet;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
 }
 @members {
 	/** Tracks how deep down into classes we're in (inner classes etc.) */
 	private int classDepth = 0;
+	/** Tracks how deep down into the bodies of methods, constructors and initializers we're in. */
+	private int bodyDepth = 0;
+	
+	/** Whether method and constructor bodies are skipped rather than parsed. */
+	private boolean outline;
+	private int syntaxErrors;
+	/** Whether the first syntax error ends the parse, rather than being recovered from. */
+	private boolean failFast;
+	
+	/** How much the parse may cost, null for no limit. */
+	private ParseBudget budget;
+	/** When the parse's time is up, as System.nanoTime() gives it (Long.MAX_VALUE for no limit). */
+	private long deadline = Long.MAX_VALUE;
+	private int speculativeTokens;
+	private int matchedTokens;
 	
 	/** Whether we've already seen our super. */
 	private boolean foundSuper;
@@ -188,21 +216,208 @@ import java.util.Collections;
 	private String superName;
 	private int superLine;
 	private int superPos;
-	private Map<String, Integer> methods = new HashMap<String, Integer>();
-	private Set<Integer> superCtorInvocations = new HashSet<Integer>();
-	private Set<Integer> superMethodInvocations = new HashSet<Integer>();
-	private Set<Integer> overrideAnnotationsLines = new HashSet<Integer>();
+	private Token extendsToken;
+	private Token superStopToken;
+	private Map<String, Integer> methods = new LinkedHashMap<String, Integer>();
+	private LineSet superCtorInvocations = new LineSet();
+	private LineSet superMethodInvocations = new LineSet();
+	private LineSet overrideAnnotationsLines = new LineSet();
 	private String packageName;
-	private String currentAnnotations = "";
-	private Map<String, List<String>> annotations = 
-			new HashMap<String, List<String>>();
+	private ImportIndex importIndex = new ImportIndex();
+	/** The first and last tokens of the import declarations. */
+	private Token importsStart;
+	private Token importsStop;
+	private AnnotationSet currentAnnotations = AnnotationSet.EMPTY;
+	private Map<String, AnnotationSet> annotations = new HashMap<String, AnnotationSet>();
 	private Map<String, String> visibilities = new HashMap<String, String>();
 	
 	private String visibility = "";
+	private Token visibilityToken;
+	private Map<String, Token> visibilityTokens = new HashMap<String, Token>();
+	/** The first and last tokens of the suite() method, from its parameters to its body. */
+	private Token suiteStart;
+	private Token suiteStop;
 		
-	private void setVisibility(String visibility) {
+	/**
+	 * In outline mode, the bodies of methods and constructors are matched brace by brace instead of
+	 * statement by statement, which is all it takes to find what's declared at class level. Bodies are 
+	 * only looked into for super calls, and for the class bodies and creator arguments that super calls 
+	 * may be in (see skippedBlock). Syntax errors aren't reported in outline mode, a source with errors should be parsed 
+	 * again in full.
+	 */
+	public void setOutline(boolean outline) { this.outline = outline; }
+	public boolean isOutline() { return outline; }
+	
+	/** @return The number of syntax errors found, including those the parser recovered from. */
+	public int getSyntaxErrors() { return syntaxErrors; }
+	
+	/**
+	 * In fail-fast mode, the first syntax error throws a SyntaxErrorException, which no rule catches, 
+	 * instead of being reported and recovered from: a source the parser doesn't understand isn't worth 
+	 * parsing to the end, nor converting.
+	 */
+	public void setFailFast(boolean failFast) { this.failFast = failFast; }
+	
+	public void reportError(RecognitionException e) {
+		syntaxErrors++;
+		if (failFast) {
+			throw new SyntaxErrorException(getErrorHeader(e) + " " + getErrorMessage(e, getTokenNames()), e);
+		}
+		super.reportError(e);
+	}
+	
+	/** Recovery tries deleting or inserting a token before reporting the error, which fail-fast skips. */
+	public void recoverFromMismatchedToken(IntStream input, RecognitionException e, int ttype, BitSet follow) 
+			throws RecognitionException {
+		if (failFast) {
+			reportError(e);
+		}
+		super.recoverFromMismatchedToken(input, e, ttype, follow);
+	}
+	
+	public void recoverFromMismatchedSet(IntStream input, RecognitionException e, BitSet follow) 
+			throws RecognitionException {
+		if (failFast) {
+			reportError(e);
+		}
+		super.recoverFromMismatchedSet(input, e, follow);
+	}
+	
+	public void emitErrorMessage(String message) {
+		if (!outline) {
+			super.emitErrorMessage(message);
+		}
+	}
+	
+	/**
+	 * Sets how much the parse may cost, its time counting from now. Past either limit, 
+	 * the parser throws a ParseBudgetExceededException, which no rule catches.
+	 */
+	public void setBudget(ParseBudget budget) {
+		setBudget(budget, budget.deadline());
+	}
+	
+	/**
+	 * Sets how much the parse may cost, the time being up at the given deadline, as 
+	 * ParseBudget.deadline() gives it. Parsers of the same source share one deadline.
+	 */
+	public void setBudget(ParseBudget budget, long deadline) {
+		this.budget = budget;
+		this.deadline = deadline;
+	}
+	
+	/** @return The number of tokens matched while backtracking, the same token counting once a try. */
+	public int getSpeculativeTokens() { return speculativeTokens; }
+	
+	public void match(IntStream input, int ttype, BitSet follow) throws RecognitionException {
+		if (backtracking > 0) {
+			speculate();
+		}
+		// The clock is only read once in a while, it costs more than a token
+		if ((++matchedTokens & 0xff) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+			throw new ParseBudgetExceededException("Took more than " + budget.getMilliseconds() + " ms");
+		}
+		super.match(input, ttype, follow);
+	}
+	
+	/** Counts a token matched while backtracking, against the budget if any. */
+	private void speculate() {
+		speculativeTokens++;
+		if (budget != null && budget.getSpeculativeTokens() != 0 
+				&& speculativeTokens > budget.getSpeculativeTokens()) {
+			throw new ParseBudgetExceededException("Matched more than " + budget.getSpeculativeTokens() 
+					+ " tokens while backtracking");
+		}
+	}
+	
+	/**
+	 * Tells whether the block a skipped body is about to open is the body of a class: either 
+	 * new X(...) { or class X ... {, as looked for in the tokens before it.
+	 */
+	private boolean opensClassBody() {
+		int k = 1;
+		Token previous = input.LT(-k);
+		if (previous != null && ")".equals(previous.getText())) {
+			// Back to the matching parenthesis, then over the created type
+			int depth = 0;
+			for (; (previous = input.LT(-k)) != null; k++) {
+				if (")".equals(previous.getText())) {
+					depth++;
+				} else if ("(".equals(previous.getText()) && --depth == 0) {
+					break;
+				}
+			}
+			return followsNew(k + 1);
+		}
+		for (; (previous = input.LT(-k)) != null; k++) {
+			String text = previous.getText();
+			if ("class".equals(text) || "interface".equals(text) || previous.getType() == ENUM) {
+				return true;
+			}
+			if (";".equals(text) || "{".equals(text) || "}".equals(text) || ")".equals(text) || "=".equals(text)) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Tells whether the parenthesis a skipped body is about to open starts the arguments of 
+	 * new X(...), which the full grammar counts as part of the class created (see classCreatorRest).
+	 */
+	private boolean opensCreatorArguments() {
+		return followsNew(1);
+	}
+	
+	/**
+	 * Tells whether the tokens from LT(-k) back are the type of new X, or of new X<Y>.Z.
+	 */
+	private boolean followsNew(int k) {
+		int angles = 0;
+		Token previous;
+		for (; (previous = input.LT(-k)) != null; k++) {
+			String text = previous.getText();
+			if (">".equals(text)) {
+				angles++;
+			} else if ("<".equals(text)) {
+				if (--angles < 0) {
+					// A less-than, the type arguments would have been closed first
+					return false;
+				}
+			} else if (previous.getType() != Identifier && !".".equals(text) && !(angles > 0 && 
+					(",".equals(text) || "?".equals(text) || "[".equals(text) || "]".equals(text) 
+					|| "extends".equals(text) || "super".equals(text)))) {
+				break;
+			}
+		}
+		return previous != null && "new".equals(previous.getText());
+	}
+	
+	/**
+	 * Records a super call found in a skipped body, or after a qualifier in a parsed one, just after 
+	 * its 'super' token: super(...) and x.super(...) call a constructor, super.x(...) calls a method.
+	 */
+	private void addSuper(Token superToken) {
+		String next = input.LT(1).getText();
+		Token previous = input.LT(-2);
+		if ("(".equals(next)) {
+			addSuperConstructorInvocation(superToken.getLine());
+		} else if (".".equals(next) && (previous == null || !".".equals(previous.getText()))) {
+			addSuperMethodInvocation(superToken.getLine());
+		}
+	}
+	
+	private void setVisibility(String visibility, Token token) {
 		if (classDepth == 1) {
 			this.visibility = visibility;
+			this.visibilityToken = token;
+		}
+	}
+	/** Forgets the modifiers of the previous member, which may not have been a method. */
+	private void startMember() {
+		if (classDepth == 1) {
+			visibility = "";
+			visibilityToken = null;
 		}
 	}
 	public String getType() { return type; }
@@ -212,22 +427,39 @@ import java.util.Collections;
 	private void addMethod(String method, int line) {
 	    if (classDepth != 1) { return; } 
 		methods.put(method, line);
-		if ("".equals(currentAnnotations)) {
-			annotations.put(method, Collections.<String>emptyList());
-		} else {
-			annotations.put(method, Arrays.asList(currentAnnotations.split("\\s+")));
-		}
+		annotations.put(method, currentAnnotations);
 		
 		visibilities.put(method, visibility);
+		visibilityTokens.put(method, visibilityToken);
 		visibility = "";
-		currentAnnotations = "";
+		visibilityToken = null;
+		currentAnnotations = AnnotationSet.EMPTY;
+	}
+	private void addMethod(String method, int line, Token start, Token stop) {
+		if (classDepth == 1 && "suite".equals(method)) {
+			suiteStart = start;
+			suiteStop = stop;
+		}
+		addMethod(method, line);
 	}
 	
 	public String getVisibility(String method) {
 		return visibilities.get(method);
 	}
 	
-	public List<String> getAnnotations(String method) {
+	/** @return The line of the visibility modifier of the method (0 if it has none). */
+	public int getVisibilityLine(String method) {
+		Token token = visibilityTokens.get(method);
+		return token == null ? 0 : token.getLine();
+	}
+	
+	/** @return The position in its line of the visibility modifier of the method (-1 if it has none). */
+	public int getVisibilityPos(String method) {
+		Token token = visibilityTokens.get(method);
+		return token == null ? -1 : token.getCharPositionInLine();
+	}
+	
+	public AnnotationSet getAnnotations(String method) {
 		return annotations.get(method);
 	}
 	
@@ -242,35 +474,164 @@ import java.util.Collections;
 	private void setType(String type, int line) {
 		this.type = type;
 		this.typeLine = line;
-		if ("".equals(currentAnnotations)) {
-			annotations.put("", Collections.<String>emptyList());
-		} else {
-			annotations.put("", Arrays.asList(currentAnnotations.split("\\s+")));
-		}
-		currentAnnotations = "";
+		annotations.put("", currentAnnotations);
+		currentAnnotations = AnnotationSet.EMPTY;
 	}
-	private void setSuper(String superName, int superLine, int superPos) {
+	private void setSuper(String superName, int superLine, int superPos, Token extendsToken, Token superStopToken) {
 		this.superName = superName;
 		this.superLine = superLine;
 		this.superPos = superPos;
+		this.extendsToken = extendsToken;
+		this.superStopToken = superStopToken;
 	}
 	public String getSuperName() { return superName; }
 	public int getSuperLine() { return superLine; }
 	public int getSuperPos() { return superPos; }
-	public Set<Integer> getSuperConstructorInvocations() { 
+	/** @return The line of the 'extends' keyword (0 if there's no extends clause). */
+	public int getExtendsLine() { return extendsToken == null ? 0 : extendsToken.getLine(); }
+	/** @return The position of the 'extends' keyword in its line (-1 if there's no extends clause). */
+	public int getExtendsPos() { return extendsToken == null ? -1 : extendsToken.getCharPositionInLine(); }
+	/** @return The line where the super type ends (0 if there's no extends clause). */
+	public int getSuperEndLine() { return superStopToken == null ? 0 : superStopToken.getLine(); }
+	/** @return The position just after the super type in its last line (-1 if there's no extends clause). */
+	public int getSuperEndPos() { 
+		if (superStopToken == null) {
+			return -1;
+		}
+		return superStopToken.getCharPositionInLine() + superStopToken.getText().length();
+	}
+	
+	/**
+	 * Looks for the tests added in the suite() method, that is calls to addTest(X.suite()) and 
+	 * addTestSuite(X.class), straight in the tokens of the method.
+	 *
+	 * @return The names of the classes, as written in the calls, in the order they're added.
+	 */
+	public List<String> getSuiteClasses() {
+		List<String> classes = new ArrayList<String>();
+		if (suiteStart == null) {
+			return classes;
+		}
+		for (int i = suiteStart.getTokenIndex(); i <= suiteStop.getTokenIndex(); i++) {
+			String text = input.get(i).getText();
+			if (input.get(i).getType() != Identifier || !("addTest".equals(text) || "addTestSuite".equals(text))) {
+				continue;
+			}
+			int next = nextVisible(i);
+			if (!"(".equals(textAt(next))) {
+				continue;
+			}
+			// The argument, a qualified name
+			StringBuilder name = new StringBuilder();
+			String last = null;
+			next = nextVisible(next);
+			while (next != -1 && input.get(next).getType() == Identifier) {
+				if (last != null) {
+					name.append(last).append('.');
+				}
+				last = textAt(next);
+				next = nextVisible(next);
+				if (!".".equals(textAt(next))) {
+					break;
+				}
+				next = nextVisible(next);
+			}
+			if (last == null) {
+				continue;
+			}
+			if ("class".equals(textAt(next))) {
+				// X.class
+				name.append(last);
+				next = nextVisible(next);
+			} else if ("suite".equals(last) && "(".equals(textAt(next)) && name.length() > 0
+					&& ")".equals(textAt(nextVisible(next)))) {
+				// X.suite()
+				name.setLength(name.length() - 1);
+				next = nextVisible(nextVisible(next));
+			} else {
+				continue;
+			}
+			if (")".equals(textAt(next))) {
+				classes.add(name.toString());
+				i = next;
+			}
+		}
+		return classes;
+	}
+	
+	/** @return The index of the next token on the default channel within suite(), -1 if none. */
+	private int nextVisible(int index) {
+		if (index == -1) {
+			return -1;
+		}
+		for (int i = index + 1; i <= suiteStop.getTokenIndex(); i++) {
+			if (input.get(i).getChannel() == Token.DEFAULT_CHANNEL) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private String textAt(int index) {
+		return index == -1 ? null : input.get(index).getText();
+	}
+	public LineSet getSuperConstructorInvocations() { 
 		return superCtorInvocations;
 	}
 	
-	public Set<Integer> getSuperMethodInvocations() {
+	public LineSet getSuperMethodInvocations() {
 		return superMethodInvocations;
 	}
 	
-	public Set<Integer> getOverrideAnnotationsLines() {
+	public LineSet getOverrideAnnotationsLines() {
 		return overrideAnnotationsLines;
 	}
 	
-	private void setPackage(String packageName) {
+	private void setPackage(String packageName, int line) {
 		this.packageName = packageName;
+		importIndex.setPackageLine(line - 1);
+	}
+	
+	/** @return The import section of the file, lines being counted from zero. */
+	public ImportIndex getImportIndex() {
+		return importIndex;
+	}
+	
+	private void addImport(String name, boolean isStatic, boolean onDemand, Token start, Token stop) {
+		importIndex.addImport(name, isStatic, onDemand, start.getLine() - 1);
+		if (importsStart == null) {
+			importsStart = start;
+		}
+		importsStop = stop;
+	}
+	
+	/**
+	 * Lists the identifiers used in the file outside of its import declarations, straight from the 
+	 * tokens that were parsed.
+	 *
+	 * @return The lines (first is zero) where each identifier is used.
+	 */
+	public Map<String, LineSet> getReferences() {
+		Map<String, LineSet> references = new HashMap<String, LineSet>();
+		int importsFrom = importsStart == null ? -1 : importsStart.getTokenIndex();
+		int importsTo = importsStop == null ? -1 : importsStop.getTokenIndex();
+		for (int i = 0; i < input.size(); i++) {
+			if (i == importsFrom) {
+				i = importsTo;
+				continue;
+			}
+			Token token = input.get(i);
+			if (token.getType() != Identifier) {
+				continue;
+			}
+			LineSet lines = references.get(token.getText());
+			if (lines == null) {
+				lines = new LineSet();
+				references.put(token.getText(), lines);
+			}
+			lines.add(token.getLine() - 1);
+		}
+		return references;
 	}
 	
 	public String getFullName() {
@@ -288,10 +649,25 @@ package junitconverter;
   protected boolean enumIsKeyword = true;
   protected boolean assertIsKeyword = true;
   
-  private StringBuilder string = new StringBuilder();
-  public String getAll() { return string.toString(); }
-  private void addString(String text) {
-  	string.append(text);
+  /** The text of every token matched so far, null unless asked for. */
+  private StringBuilder string;
+  /**
+   * Whether to keep a copy of the text of every token, to be returned by getAll(). Off by
+   * default, as it costs a String per token and a second copy of the whole source.
+   */
+  public void setAccumulateText(boolean accumulateText) {
+  	string = accumulateText ? new StringBuilder() : null;
+  }
+  public String getAll() {
+  	if (string == null) {
+  		throw new IllegalStateException("Text accumulation is off, see setAccumulateText()");
+  	}
+  	return string.toString();
+  }
+  private void addString() {
+  	if (string != null) {
+  		string.append(getText());
+  	}
   }
 }
 
@@ -299,6 +675,7 @@ package junitconverter;
 /* The annotations are separated out to make parsing faster, but must be associated with
    a packageDeclaration or a typeDeclaration (and not an empty one). */
 compilationUnit 
+options {k=1;} // the predicate tells the annotations of a package from those of a type
     :   ('@')=> annotations
         (   packageDeclaration importDeclaration* typeDeclaration*
         |   classOrInterfaceDeclaration typeDeclaration*
@@ -307,11 +684,13 @@ compilationUnit
     ;
 
 packageDeclaration
-    :   'package' qualifiedName ';' { setPackage($qualifiedName.text); }
+    :   p='package' qualifiedName ';' { setPackage($qualifiedName.text, $p.getLine()); }
     ;
     
 importDeclaration
-    :   'import' 'static'? qualifiedName ('.' '*')? ';'
+    :   i='import' s='static'? qualifiedName (d='.' '*')? e=';' {
+    		addImport($qualifiedName.text, $s != null, $d != null, $i, $e);
+    	}
     ;
     
 typeDeclaration
@@ -320,6 +699,7 @@ typeDeclaration
     ;
     
 classOrInterfaceDeclaration
+options {memoize=true;}
     :   classOrInterfaceModifiers (classDeclaration | interfaceDeclaration)
     ;
     
@@ -354,8 +734,8 @@ normalClassDeclaration
     				setType($Identifier.getText(), $Identifier.getLine());
     			} 
     	  }
-        ('extends' type { 
-        		if (!foundSuper) setSuper($type.text, lastTypeLine, lastTypePos);
+        (e='extends' type { 
+        		if (!foundSuper) setSuper($type.text, lastTypeLine, lastTypePos, $e, $type.stop);
         })? {
             // Whether there's an extends clause or not, look no further 
             foundSuper = true; 
@@ -419,8 +799,8 @@ interfaceBody
 
 classBodyDeclaration
     :   ';'
-    |   'static'? block
-    |   modifiers memberDecl
+    |   'static'? { bodyDepth++; } block { bodyDepth--; }
+    |   { startMember(); } modifiers memberDecl
     ;
     
 memberDecl
@@ -446,7 +826,9 @@ genericMethodOrConstructorRest
     ;
 
 methodDeclaration
-    :   Identifier methodDeclaratorRest   { addMethod($Identifier.getText(), $Identifier.getLine()); }
+    :   Identifier methodDeclaratorRest   { 
+    		addMethod($Identifier.getText(), $Identifier.getLine(), $methodDeclaratorRest.start, $methodDeclaratorRest.stop); 
+    	}
     ;
 
 fieldDeclaration
@@ -542,9 +924,9 @@ arrayInitializer
 
 modifier
     :   annotation
-    |   'public' { setVisibility("public"); }
-    |   'protected' { setVisibility("protected"); }
-    |   'private' { setVisibility("private"); }
+    |   t='public' { setVisibility("public", $t); }
+    |   t='protected' { setVisibility("protected", $t); }
+    |   t='private' { setVisibility("private", $t); }
     |   'static'
     |   'abstract'
     |   'final'
@@ -568,6 +950,7 @@ typeName
     ;
 
 type
+options {memoize=true;}
 	:	classOrInterfaceType ('[' ']')*
 	|	primitiveType ('[' ']')*
 	;
@@ -577,6 +960,7 @@ classOrInterfaceType
 	;
 
 primitiveType
+options {memoize=true;}
     :   'boolean'
     |   'char'
     |   'byte'
@@ -619,14 +1003,50 @@ formalParameterDeclsRest
     ;
     
 methodBody
-    :   block
+options { backtrack=false; k=1; }
+    :   {outline}?=> skippedBlock
+    |   {!outline}?=> { bodyDepth++; } block { bodyDepth--; }
     ;
 
 constructorBody
-    :   '{' explicitConstructorInvocation? blockStatement* '}'
+options { backtrack=false; k=1; }
+    :   {outline}?=> skippedBlock
+    |   {!outline}?=> { bodyDepth++; } constructorBlock { bodyDepth--; }
+    ;
+
+/* The predicate is only tried where two tokens of lookahead can't tell an invocation from a statement:
+   unbounded, the LL(*) analysis gives up before it reaches the statements. */
+constructorBlock
+    :   '{' (options {k=2;} : (explicitConstructorInvocation)=> explicitConstructorInvocation)? blockStatement* '}'
+    ;
+
+/* The body of a method or constructor in outline mode, matched bracket by bracket. Class bodies in
+   it, and the arguments of new X(...), count as classes, as they do in full, so that their super 
+   calls aren't taken for ours. */
+skippedBlock
+@init { boolean classBody = opensClassBody(); }
+    :   '{' { if (classBody) classDepth++; }
+        skippedCode
+        '}' { if (classBody) classDepth--; }
+    ;
+
+skippedArguments
+@init { boolean creatorArguments = opensCreatorArguments(); }
+    :   '(' { if (creatorArguments) classDepth++; }
+        skippedCode
+        ')' { if (creatorArguments) classDepth--; }
+    ;
+
+skippedCode
+    :   (   skippedBlock
+        |   skippedArguments
+        |   t='super' { addSuper($t); }
+        |   ~('{' | '}' | '(' | ')' | 'super')
+        )*
     ;
 
 explicitConstructorInvocation
+options {backtrack=true;}
     :   (nonWildcardTypeArguments)? ('this' | t1='super' { addSuperConstructorInvocation($t1.getLine()); }) arguments ';'
     |   primary '.' nonWildcardTypeArguments? t1='super' { addSuperConstructorInvocation($t1.getLine()); } arguments ';'
     ;
@@ -659,7 +1079,7 @@ booleanLiteral
 // ANNOTATIONS
 
 annotations
-    :   annotation+
+    :   (('@' Identifier)=> annotation)+
     ;
 
 annotation
@@ -668,11 +1088,12 @@ annotation
     
 annotationName
     : name=Identifier ('.' name=Identifier)*  {
-    	if (classDepth == 1 && $name.text.equals("Override")) {
+    	// Annotations in bodies are those of local variables
+    	if (classDepth == 1 && bodyDepth == 0 && $name.text.equals("Override")) {
     		overrideAnnotationsLines.add($name.line);
     	}
-    	if (classDepth == 1) {
-    		currentAnnotations += $name.text + " ";
+    	if (classDepth == 1 && bodyDepth == 0) {
+    		currentAnnotations = currentAnnotations.with($name.text);
     	}
     }
     ;
@@ -739,6 +1160,7 @@ block
     ;
     
 blockStatement
+options {backtrack=true;}
     :   localVariableDeclarationStatement
     |   classOrInterfaceDeclaration
     |   statement
@@ -759,13 +1181,12 @@ variableModifiers
 statement
     : block
     |   ASSERT expression (':' expression)? ';'
-    |   'if' parExpression statement (options {k=1;}:'else' statement)?
+    |   'if' parExpression statement (('else')=> 'else' statement)?
     |   'for' '(' forControl ')' statement
     |   'while' parExpression statement
     |   'do' statement 'while' parExpression ';'
     |   'try' block
-        ( catches 'finally' block
-        | catches
+        (   catches ('finally' block)?
         |   'finally' block
         )
     |   'switch' parExpression '{' switchBlockStatementGroups '}'
@@ -800,22 +1221,23 @@ switchBlockStatementGroups
    appropriate AST, one in which each group, except possibly the last one, has
    labels and statements. */
 switchBlockStatementGroup
-    :   switchLabel+ blockStatement*
+    :   (('case' | 'default')=> switchLabel)+ blockStatement*
     ;
     
+/* An enum constant is an expression too, so 'case' enumConstantName ':' isn't an alternative of its own */
 switchLabel
     :   'case' constantExpression ':'
-    |   'case' enumConstantName ':'
     |   'default' ':'
     ;
     
 forControl
-options {k=3;} // be efficient for common case: for (ID ID : ID) ...
+options {k=3; backtrack=true;} // be efficient for common case: for (ID ID : ID) ...
     :   enhancedForControl
     |   forInit? ';' expression? ';' forUpdate?
     ;
 
 forInit
+options {backtrack=true;}
     :   localVariableDeclaration
     |   expressionList
     ;
@@ -847,7 +1269,8 @@ constantExpression
     ;
     
 expression
-    :   conditionalExpression (assignmentOperator expression)?
+options {memoize=true;}
+    :   conditionalExpression ((assignmentOperator)=> assignmentOperator expression)?
     ;
     
 assignmentOperator
@@ -962,6 +1385,7 @@ unaryExpression
     ;
 
 unaryExpressionNotPlusMinus
+options {backtrack=true;}
     :   '~' unaryExpression
     |   '!' unaryExpression
     |   castExpression
@@ -969,29 +1393,32 @@ unaryExpressionNotPlusMinus
     ;
 
 castExpression
+options {backtrack=true; memoize=true;}
     :  '(' primitiveType ')' unaryExpression
-    |  '(' (type | expression) ')' unaryExpressionNotPlusMinus
+    |  '(' (options {k=1;} : (type)=> type | expression) ')' unaryExpressionNotPlusMinus
     ;
 
 primary
+options {backtrack=true;}
     :   parExpression
-    |   'this' ('.' Identifier)* (identifierSuffix)?
+    |   'this' (('.' Identifier)=> '.' Identifier)* (options {k=2;} : (identifierSuffix)=> identifierSuffix)?
     |   t1='super' superSuffix { addSuperMethodInvocation($t1.getLine()); }
     |   literal
     |   'new' creator
-    |   Identifier ('.' Identifier)* (identifierSuffix)?
+    |   Identifier (('.' Identifier)=> '.' Identifier)* (options {k=2;} : (identifierSuffix)=> identifierSuffix)?
     |   primitiveType ('[' ']')* '.' 'class'
     |   'void' '.' 'class'
     ;
 
 identifierSuffix
+options {backtrack=true; memoize=true;}
     :   ('[' ']')+ '.' 'class'
-    |   ('[' expression ']')+ // can also be matched by selector, but do here
+    |   (('[' expression ']')=> '[' expression ']')+ // can also be matched by selector, but do here
     |   arguments
     |   '.' 'class'
     |   '.' explicitGenericInvocation
     |   '.' 'this'
-    |   '.' 'super' arguments
+    |   '.' t='super' { addSuper($t); } arguments
     |   '.' 'new' innerCreator
     ;
 
@@ -1010,9 +1437,10 @@ innerCreator
     ;
 
 arrayCreatorRest
+options {backtrack=true;}
     :   '['
         (   ']' ('[' ']')* arrayInitializer
-        |   expression ']' ('[' expression ']')* ('[' ']')*
+        |   expression ']' (('[' expression ']')=> '[' expression ']')* ('[' ']')*
         )
     ;
 
@@ -1031,7 +1459,7 @@ nonWildcardTypeArguments
 selector
     :   '.' Identifier (arguments)?
     |   '.' 'this'
-    |   '.' 'super' superSuffix
+    |   '.' t='super' { addSuper($t); } superSuffix
     |   '.' 'new' innerCreator
     |   '[' expression ']'
     ;
@@ -1047,11 +1475,11 @@ arguments
 
 // LEXER
 
-HexLiteral : '0' ('x'|'X') HexDigit+ IntegerTypeSuffix? {addString(getText());};
+HexLiteral : '0' ('x'|'X') HexDigit+ IntegerTypeSuffix? {addString();};
 
-DecimalLiteral : ('0' | '1'..'9' '0'..'9'*) IntegerTypeSuffix?  {addString(getText());};
+DecimalLiteral : ('0' | '1'..'9' '0'..'9'*) IntegerTypeSuffix?  {addString();};
 
-OctalLiteral : '0' ('0'..'7')+ IntegerTypeSuffix?  {addString(getText());};
+OctalLiteral : '0' ('0'..'7')+ IntegerTypeSuffix?  {addString();};
 
 fragment
 HexDigit : ('0'..'9'|'a'..'f'|'A'..'F') ;
@@ -1060,10 +1488,10 @@ fragment
 IntegerTypeSuffix : ('l'|'L') ;
 
 FloatingPointLiteral
-    :   ('0'..'9')+ '.' ('0'..'9')* Exponent? FloatTypeSuffix?  {addString(getText());}
-    |   '.' ('0'..'9')+ Exponent? FloatTypeSuffix?  {addString(getText());}
-    |   ('0'..'9')+ Exponent FloatTypeSuffix?  {addString(getText());}
-    |   ('0'..'9')+ FloatTypeSuffix  {addString(getText());}
+    :   ('0'..'9')+ '.' ('0'..'9')* Exponent? FloatTypeSuffix?  {addString();}
+    |   '.' ('0'..'9')+ Exponent? FloatTypeSuffix?  {addString();}
+    |   ('0'..'9')+ Exponent FloatTypeSuffix?  {addString();}
+    |   ('0'..'9')+ FloatTypeSuffix  {addString();}
     ;
 
 fragment
@@ -1073,11 +1501,11 @@ fragment
 FloatTypeSuffix : ('f'|'F'|'d'|'D') ;
 
 CharacterLiteral
-    :   '\'' ( EscapeSequence | ~('\''|'\\') ) '\''  {addString(getText());}
+    :   '\'' ( EscapeSequence | ~('\''|'\\') ) '\''  {addString();}
     ;
 
 StringLiteral
-    :  '"' ( EscapeSequence | ~('\\'|'"') )* '"'  {addString(getText());}
+    :  '"' ( EscapeSequence | ~('\\'|'"') )* '"'  {addString();}
     ;
 
 fragment
@@ -1099,15 +1527,15 @@ UnicodeEscape
     :   '\\' 'u' HexDigit HexDigit HexDigit HexDigit
     ;
 
-ENUM:   'enum' {if (!enumIsKeyword) $type=Identifier;  {addString(getText());}}
+ENUM:   'enum' {if (!enumIsKeyword) $type=Identifier;  {addString();}}
     ;
     
 ASSERT
-    :   'assert' {if (!assertIsKeyword) $type=Identifier;  {addString(getText());}}
+    :   'assert' {if (!assertIsKeyword) $type=Identifier;  {addString();}}
     ;
     
 Identifier 
-    :   Letter (Letter|JavaIDDigit)*  {addString(getText());}
+    :   Letter (Letter|JavaIDDigit)*  {addString();}
     ;
 
 /**I found this char range in JavaCC's grammar, but Letter and Digit overlap.
@@ -1149,13 +1577,13 @@ JavaIDDigit
        '\u1040'..'\u1049'
    ;
 
-WS  :  (' '|'\r'|'\t'|'\u000C'|'\n') {$channel=HIDDEN; addString(getText());}
+WS  :  (' '|'\r'|'\t'|'\u000C'|'\n') {$channel=HIDDEN; addString();}
     ;
 
 COMMENT
-    :   '/*' ( options {greedy=false;} : . )* '*/' {$channel=HIDDEN; addString(getText());} 
+    :   '/*' ( options {greedy=false;} : . )* '*/' {$channel=HIDDEN; addString();} 
     ;
 
 LINE_COMMENT
-    : '//' ~('\n'|'\r')* '\r'? '\n' {$channel=HIDDEN;  {addString(getText());}}
+    : '//' ~('\n'|'\r')* '\r'? '\n' {$channel=HIDDEN;  {addString();}}
     ;
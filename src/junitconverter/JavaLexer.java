@@ -125,10 +125,25 @@ public class JavaLexer extends Lexer {
       protected boolean enumIsKeyword = true;
       protected boolean assertIsKeyword = true;
       
-      private StringBuilder string = new StringBuilder();
-      public String getAll() { return string.toString(); }
-      private void addString(String text) {
-      	string.append(text);
+      /** The text of every token matched so far, null unless asked for. */
+      private StringBuilder string;
+      /**
+       * Whether to keep a copy of the text of every token, to be returned by getAll(). Off by
+       * default, as it costs a String per token and a second copy of the whole source.
+       */
+      public void setAccumulateText(boolean accumulateText) {
+      	string = accumulateText ? new StringBuilder() : null;
+      }
+      public String getAll() {
+      	if (string == null) {
+      		throw new IllegalStateException("Text accumulation is off, see setAccumulateText()");
+      	}
+      	return string.toString();
+      }
+      private void addString() {
+      	if (string != null) {
+      		string.append(getText());
+      	}
       }
 
     public JavaLexer() {;} 
@@ -1869,7 +1884,7 @@ public class JavaLexer extends Lexer {
 
             }
 
-            addString(getText());
+            addString();
 
             }
 
@@ -1964,7 +1979,7 @@ public class JavaLexer extends Lexer {
 
             }
 
-            addString(getText());
+            addString();
 
             }
 
@@ -2031,7 +2046,7 @@ public class JavaLexer extends Lexer {
 
             }
 
-            addString(getText());
+            addString();
 
             }
 
@@ -2195,7 +2210,7 @@ public class JavaLexer extends Lexer {
 
                     }
 
-                    addString(getText());
+                    addString();
 
                     }
                     break;
@@ -2269,7 +2284,7 @@ public class JavaLexer extends Lexer {
 
                     }
 
-                    addString(getText());
+                    addString();
 
                     }
                     break;
@@ -2325,7 +2340,7 @@ public class JavaLexer extends Lexer {
 
                     }
 
-                    addString(getText());
+                    addString();
 
                     }
                     break;
@@ -2363,7 +2378,7 @@ public class JavaLexer extends Lexer {
                     } while (true);
 
                     mFloatTypeSuffix(); 
-                    addString(getText());
+                    addString();
 
                     }
                     break;
@@ -2535,7 +2550,7 @@ public class JavaLexer extends Lexer {
             }
 
             match('\''); 
-            addString(getText());
+            addString();
 
             }
 
@@ -2599,7 +2614,7 @@ public class JavaLexer extends Lexer {
             } while (true);
 
             match('\"'); 
-            addString(getText());
+            addString();
 
             }
 
@@ -2851,7 +2866,7 @@ public class JavaLexer extends Lexer {
             {
             match("enum"); 
 
-            if (!enumIsKeyword) _type=Identifier;  {addString(getText());}
+            if (!enumIsKeyword) _type=Identifier;  {addString();}
 
             }
 
@@ -2871,7 +2886,7 @@ public class JavaLexer extends Lexer {
             {
             match("assert"); 
 
-            if (!assertIsKeyword) _type=Identifier;  {addString(getText());}
+            if (!assertIsKeyword) _type=Identifier;  {addString();}
 
             }
 
@@ -2924,7 +2939,7 @@ public class JavaLexer extends Lexer {
                 }
             } while (true);
 
-            addString(getText());
+            addString();
 
             }
 
@@ -3002,7 +3017,7 @@ public class JavaLexer extends Lexer {
                 recover(mse);    throw mse;
             }
 
-            channel=HIDDEN; addString(getText());
+            channel=HIDDEN; addString();
 
             }
 
@@ -3061,7 +3076,7 @@ public class JavaLexer extends Lexer {
 
             match("*/"); 
 
-            channel=HIDDEN; addString(getText());
+            channel=HIDDEN; addString();
 
             }
 
@@ -3134,7 +3149,7 @@ public class JavaLexer extends Lexer {
             }
 
             match('\n'); 
-            channel=HIDDEN;  {addString(getText());}
+            channel=HIDDEN;  {addString();}
 
             }
 
@@ -0,0 +1,199 @@
+package junitconverter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The lines of a source, as views over its characters rather than copies of them. The table only keeps where every
+ * line starts; a line is a {@link CharSequence} that reads straight from the source, and only becomes a
+ * {@link String} if someone asks for one, which the conversion only does for the lines it edits.
+ * <p>
+ * Lines are split the same way {@link java.io.BufferedReader#readLine()} does: a line ends with <code>\n</code>,
+ * <code>\r</code> or <code>\r\n</code>, and a terminator at the very end of the source doesn't start another (empty)
+ * line. The source must not change while the table is used.
+ */
+public class LineTable extends AbstractList<CharSequence> implements RandomAccess
+{
+
+	/** Lines aren't copied to a writer in one go but through a buffer this big, unless they're backed by an array. */
+	private static final int WRITE_BUFFER_SIZE = 256;
+
+	private final CharSequence source;
+	/** Where each line starts in the source, followed by the length of the source. */
+	private final int[] starts;
+	private final int size;
+
+	public LineTable(CharSequence source)
+	{
+		this.source = source;
+		int length = source.length();
+		int[] starts = new int[16];
+		int size = 0;
+		int start = 0;
+		while (start < length)
+		{
+			if (size == starts.length - 1)
+			{
+				int[] grown = new int[starts.length * 2];
+				System.arraycopy(starts, 0, grown, 0, size);
+				starts = grown;
+			}
+			starts[size++] = start;
+			int end = start;
+			while (end < length && source.charAt(end) != '\n' && source.charAt(end) != '\r')
+			{
+				end++;
+			}
+			if (end < length && source.charAt(end) == '\r' && end + 1 < length && source.charAt(end + 1) == '\n')
+			{
+				end++;
+			}
+			start = end + 1;
+		}
+		starts[size] = length;
+		this.starts = starts;
+		this.size = size;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return A view of the line, without its terminator.
+	 */
+	@Override
+	public CharSequence get(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Line: " + index + ", Size: " + size);
+		}
+		return new Line(starts[index], end(index));
+	}
+
+	/**
+	 * Writes a line, without copying it first if it comes from a line table.
+	 */
+	public static void write(CharSequence line, Writer writer) throws IOException
+	{
+		if (line instanceof Line)
+		{
+			((Line) line).writeTo(writer);
+		}
+		else
+		{
+			writer.write(line.toString());
+		}
+	}
+
+	/**
+	 * @return Copies of the lines, as strings.
+	 */
+	public static List<String> toStrings(List<? extends CharSequence> lines)
+	{
+		List<String> strings = new ArrayList<String>(lines.size());
+		for (CharSequence line : lines)
+		{
+			strings.add(line.toString());
+		}
+		return strings;
+	}
+
+	/* --- Helper Methods --- */
+
+	/**
+	 * @return Where the line ends in the source, before its terminator.
+	 */
+	private int end(int index)
+	{
+		int start = starts[index];
+		int end = starts[index + 1];
+		if (end > start && source.charAt(end - 1) == '\n')
+		{
+			end--;
+		}
+		if (end > start && source.charAt(end - 1) == '\r')
+		{
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * A line of the table, from start (inclusive) to end (exclusive) in the source.
+	 */
+	private class Line implements CharSequence
+	{
+
+		private final int start;
+		private final int end;
+
+		public Line(int start, int end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		public char charAt(int index)
+		{
+			if (index < 0 || index >= end - start)
+			{
+				throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + (end - start));
+			}
+			return source.charAt(start + index);
+		}
+
+		public int length()
+		{
+			return end - start;
+		}
+
+		public CharSequence subSequence(int from, int to)
+		{
+			if (from < 0 || to > end - start || from > to)
+			{
+				throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Length: " + (end - start));
+			}
+			return new Line(start + from, start + to);
+		}
+
+		public void writeTo(Writer writer) throws IOException
+		{
+			if (source instanceof CharBuffer && ((CharBuffer) source).hasArray())
+			{
+				CharBuffer buffer = (CharBuffer) source;
+				writer.write(buffer.array(), buffer.arrayOffset() + buffer.position() + start, end - start);
+				return;
+			}
+			char[] chars = new char[Math.min(end - start, WRITE_BUFFER_SIZE)];
+			for (int from = start; from < end; from += chars.length)
+			{
+				int count = Math.min(chars.length, end - from);
+				for (int i = 0; i < count; i++)
+				{
+					chars[i] = source.charAt(from + i);
+				}
+				writer.write(chars, 0, count);
+			}
+		}
+
+		@Override
+		public String toString()
+		{
+			char[] chars = new char[end - start];
+			for (int i = 0; i < chars.length; i++)
+			{
+				chars[i] = source.charAt(start + i);
+			}
+			return new String(chars);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package junitconverter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds which of a fixed set of ASCII markers occur in a run of bytes, in a single pass and without decoding. This is
+ * an Aho-Corasick automaton compiled into a full transition table, so every byte costs one array lookup however many
+ * markers there are.
+ * <p>
+ * Markers can be grouped, a group being reported as found as soon as any of its markers is.
+ */
+public class MarkerMatcher
+{
+
+	/** Groups are reported as bits of an <code>int</code>. */
+	public static final int MAX_GROUPS = 32;
+
+	private static final int ALPHABET = 256;
+
+	/** The group of every marker. */
+	private final Map<String, Integer> groups = new HashMap<String, Integer>();
+	/** <code>transitions[state * ALPHABET + byte]</code> is the state after reading <code>byte</code>. */
+	private final int[] transitions;
+	/** The markers that end at each state, as a bit mask. */
+	private final int[] matches;
+
+	/**
+	 * @param markers
+	 *            The ASCII markers to look for, each in a group of its own (at most {@link #MAX_GROUPS} of them).
+	 */
+	public MarkerMatcher(String... markers)
+	{
+		this(singletonGroups(markers));
+	}
+
+	/**
+	 * @param markerGroups
+	 *            The groups of ASCII markers to look for, at most {@link #MAX_GROUPS} of them.
+	 */
+	public MarkerMatcher(List<? extends Collection<String>> markerGroups)
+	{
+		if (markerGroups.size() > MAX_GROUPS)
+		{
+			throw new IllegalArgumentException("At most " + MAX_GROUPS + " groups are supported, got "
+					+ markerGroups.size());
+		}
+		for (int i = 0; i < markerGroups.size(); i++)
+		{
+			for (String marker : markerGroups.get(i))
+			{
+				if (groups.containsKey(marker))
+				{
+					throw new IllegalArgumentException("Marker in two groups: " + marker);
+				}
+				groups.put(marker, i);
+			}
+		}
+
+		// Build the trie of all markers
+		List<int[]> trie = new ArrayList<int[]>();
+		List<Integer> trieMatches = new ArrayList<Integer>();
+		trie.add(newState());
+		trieMatches.add(0);
+		for (Map.Entry<String, Integer> entry : groups.entrySet())
+		{
+			String marker = entry.getKey();
+			if (marker.length() == 0)
+			{
+				throw new IllegalArgumentException("Markers can't be empty");
+			}
+			int state = 0;
+			for (int j = 0; j < marker.length(); j++)
+			{
+				char c = marker.charAt(j);
+				if (c >= 128)
+				{
+					throw new IllegalArgumentException("Markers must be ASCII: " + marker);
+				}
+				if (trie.get(state)[c] == -1)
+				{
+					trie.get(state)[c] = trie.size();
+					trie.add(newState());
+					trieMatches.add(0);
+				}
+				state = trie.get(state)[c];
+			}
+			trieMatches.set(state, trieMatches.get(state) | (1 << entry.getValue()));
+		}
+
+		// Turn it into a full automaton, resolving the failure links breadth first
+		transitions = new int[trie.size() * ALPHABET];
+		matches = new int[trie.size()];
+		int[] failure = new int[trie.size()];
+		Queue<Integer> queue = new LinkedList<Integer>();
+		for (int c = 0; c < ALPHABET; c++)
+		{
+			int next = trie.get(0)[c];
+			if (next == -1)
+			{
+				transitions[c] = 0;
+			}
+			else
+			{
+				transitions[c] = next;
+				failure[next] = 0;
+				queue.add(next);
+			}
+		}
+		matches[0] = trieMatches.get(0);
+		while (!queue.isEmpty())
+		{
+			int state = queue.remove();
+			matches[state] = trieMatches.get(state) | matches[failure[state]];
+			for (int c = 0; c < ALPHABET; c++)
+			{
+				int next = trie.get(state)[c];
+				if (next == -1)
+				{
+					transitions[state * ALPHABET + c] = transitions[failure[state] * ALPHABET + c];
+				}
+				else
+				{
+					transitions[state * ALPHABET + c] = next;
+					failure[next] = transitions[failure[state] * ALPHABET + c];
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The groups of markers found in the buffer, between its position and its limit. Bit <code>i</code> is
+	 *         set if a marker of group <code>i</code> was found.
+	 */
+	public int scan(ByteBuffer bytes)
+	{
+		int state = 0;
+		int found = 0;
+		for (int i = bytes.position(); i < bytes.limit(); i++)
+		{
+			state = transitions[state * ALPHABET + (bytes.get(i) & 0xff)];
+			found |= matches[state];
+		}
+		return found;
+	}
+
+	/**
+	 * @return The mask for the group of the given marker, to test the result of {@link #scan(ByteBuffer)} with.
+	 */
+	public int maskOf(String marker)
+	{
+		Integer group = groups.get(marker);
+		if (group == null)
+		{
+			throw new IllegalArgumentException("Unknown marker: " + marker);
+		}
+		return 1 << group;
+	}
+
+	private static List<Collection<String>> singletonGroups(String... markers)
+	{
+		List<Collection<String>> groups = new ArrayList<Collection<String>>();
+		for (String marker : markers)
+		{
+			groups.add(Collections.singleton(marker));
+		}
+		return groups;
+	}
+
+	private static int[] newState()
+	{
+		int[] state = new int[ALPHABET];
+		Arrays.fill(state, -1);
+		return state;
+	}
+}
@@ -0,0 +1,194 @@
+package junitconverter;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts, rule by rule, how the parsers it's given to (see {@link MemoizingParser#setProfile(MemoProfile)}) use their
+ * memo tables: how often a rule is looked up while backtracking, how often it's found, how many tokens that saves
+ * parsing again, and how often it's stored. Memoizing a rule only pays off if it's found often enough to make up for
+ * looking it up and storing it every time, which {@link #getRulesWorthMemoizing()} tells.
+ * <p>
+ * Rules are named after the methods the parser has for them, found on the stack the first time a rule is counted.
+ */
+public class MemoProfile
+{
+
+	/**
+	 * The share of its lookups a rule must be found in to be worth memoizing. A lookup and a store cost about as much
+	 * as an invocation of a small rule, while a hit skips at least one rule and everything it invokes.
+	 */
+	public static final double MIN_HIT_RATE = 0.05;
+
+	private String[] names = new String[0];
+	private long[] lookups = new long[0];
+	private long[] hits = new long[0];
+	private long[] skippedTokens = new long[0];
+	private long[] stores = new long[0];
+
+	/**
+	 * Counts a lookup of the rule at the given token.
+	 *
+	 * @param stopIndex
+	 *            What the lookup found, as {@link MemoizingParser#getRuleMemoization(int, int)} returns it.
+	 */
+	void lookedUp(MemoizingParser parser, int ruleIndex, int startIndex, int stopIndex)
+	{
+		count(parser, ruleIndex);
+		lookups[ruleIndex]++;
+		if (stopIndex != MemoizingParser.MEMO_RULE_UNKNOWN)
+		{
+			hits[ruleIndex]++;
+			if (stopIndex != MemoizingParser.MEMO_RULE_FAILED)
+			{
+				skippedTokens[ruleIndex] += stopIndex - startIndex + 1;
+			}
+		}
+	}
+
+	/**
+	 * Counts a store of the rule, which the parser also does after every hit.
+	 */
+	void stored(MemoizingParser parser, int ruleIndex)
+	{
+		count(parser, ruleIndex);
+		stores[ruleIndex]++;
+	}
+
+	/**
+	 * @return The names of the rules that have been counted, in the order of the grammar.
+	 */
+	public List<String> getRules()
+	{
+		List<String> rules = new ArrayList<String>();
+		for (String name : names)
+		{
+			if (name != null)
+			{
+				rules.add(name);
+			}
+		}
+		return rules;
+	}
+
+	/**
+	 * @return The rules that were found in at least {@link #MIN_HIT_RATE} of their lookups, in the order of the
+	 *         grammar.
+	 */
+	public List<String> getRulesWorthMemoizing()
+	{
+		List<String> rules = new ArrayList<String>();
+		for (int i = 0; i < names.length; i++)
+		{
+			if (names[i] != null && hits[i] > 0 && hits[i] >= MIN_HIT_RATE * lookups[i])
+			{
+				rules.add(names[i]);
+			}
+		}
+		return rules;
+	}
+
+	public long getLookups(String rule)
+	{
+		return lookups[indexOf(rule)];
+	}
+
+	public long getHits(String rule)
+	{
+		return hits[indexOf(rule)];
+	}
+
+	public long getSkippedTokens(String rule)
+	{
+		return skippedTokens[indexOf(rule)];
+	}
+
+	public long getStores(String rule)
+	{
+		return stores[indexOf(rule)];
+	}
+
+	/**
+	 * Prints one line per rule, with its counts and whether it's worth memoizing, followed by the totals.
+	 */
+	public void print(PrintStream out)
+	{
+		out.println(String.format("%-36s %10s %10s %10s %12s", "rule", "lookups", "hits", "stores", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				"skipped")); //$NON-NLS-1$
+		List<String> worth = getRulesWorthMemoizing();
+		long[] totals = new long[4];
+		for (String rule : getRules())
+		{
+			int i = indexOf(rule);
+			out.println(String.format("%-36s %10d %10d %10d %12d%s", rule, lookups[i], hits[i], stores[i], //$NON-NLS-1$
+					skippedTokens[i], worth.contains(rule) ? " *" : "")); //$NON-NLS-1$ //$NON-NLS-2$
+			totals[0] += lookups[i];
+			totals[1] += hits[i];
+			totals[2] += stores[i];
+			totals[3] += skippedTokens[i];
+		}
+		out.println(String.format("%-36s %10d %10d %10d %12d", "total", totals[0], totals[1], totals[2], //$NON-NLS-1$ //$NON-NLS-2$
+				totals[3]));
+	}
+
+	private int indexOf(String rule)
+	{
+		for (int i = 0; i < names.length; i++)
+		{
+			if (rule.equals(names[i]))
+			{
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Rule not counted: " + rule); //$NON-NLS-1$
+	}
+
+	private void count(MemoizingParser parser, int ruleIndex)
+	{
+		if (ruleIndex >= names.length)
+		{
+			int length = Math.max(ruleIndex + 1, names.length * 2);
+			names = grow(names, length);
+			lookups = grow(lookups, length);
+			hits = grow(hits, length);
+			skippedTokens = grow(skippedTokens, length);
+			stores = grow(stores, length);
+		}
+		if (names[ruleIndex] == null)
+		{
+			names[ruleIndex] = ruleName(parser);
+		}
+	}
+
+	/**
+	 * @return The name of the method of the parser's own class nearest on the stack, which is the rule being looked
+	 *         up or stored: the memo methods are all inherited.
+	 */
+	private static String ruleName(MemoizingParser parser)
+	{
+		String parserClass = parser.getClass().getName();
+		for (StackTraceElement element : new Throwable().getStackTrace())
+		{
+			if (element.getClassName().equals(parserClass))
+			{
+				return element.getMethodName();
+			}
+		}
+		throw new IllegalStateException("Not called from a rule of " + parserClass); //$NON-NLS-1$
+	}
+
+	private static String[] grow(String[] array, int length)
+	{
+		String[] grown = new String[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static long[] grow(long[] array, int length)
+	{
+		long[] grown = new long[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
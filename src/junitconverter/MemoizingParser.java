@@ -0,0 +1,160 @@
+package junitconverter;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.BaseRecognizer;
+import org.antlr.runtime.IntStream;
+import org.antlr.runtime.Parser;
+import org.antlr.runtime.TokenStream;
+
+/**
+ * The base class of the generated {@link JavaParser} (the superClass option of Java.g), which keeps what the parser
+ * memoizes while it backtracks in primitive arrays instead of the maps of {@link BaseRecognizer}. The maps box the
+ * start and the stop index of every entry, box the start index again for every lookup, and are allocated again for
+ * every rule of every parser.
+ * <p>
+ * All the rules share one open-addressing table, keyed by the position of the token a rule starts at and the index of
+ * the rule. A table of one array per rule, indexed by token position, would be mostly empty: each rule is only
+ * memoized at a few of the tokens. A {@link #reset()} empties the table and keeps its arrays, so that a parser given
+ * another token stream doesn't allocate them again.
+ */
+public class MemoizingParser extends Parser
+{
+
+	private static final int INITIAL_CAPACITY = 256;
+	/** What the table holds in a free slot, keys being never zero. */
+	private static final long FREE = 0;
+
+	/** The start index of every entry, plus one, in the high half; the rule index in the low half. */
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] stopIndexes = new int[INITIAL_CAPACITY];
+	private int entries;
+	private MemoProfile profile;
+
+	public MemoizingParser(TokenStream input)
+	{
+		super(input);
+	}
+
+	/**
+	 * @param profile
+	 *            Where to count how the memo table is used, null not to count.
+	 */
+	public void setProfile(MemoProfile profile)
+	{
+		this.profile = profile;
+	}
+
+	/**
+	 * @return Where the rule stopped when it was tried at the given token, {@link BaseRecognizer#MEMO_RULE_FAILED}
+	 *         if it failed there, {@link BaseRecognizer#MEMO_RULE_UNKNOWN} if it hasn't been tried there.
+	 */
+	@Override
+	public int getRuleMemoization(int ruleIndex, int ruleStartIndex)
+	{
+		int stopIndex = find(key(ruleIndex, ruleStartIndex));
+		if (profile != null)
+		{
+			profile.lookedUp(this, ruleIndex, ruleStartIndex, stopIndex);
+		}
+		return stopIndex;
+	}
+
+	/**
+	 * Records where the rule that started at the given token stopped, which is just before the current token, or that
+	 * it failed.
+	 */
+	@Override
+	public void memoize(IntStream input, int ruleIndex, int ruleStartIndex)
+	{
+		int stopIndex = failed ? MEMO_RULE_FAILED : input.index() - 1;
+		if (2 * (entries + 1) > keys.length)
+		{
+			grow();
+		}
+		put(key(ruleIndex, ruleStartIndex), stopIndex);
+		if (profile != null)
+		{
+			profile.stored(this, ruleIndex);
+		}
+	}
+
+	/**
+	 * @return How many times a rule has been memoized at a token.
+	 */
+	@Override
+	public int getRuleMemoizationCacheSize()
+	{
+		return entries;
+	}
+
+	/**
+	 * Forgets everything memoized, keeping the table as large as it has grown.
+	 */
+	@Override
+	public void reset()
+	{
+		super.reset();
+		if (entries > 0)
+		{
+			Arrays.fill(keys, FREE);
+			entries = 0;
+		}
+	}
+
+	private int find(long key)
+	{
+		int mask = keys.length - 1;
+		for (int slot = slot(key, mask); keys[slot] != FREE; slot = (slot + 1) & mask)
+		{
+			if (keys[slot] == key)
+			{
+				return stopIndexes[slot];
+			}
+		}
+		return MEMO_RULE_UNKNOWN;
+	}
+
+	private void put(long key, int stopIndex)
+	{
+		int mask = keys.length - 1;
+		int slot = slot(key, mask);
+		while (keys[slot] != FREE && keys[slot] != key)
+		{
+			slot = (slot + 1) & mask;
+		}
+		if (keys[slot] == FREE)
+		{
+			keys[slot] = key;
+			entries++;
+		}
+		stopIndexes[slot] = stopIndex;
+	}
+
+	private void grow()
+	{
+		long[] oldKeys = keys;
+		int[] oldStopIndexes = stopIndexes;
+		keys = new long[oldKeys.length * 2];
+		stopIndexes = new int[oldKeys.length * 2];
+		entries = 0;
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != FREE)
+			{
+				put(oldKeys[i], oldStopIndexes[i]);
+			}
+		}
+	}
+
+	private static long key(int ruleIndex, int ruleStartIndex)
+	{
+		return ((long) (ruleStartIndex + 1) << 32) | ruleIndex;
+	}
+
+	private static int slot(long key, int mask)
+	{
+		int hash = (int) (key >>> 32) * 0x9E3779B9 + (int) key;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,1366 @@
+package junitconverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junitconverter.testcase.AnnotationSet;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+
+/**
+ * A hand-written alternative to {@link JavaParser}, for the facts the conversion needs and nothing else. The scanner
+ * reads the source once, token by token, and only follows its structure down to the members of classes: bodies of
+ * methods and initializers are matched bracket by bracket, looking for super calls and for the class bodies they may
+ * be in, as {@link JavaParser#setOutline(boolean) outline parsing} does. Tokens aren't kept, and identifiers only
+ * become strings once per distinct name.
+ * <p>
+ * The facts are the ones the parser gives, quirks included: classes are counted the same way (an anonymous class in a
+ * method is at depth 2, members of an interface are at the depth of the interface), and annotations are only recorded
+ * on the members of classes at depth 1, where they pile up until the next method. A source the scanner can't make
+ * sense of, such as one with unbalanced braces, is counted as having {@link #getSyntaxErrors() errors}, and should be
+ * parsed instead.
+ */
+public class OutlineScanner implements FactsSource
+{
+
+	/* Kinds of tokens */
+	private static final int EOF = 0;
+	private static final int IDENTIFIER = 1;
+	private static final int KEYWORD = 2;
+	private static final int LITERAL = 3;
+	private static final int OPERATOR = 4;
+
+	/* Kinds of type bodies, which declare different members */
+	private static final int CLASS_BODY = 0;
+	private static final int INTERFACE_BODY = 1;
+	private static final int ANNOTATION_BODY = 2;
+
+	/** The words the grammar's lexer doesn't take for identifiers. */
+	private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList("abstract", "assert", "boolean", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"break", "byte", "case", "catch", "char", "class", "continue", "default", "do", "double", "else", "enum", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+			"extends", "false", "final", "finally", "float", "for", "if", "implements", "import", "instanceof", "int", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+			"interface", "long", "native", "new", "null", "package", "private", "protected", "public", "return", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+			"short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+			"true", "try", "void", "volatile", "while")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	private static final Set<String> PRIMITIVES = new HashSet<String>(Arrays.asList("boolean", "byte", "char", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"double", "float", "int", "long", "short")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	private static final Set<String> OTHER_MODIFIERS = new HashSet<String>(Arrays.asList("abstract", "final", //$NON-NLS-1$ //$NON-NLS-2$
+			"native", "static", "synchronized", "transient", "volatile", "strictfp")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	private static final String SUITE = "suite"; //$NON-NLS-1$
+	private static final String OVERRIDE = "Override"; //$NON-NLS-1$
+
+	private final CharSequence source;
+	private final int length;
+
+	/* The lexer, which is always just after the current token or the peeked one */
+	private int position;
+	private int lineNumber = 1;
+	private int lineStart;
+
+	/* The current token */
+	private int kind = EOF;
+	private int start;
+	private int end;
+	private int line;
+	private int column;
+	/** The text of identifiers and keywords, null for other tokens. */
+	private String text;
+
+	/* The token before the current one */
+	private int previousKind = EOF;
+	private int previousStart;
+	private int previousEnd;
+	private int previousLine;
+	private int previousColumn;
+
+	/* The token after the current one, once peeked at (kind -1 until then) */
+	private int peekKind = -1;
+	private int peekStart;
+	private int peekEnd;
+	private int peekLine;
+	private int peekColumn;
+	private String peekText;
+
+	/** Identifiers and keywords met so far, so that each becomes a string only once (open addressing). */
+	private String[] symbols = new String[256];
+	private int symbolCount;
+
+	/* The facts, as the parser names them */
+	private boolean inImport;
+	private boolean foundSuper;
+	private String packageName;
+	private String type;
+	private int typeLine;
+	private String superName;
+	private int superLine;
+	private int superPos;
+	private int extendsLine;
+	private int extendsPos = -1;
+	private int superEndLine;
+	private int superEndPos = -1;
+	private final Map<String, Integer> methods = new LinkedHashMap<String, Integer>();
+	private final Map<String, AnnotationSet> annotations = new HashMap<String, AnnotationSet>();
+	private final Map<String, String> visibilities = new HashMap<String, String>();
+	/** The line and position of the visibility modifier of each method, null if it has none. */
+	private final Map<String, int[]> visibilityPositions = new HashMap<String, int[]>();
+	private AnnotationSet currentAnnotations = AnnotationSet.EMPTY;
+	private String visibility = ""; //$NON-NLS-1$
+	private int[] visibilityPosition;
+	private final LineSet superConstructorInvocations = new LineSet();
+	private final LineSet superMethodInvocations = new LineSet();
+	private final LineSet overrideAnnotationsLines = new LineSet();
+	private final ImportIndex importIndex = new ImportIndex();
+	private final Map<String, LineSet> references = new HashMap<String, LineSet>();
+	/** Where the parameters of the suite() method start and its body ends (-1 if there's no suite). */
+	private int suiteStart = -1;
+	private int suiteEnd = -1;
+	private int syntaxErrors;
+
+	public OutlineScanner(CharSequence source)
+	{
+		this.source = source;
+		this.length = source.length();
+	}
+
+	/**
+	 * Scans the whole source, the scanner's counterpart of {@link JavaParser#compilationUnit()}.
+	 */
+	public void scan()
+	{
+		next();
+		while (is('@') && !isAnnotationTypeDeclaration())
+		{
+			annotation(0);
+		}
+		if (isKeyword("package")) //$NON-NLS-1$
+		{
+			int packageLine = line;
+			next();
+			packageName = qualifiedName();
+			importIndex.setPackageLine(packageLine - 1);
+			expect(';');
+		}
+		while (isKeyword("import")) //$NON-NLS-1$
+		{
+			importDeclaration();
+		}
+		while (kind != EOF)
+		{
+			if (is(';'))
+			{
+				next();
+			}
+			else
+			{
+				modifiers(0);
+				typeDeclaration(0);
+			}
+		}
+	}
+
+	/* --- The Facts --- */
+
+	/**
+	 * @return The number of places where the scanner couldn't make sense of the source. It stops at the first one.
+	 */
+	public int getSyntaxErrors()
+	{
+		return syntaxErrors;
+	}
+
+	public String getType()
+	{
+		return type;
+	}
+
+	public int getTypeLine()
+	{
+		return typeLine;
+	}
+
+	public String getFullName()
+	{
+		return packageName == null ? type : packageName + "." + type; //$NON-NLS-1$
+	}
+
+	public Set<String> getMethods()
+	{
+		return new HashSet<String>(methods.keySet());
+	}
+
+	public Map<String, Integer> getMethodsWithLines()
+	{
+		return methods;
+	}
+
+	public String getVisibility(String method)
+	{
+		return visibilities.get(method);
+	}
+
+	/**
+	 * @return The line of the visibility modifier of the method (0 if it has none).
+	 */
+	public int getVisibilityLine(String method)
+	{
+		int[] position = visibilityPositions.get(method);
+		return position == null ? 0 : position[0];
+	}
+
+	/**
+	 * @return The position in its line of the visibility modifier of the method (-1 if it has none).
+	 */
+	public int getVisibilityPos(String method)
+	{
+		int[] position = visibilityPositions.get(method);
+		return position == null ? -1 : position[1];
+	}
+
+	/**
+	 * @return The annotations of the method, or those of the class for the empty name.
+	 */
+	public AnnotationSet getAnnotations(String method)
+	{
+		return annotations.get(method);
+	}
+
+	public String getSuperName()
+	{
+		return superName;
+	}
+
+	public int getSuperLine()
+	{
+		return superLine;
+	}
+
+	public int getSuperPos()
+	{
+		return superPos;
+	}
+
+	/**
+	 * @return The line of the 'extends' keyword (0 if there's no extends clause).
+	 */
+	public int getExtendsLine()
+	{
+		return extendsLine;
+	}
+
+	/**
+	 * @return The position of the 'extends' keyword in its line (-1 if there's no extends clause).
+	 */
+	public int getExtendsPos()
+	{
+		return extendsPos;
+	}
+
+	/**
+	 * @return The line where the super type ends (0 if there's no extends clause).
+	 */
+	public int getSuperEndLine()
+	{
+		return superEndLine;
+	}
+
+	/**
+	 * @return The position just after the super type in its last line (-1 if there's no extends clause).
+	 */
+	public int getSuperEndPos()
+	{
+		return superEndPos;
+	}
+
+	public LineSet getSuperConstructorInvocations()
+	{
+		return superConstructorInvocations;
+	}
+
+	public LineSet getSuperMethodInvocations()
+	{
+		return superMethodInvocations;
+	}
+
+	public LineSet getOverrideAnnotationsLines()
+	{
+		return overrideAnnotationsLines;
+	}
+
+	/**
+	 * @return The import section of the file, lines being counted from zero.
+	 */
+	public ImportIndex getImportIndex()
+	{
+		return importIndex;
+	}
+
+	/**
+	 * @return The lines (first is zero) where each identifier is used outside of the import declarations.
+	 */
+	public Map<String, LineSet> getReferences()
+	{
+		return references;
+	}
+
+	/**
+	 * Looks for the tests added in the suite() method, that is calls to addTest(X.suite()) and addTestSuite(X.class),
+	 * the same way {@link JavaParser#getSuiteClasses()} does.
+	 *
+	 * @return The names of the classes, as written in the calls, in the order they're added.
+	 */
+	public List<String> getSuiteClasses()
+	{
+		List<String> classes = new ArrayList<String>();
+		if (suiteStart == -1)
+		{
+			return classes;
+		}
+		OutlineScanner suite = new OutlineScanner(source.subSequence(0, suiteEnd));
+		suite.position = suiteStart;
+		suite.next();
+		while (suite.kind != EOF)
+		{
+			if (suite.kind != IDENTIFIER || !("addTest".equals(suite.text) || "addTestSuite".equals(suite.text))) //$NON-NLS-1$ //$NON-NLS-2$
+			{
+				suite.next();
+				continue;
+			}
+			suite.next();
+			if (!suite.is('('))
+			{
+				continue;
+			}
+			// The argument, a qualified name
+			StringBuilder name = new StringBuilder();
+			String last = null;
+			suite.next();
+			while (suite.kind == IDENTIFIER)
+			{
+				if (last != null)
+				{
+					name.append(last).append('.');
+				}
+				last = suite.text;
+				suite.next();
+				if (!suite.is('.'))
+				{
+					break;
+				}
+				suite.next();
+			}
+			if (last == null)
+			{
+				continue;
+			}
+			if (suite.isKeyword("class")) //$NON-NLS-1$
+			{
+				// X.class
+				name.append(last);
+				suite.next();
+			}
+			else if (SUITE.equals(last) && suite.is('(') && name.length() > 0 && suite.peekIs(')'))
+			{
+				// X.suite()
+				name.setLength(name.length() - 1);
+				suite.next();
+				suite.next();
+			}
+			else
+			{
+				continue;
+			}
+			if (suite.is(')'))
+			{
+				classes.add(name.toString());
+				suite.next();
+			}
+		}
+		return classes;
+	}
+
+	/* --- Declarations --- */
+
+	private void importDeclaration()
+	{
+		int importLine = line;
+		inImport = true;
+		next();
+		boolean isStatic = isKeyword("static"); //$NON-NLS-1$
+		if (isStatic)
+		{
+			next();
+		}
+		String name = qualifiedName();
+		if (name == null)
+		{
+			return;
+		}
+		boolean onDemand = false;
+		if (is('.'))
+		{
+			next();
+			expect('*');
+			onDemand = true;
+		}
+		inImport = false;
+		importIndex.addImport(name, isStatic, onDemand, importLine - 1);
+		expect(';');
+	}
+
+	/**
+	 * A type declared in a body of the given depth (0 for the top level), from the keyword that tells what kind of
+	 * type it is on. Classes and enums count as one class deeper, interfaces and annotation types don't.
+	 */
+	private void typeDeclaration(int depth)
+	{
+		if (isKeyword("class")) //$NON-NLS-1$
+		{
+			next();
+			classDeclaration(depth + 1);
+		}
+		else if (isKeyword("enum")) //$NON-NLS-1$
+		{
+			next();
+			identifier();
+			skipTo('{');
+			enumBody(depth + 1);
+		}
+		else if (isKeyword("interface")) //$NON-NLS-1$
+		{
+			next();
+			identifier();
+			skipTo('{');
+			typeBody(INTERFACE_BODY, depth);
+		}
+		else if (is('@'))
+		{
+			next();
+			expectKeyword("interface"); //$NON-NLS-1$
+			identifier();
+			typeBody(ANNOTATION_BODY, depth);
+		}
+		else
+		{
+			error();
+		}
+	}
+
+	/**
+	 * A class, from its name on.
+	 */
+	private void classDeclaration(int depth)
+	{
+		String name = text;
+		int nameLine = line;
+		identifier();
+		if (is('<'))
+		{
+			skipTypeArguments();
+		}
+		if (depth == 1 && type == null)
+		{
+			type = name;
+			typeLine = nameLine;
+			annotations.put("", currentAnnotations); //$NON-NLS-1$
+			currentAnnotations = AnnotationSet.EMPTY;
+		}
+		if (isKeyword("extends")) //$NON-NLS-1$
+		{
+			int keywordLine = line;
+			int keywordPos = column;
+			next();
+			int typeStart = start;
+			int typeStartLine = line;
+			int typeStartPos = column;
+			int errors = syntaxErrors;
+			type();
+			if (!foundSuper && syntaxErrors == errors)
+			{
+				superName = source.subSequence(typeStart, previousEnd).toString();
+				superLine = typeStartLine;
+				superPos = typeStartPos;
+				extendsLine = keywordLine;
+				extendsPos = keywordPos;
+				superEndLine = previousLine;
+				superEndPos = previousColumn + previousEnd - previousStart;
+			}
+		}
+		// Whether there's an extends clause or not, look no further
+		foundSuper = true;
+		skipTo('{');
+		typeBody(CLASS_BODY, depth);
+	}
+
+	private void enumBody(int depth)
+	{
+		if (depth > 1)
+		{
+			skipBlock();
+			return;
+		}
+		expect('{');
+		while (kind != EOF && !is('}') && !is(';'))
+		{
+			if (is(','))
+			{
+				next();
+				continue;
+			}
+			// A constant
+			while (is('@'))
+			{
+				annotation(depth);
+			}
+			identifier();
+			if (is('('))
+			{
+				code(depth);
+			}
+			if (is('{'))
+			{
+				// Like the grammar, don't count the body of a constant as a class of its own
+				typeBody(CLASS_BODY, depth);
+			}
+		}
+		if (is(';'))
+		{
+			next();
+			members(CLASS_BODY, depth);
+		}
+		expect('}');
+	}
+
+	/**
+	 * The body of a type declared at the given depth. Bodies of classes deeper than 1 are only matched brace by
+	 * brace, as nothing is recorded in them.
+	 */
+	private void typeBody(int bodyKind, int depth)
+	{
+		if (depth > 1)
+		{
+			skipBlock();
+			return;
+		}
+		expect('{');
+		members(bodyKind, depth);
+		expect('}');
+	}
+
+	private void members(int bodyKind, int depth)
+	{
+		while (kind != EOF && !is('}'))
+		{
+			member(bodyKind, depth);
+		}
+	}
+
+	private void member(int bodyKind, int depth)
+	{
+		if (is(';'))
+		{
+			next();
+			return;
+		}
+		boolean recorded = bodyKind == CLASS_BODY && depth == 1;
+		if (recorded)
+		{
+			// Forget the modifiers of the previous member, which may not have been a method
+			visibility = ""; //$NON-NLS-1$
+			visibilityPosition = null;
+		}
+		modifiers(depth);
+		if (is('{'))
+		{
+			// An initializer, which the parser parses in full
+			code(depth);
+			return;
+		}
+		if (bodyKind == ANNOTATION_BODY && (isKeyword("class") || isKeyword("enum"))) //$NON-NLS-1$ //$NON-NLS-2$
+		{
+			// The grammar declares these without counting them as classes
+			typeDeclaration(depth - 1);
+			return;
+		}
+		if (isKeyword("class") || isKeyword("enum") || isKeyword("interface") || is('@')) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		{
+			typeDeclaration(depth);
+			return;
+		}
+		boolean generic = is('<');
+		if (generic)
+		{
+			skipTypeArguments();
+		}
+		boolean isVoid = isKeyword("void"); //$NON-NLS-1$
+		if (isVoid)
+		{
+			next();
+		}
+		else if (kind == IDENTIFIER && peekIs('('))
+		{
+			// A constructor
+			next();
+			methodRest(depth);
+			return;
+		}
+		else
+		{
+			type();
+		}
+		String name = text;
+		int nameLine = line;
+		identifier();
+		if (!is('('))
+		{
+			// A field, or constants
+			code(depth);
+			return;
+		}
+		int restStart = start;
+		if (bodyKind == ANNOTATION_BODY)
+		{
+			// An element, whose default value can be an array initializer
+			next();
+			expect(')');
+			code(depth);
+			return;
+		}
+		methodRest(depth);
+		if (recorded)
+		{
+			if (SUITE.equals(name) && !generic && !isVoid)
+			{
+				suiteStart = restStart;
+				suiteEnd = previousEnd;
+			}
+			methods.put(name, nameLine);
+			annotations.put(name, currentAnnotations);
+			visibilities.put(name, visibility);
+			visibilityPositions.put(name, visibilityPosition);
+			visibility = ""; //$NON-NLS-1$
+			visibilityPosition = null;
+			currentAnnotations = AnnotationSet.EMPTY;
+		}
+	}
+
+	/**
+	 * The rest of a method or constructor, from its parameters to the end of its body.
+	 */
+	private void methodRest(int depth)
+	{
+		expect('(');
+		while (kind != EOF && !is(')'))
+		{
+			if (is('@'))
+			{
+				annotation(depth);
+			}
+			else
+			{
+				next();
+			}
+		}
+		expect(')');
+		// Array brackets and throws clause
+		skipTo('{', ';');
+		if (is('{'))
+		{
+			code(depth);
+		}
+		else
+		{
+			next();
+		}
+	}
+
+	/**
+	 * Modifiers and annotations, recording the visibility and annotations of members of classes at depth 1.
+	 */
+	private void modifiers(int depth)
+	{
+		while (true)
+		{
+			if (is('@') && !isAnnotationTypeDeclaration())
+			{
+				annotation(depth);
+			}
+			else if (isKeyword("public") || isKeyword("protected") || isKeyword("private")) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			{
+				if (depth == 1)
+				{
+					visibility = text;
+					visibilityPosition = new int[] { line, column };
+				}
+				next();
+			}
+			else if (kind == KEYWORD && OTHER_MODIFIERS.contains(text))
+			{
+				next();
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * An annotation, from its '@' on. Its name, and those of nested annotations, are recorded at depth 1.
+	 */
+	private void annotation(int depth)
+	{
+		expect('@');
+		String name = text;
+		int nameLine = line;
+		identifier();
+		while (is('.'))
+		{
+			next();
+			name = text;
+			nameLine = line;
+			identifier();
+		}
+		if (depth == 1)
+		{
+			if (OVERRIDE.equals(name))
+			{
+				overrideAnnotationsLines.add(nameLine);
+			}
+			currentAnnotations = currentAnnotations.with(name);
+		}
+		if (!is('('))
+		{
+			return;
+		}
+		int nesting = 0;
+		do
+		{
+			if (kind == EOF)
+			{
+				error();
+				return;
+			}
+			if (is('@'))
+			{
+				annotation(depth);
+				continue;
+			}
+			if (is('('))
+			{
+				nesting++;
+			}
+			else if (is(')'))
+			{
+				nesting--;
+			}
+			next();
+		}
+		while (nesting > 0);
+	}
+
+	/**
+	 * Code in a class at the given depth: a block or an argument list, which must be the current token, or an
+	 * initializer up to the semicolon that ends it. Super calls are recorded at depth 1, annotations (of local
+	 * variables) never. The bodies of anonymous and local classes in the code, and the arguments of 'new X(...)', are
+	 * one class deeper, so nothing is recorded in them.
+	 */
+	private void code(int depth)
+	{
+		boolean initializer = !is('{') && !is('(');
+		int nesting = 0;
+		// The nesting of the argument list of each 'new X(' that's open, to tell its ')' from others
+		int[] creations = new int[8];
+		int creationCount = 0;
+		boolean inCreation = false;
+		boolean classBodyNext = false;
+		boolean localClass = false;
+		while (true)
+		{
+			if (kind == EOF)
+			{
+				error();
+				return;
+			}
+			if (inCreation)
+			{
+				// new X<Y>.Z(...), unless it's an array
+				if (is('<'))
+				{
+					skipTypeArguments();
+					continue;
+				}
+				if (kind == IDENTIFIER || is('.') || kind == KEYWORD && PRIMITIVES.contains(text))
+				{
+					next();
+					continue;
+				}
+				if (is('('))
+				{
+					if (creationCount == creations.length)
+					{
+						int[] grown = new int[creationCount * 2];
+						System.arraycopy(creations, 0, grown, 0, creationCount);
+						creations = grown;
+					}
+					creations[creationCount++] = nesting;
+				}
+				inCreation = false;
+			}
+			boolean closesCreation = false;
+			if (is('{') && (classBodyNext || localClass))
+			{
+				typeBody(CLASS_BODY, depth + 1);
+				classBodyNext = false;
+				localClass = false;
+				continue;
+			}
+			else if (is('{') || is('(') || is('['))
+			{
+				nesting++;
+			}
+			else if (is('}') || is(')') || is(']'))
+			{
+				nesting--;
+				if (nesting < 0)
+				{
+					error();
+					return;
+				}
+				closesCreation = is(')') && creationCount > 0 && creations[creationCount - 1] == nesting;
+				if (closesCreation)
+				{
+					creationCount--;
+				}
+				if (nesting == 0 && !initializer)
+				{
+					next();
+					return;
+				}
+			}
+			else if (is(';') && nesting == 0 && initializer)
+			{
+				next();
+				return;
+			}
+			else if (isKeyword("super")) //$NON-NLS-1$
+			{
+				if (depth == 1 && creationCount == 0)
+				{
+					if (peekIs('('))
+					{
+						// super(...) and x.super(...)
+						superConstructorInvocations.add(line);
+					}
+					else if (peekIs('.') && !previousIs('.'))
+					{
+						superMethodInvocations.add(line);
+					}
+				}
+			}
+			else if (isKeyword("new")) //$NON-NLS-1$
+			{
+				inCreation = true;
+			}
+			else if ((isKeyword("class") || isKeyword("interface") || isKeyword("enum")) && !previousIs('.')) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			{
+				localClass = true;
+			}
+			next();
+			classBodyNext = closesCreation && is('{');
+		}
+	}
+
+	/* --- Pieces --- */
+
+	/**
+	 * A type, such as <code>int[]</code> or <code>Map.Entry&lt;String, List&lt;? extends Number&gt;&gt;</code>.
+	 */
+	private void type()
+	{
+		if (kind == KEYWORD && PRIMITIVES.contains(text))
+		{
+			next();
+		}
+		else
+		{
+			identifier();
+			if (is('<'))
+			{
+				skipTypeArguments();
+			}
+			while (is('.'))
+			{
+				next();
+				identifier();
+				if (is('<'))
+				{
+					skipTypeArguments();
+				}
+			}
+		}
+		while (is('[') && peekIs(']'))
+		{
+			next();
+			next();
+		}
+	}
+
+	/**
+	 * @return The name as written, white space included, or null if there's no name, which is an error.
+	 */
+	private String qualifiedName()
+	{
+		if (kind != IDENTIFIER)
+		{
+			error();
+			return null;
+		}
+		int nameStart = start;
+		next();
+		while (is('.') && peekKind() == IDENTIFIER)
+		{
+			next();
+			next();
+		}
+		return source.subSequence(nameStart, previousEnd).toString();
+	}
+
+	private void skipTypeArguments()
+	{
+		int angles = 0;
+		do
+		{
+			if (is('<'))
+			{
+				angles++;
+			}
+			else if (is('>'))
+			{
+				angles--;
+			}
+			else if (kind == EOF || is('{') || is(';'))
+			{
+				error();
+				return;
+			}
+			next();
+		}
+		while (angles > 0);
+	}
+
+	/**
+	 * Skips tokens up to one of the given operators, which is left as the current token.
+	 */
+	private void skipTo(char operator)
+	{
+		skipTo(operator, operator);
+	}
+
+	private void skipTo(char operator, char otherOperator)
+	{
+		while (!is(operator) && !is(otherOperator))
+		{
+			if (kind == EOF)
+			{
+				error();
+				return;
+			}
+			next();
+		}
+	}
+
+	/**
+	 * Skips a block, brace by brace.
+	 */
+	private void skipBlock()
+	{
+		int nesting = 0;
+		do
+		{
+			if (kind == EOF)
+			{
+				error();
+				return;
+			}
+			if (is('{'))
+			{
+				nesting++;
+			}
+			else if (is('}'))
+			{
+				nesting--;
+			}
+			next();
+		}
+		while (nesting > 0);
+	}
+
+	private void identifier()
+	{
+		if (kind != IDENTIFIER)
+		{
+			error();
+			return;
+		}
+		next();
+	}
+
+	private void expect(char operator)
+	{
+		if (!is(operator))
+		{
+			error();
+			return;
+		}
+		next();
+	}
+
+	private void expectKeyword(String keyword)
+	{
+		if (!isKeyword(keyword))
+		{
+			error();
+			return;
+		}
+		next();
+	}
+
+	/**
+	 * Counts an error and stops there, as if the source ended.
+	 */
+	private void error()
+	{
+		syntaxErrors++;
+		kind = EOF;
+		text = null;
+		peekKind = -1;
+		position = length;
+	}
+
+	private boolean is(char operator)
+	{
+		return kind == OPERATOR && source.charAt(start) == operator;
+	}
+
+	private boolean previousIs(char operator)
+	{
+		return previousKind == OPERATOR && source.charAt(previousStart) == operator;
+	}
+
+	private boolean isKeyword(String keyword)
+	{
+		return kind == KEYWORD && keyword.equals(text);
+	}
+
+	/**
+	 * @return Whether the current '@' starts an annotation type declaration rather than an annotation.
+	 */
+	private boolean isAnnotationTypeDeclaration()
+	{
+		return peekKind() == KEYWORD && "interface".equals(peekText); //$NON-NLS-1$
+	}
+
+	/* --- Lexer --- */
+
+	private boolean peekIs(char operator)
+	{
+		return peekKind() == OPERATOR && source.charAt(peekStart) == operator;
+	}
+
+	private int peekKind()
+	{
+		if (peekKind == -1 && kind != EOF)
+		{
+			int currentKind = kind;
+			int currentStart = start;
+			int currentEnd = end;
+			int currentLine = line;
+			int currentColumn = column;
+			String currentText = text;
+			lex();
+			peekKind = kind;
+			peekStart = start;
+			peekEnd = end;
+			peekLine = line;
+			peekColumn = column;
+			peekText = text;
+			kind = currentKind;
+			start = currentStart;
+			end = currentEnd;
+			line = currentLine;
+			column = currentColumn;
+			text = currentText;
+		}
+		return peekKind;
+	}
+
+	/**
+	 * Moves to the next token, recording it if it's a reference.
+	 */
+	private void next()
+	{
+		previousKind = kind;
+		previousStart = start;
+		previousEnd = end;
+		previousLine = line;
+		previousColumn = column;
+		if (peekKind != -1)
+		{
+			kind = peekKind;
+			start = peekStart;
+			end = peekEnd;
+			line = peekLine;
+			column = peekColumn;
+			text = peekText;
+			peekKind = -1;
+		}
+		else
+		{
+			lex();
+		}
+		if (kind == IDENTIFIER && !inImport)
+		{
+			LineSet lines = references.get(text);
+			if (lines == null)
+			{
+				lines = new LineSet();
+				references.put(text, lines);
+			}
+			lines.add(line - 1);
+		}
+	}
+
+	/**
+	 * Lexes the token at the lexer's position, skipping white space and comments. Lines and positions in lines are
+	 * counted the way the grammar's lexer does: only '\n' ends a line.
+	 */
+	private void lex()
+	{
+		skipWhiteSpaceAndComments();
+		start = position;
+		line = lineNumber;
+		column = position - lineStart;
+		text = null;
+		if (position >= length)
+		{
+			kind = EOF;
+			end = position;
+			return;
+		}
+		char c = source.charAt(position);
+		if (Character.isJavaIdentifierStart(c))
+		{
+			position++;
+			while (position < length && Character.isJavaIdentifierPart(source.charAt(position)))
+			{
+				position++;
+			}
+			text = symbol(start, position);
+			kind = KEYWORDS.contains(text) ? KEYWORD : IDENTIFIER;
+		}
+		else if (isDigit(c) || c == '.' && position + 1 < length && isDigit(source.charAt(position + 1)))
+		{
+			number();
+			kind = LITERAL;
+		}
+		else if (c == '"' || c == '\'')
+		{
+			quoted(c);
+			kind = LITERAL;
+		}
+		else
+		{
+			position++;
+			kind = OPERATOR;
+		}
+		end = position;
+	}
+
+	private void skipWhiteSpaceAndComments()
+	{
+		while (position < length)
+		{
+			char c = source.charAt(position);
+			if (c == '\n')
+			{
+				position++;
+				newLine();
+			}
+			else if (c == ' ' || c == '\t' || c == '\r' || c == '\u000C')
+			{
+				position++;
+			}
+			else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '*')
+			{
+				position += 2;
+				while (position < length && !(source.charAt(position) == '*' && position + 1 < length
+						&& source.charAt(position + 1) == '/'))
+				{
+					position++;
+					if (source.charAt(position - 1) == '\n')
+					{
+						newLine();
+					}
+				}
+				position = Math.min(position + 2, length);
+			}
+			else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '/')
+			{
+				while (position < length && source.charAt(position) != '\n')
+				{
+					position++;
+				}
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+
+	private void newLine()
+	{
+		lineNumber++;
+		lineStart = position;
+	}
+
+	/**
+	 * Skips a number, such as <code>0x1F</code>, <code>10L</code> or <code>1.5e-3f</code>. Like the grammar, which is
+	 * Java 5's, an underscore ends the number.
+	 */
+	private void number()
+	{
+		boolean hex = false;
+		char previous = 0;
+		while (position < length)
+		{
+			char c = source.charAt(position);
+			if (c == 'x' || c == 'X')
+			{
+				hex = true;
+			}
+			else if (c == '+' || c == '-')
+			{
+				// Only the sign of an exponent
+				boolean exponent = hex ? previous == 'p' || previous == 'P' : previous == 'e' || previous == 'E';
+				if (!exponent)
+				{
+					return;
+				}
+			}
+			else if (!Character.isLetterOrDigit(c) && c != '.')
+			{
+				return;
+			}
+			previous = c;
+			position++;
+		}
+	}
+
+	/**
+	 * Skips a string or character literal, up to the end of the line if it isn't closed.
+	 */
+	private void quoted(char quote)
+	{
+		position++;
+		while (position < length)
+		{
+			char c = source.charAt(position);
+			if (c == '\\')
+			{
+				position = Math.min(position + 2, length);
+			}
+			else if (c == quote)
+			{
+				position++;
+				return;
+			}
+			else if (c == '\n')
+			{
+				return;
+			}
+			else
+			{
+				position++;
+			}
+		}
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * @return The one string for the characters of the source, created the first time they're met.
+	 */
+	private String symbol(int from, int to)
+	{
+		int hash = 0;
+		for (int i = from; i < to; i++)
+		{
+			hash = 31 * hash + source.charAt(i);
+		}
+		int mask = symbols.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask)
+		{
+			String symbol = symbols[slot];
+			if (symbol == null)
+			{
+				symbol = source.subSequence(from, to).toString();
+				symbols[slot] = symbol;
+				if (++symbolCount * 2 > symbols.length)
+				{
+					rehash();
+				}
+				return symbol;
+			}
+			if (symbol.hashCode() == hash && matches(symbol, from, to))
+			{
+				return symbol;
+			}
+		}
+	}
+
+	private boolean matches(String symbol, int from, int to)
+	{
+		if (symbol.length() != to - from)
+		{
+			return false;
+		}
+		for (int i = from; i < to; i++)
+		{
+			if (symbol.charAt(i - from) != source.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash()
+	{
+		String[] old = symbols;
+		symbols = new String[old.length * 2];
+		int mask = symbols.length - 1;
+		for (String symbol : old)
+		{
+			if (symbol != null)
+			{
+				int slot = symbol.hashCode() & mask;
+				while (symbols[slot] != null)
+				{
+					slot = (slot + 1) & mask;
+				}
+				symbols[slot] = symbol;
+			}
+		}
+	}
+}
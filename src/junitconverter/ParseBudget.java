@@ -0,0 +1,79 @@
+package junitconverter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How much parsing a single source may cost (see {@link JavaParser#setBudget(ParseBudget)}). Backtracking can take
+ * exponential time on some sources, deeply nested anonymous classes for instance, and one such source would stall a
+ * whole run. What counts is the tokens the parser matches while backtracking, which is what grows out of hand, and the
+ * time the parse takes. A source over budget gets its facts from the {@link OutlineScanner} if it can, and is left
+ * untouched otherwise.
+ * <p>
+ * Only the token limit is deterministic: whether a parse runs out of time depends on the machine's load and on how
+ * many workers share it. So the default budget has no time limit, which is only set when asked for.
+ * <p>
+ * The budget also counts the sources that fell back to the scanner. Any number of threads can share it.
+ */
+public class ParseBudget
+{
+
+	/** Over forty times what the largest source of the JDK takes. */
+	public static final int DEFAULT_SPECULATIVE_TOKENS = 1000000;
+
+	private final int speculativeTokens;
+	private final long milliseconds;
+	private final AtomicInteger fallbacks = new AtomicInteger();
+
+	/**
+	 * @param speculativeTokens
+	 *            How many tokens a parse may match while backtracking, 0 for no limit.
+	 * @param milliseconds
+	 *            How long a parse may take, 0 for no limit.
+	 */
+	public ParseBudget(int speculativeTokens, long milliseconds)
+	{
+		this.speculativeTokens = speculativeTokens;
+		this.milliseconds = milliseconds;
+	}
+
+	public int getSpeculativeTokens()
+	{
+		return speculativeTokens;
+	}
+
+	public long getMilliseconds()
+	{
+		return milliseconds;
+	}
+
+	/**
+	 * @return When a parse starting now runs out of time, as {@link System#nanoTime()} gives it, or
+	 *         {@link Long#MAX_VALUE} if there's no time limit.
+	 */
+	public long deadline()
+	{
+		return milliseconds == 0 ? Long.MAX_VALUE : System.nanoTime() + milliseconds * 1000000L;
+	}
+
+	/**
+	 * Counts a source that went over budget and got its facts from the scanner instead.
+	 */
+	void fellBack()
+	{
+		fallbacks.incrementAndGet();
+	}
+
+	/**
+	 * @return How many sources went over budget and got their facts from the scanner instead.
+	 */
+	public int getFallbacks()
+	{
+		return fallbacks.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return speculativeTokens + "," + milliseconds; //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,16 @@
+package junitconverter;
+
+/**
+ * Thrown by the parser when a parse goes over its {@link ParseBudget}. It isn't a RecognitionException, so that no
+ * rule catches it to recover: the whole parse is abandoned.
+ */
+public class ParseBudgetExceededException extends RuntimeException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public ParseBudgetExceededException(String message)
+	{
+		super(message);
+	}
+}
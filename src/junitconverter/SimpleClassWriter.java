@@ -1,20 +1,24 @@
 package junitconverter;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 
 public class SimpleClassWriter implements ClassWriter {
 
-	private final List<String> lines;
+	private final List<CharSequence> lines;
 
-	private final LineOffsets linesChanges = new LineOffsets();
+	private final LineOffsets linesChanges;
 
 	
 	/**
-	 * @param lines The source of the class we're writing.
+	 * @param lines The source of the class we're writing, of which only the
+	 *            references are copied.
 	 */
-	public SimpleClassWriter(List<String> lines) {
-		this.lines = new ArrayList<String>(lines);
+	public SimpleClassWriter(List<? extends CharSequence> lines) {
+		this.lines = new ArrayList<CharSequence>(lines);
+		this.linesChanges = new LineOffsets(lines.size());
 	}
 
 	public void insertLine(int lineNumber, String line) {
@@ -29,54 +33,87 @@ public class SimpleClassWriter implements ClassWriter {
 		lines.add(realLine, line);
 	}
 
+	public void deleteLine(int lineNumber) {
+		if (lineNumber < 0 || lineNumber >= linesChanges.getLineCount()) {
+			throw new IndexOutOfBoundsException("Line: " + lineNumber + ", Size: " + linesChanges.getLineCount());
+		}
+		// The original line is the last one before the next original line,
+		// after whatever was inserted at it
+		lines.remove(linesChanges.getRealLinePosition(lineNumber + 1) - 1);
+		linesChanges.removeLineAt(lineNumber);
+	}
+
 	public List<String> result() {
-		return new ArrayList<String>(lines);
+		return LineTable.toStrings(lines);
+	}
+
+	public void writeTo(Writer writer) throws IOException {
+		for (CharSequence line : lines) {
+			LineTable.write(line, writer);
+			writer.write('\n');
+		}
 	}
 	
+	/**
+	 * Counts the lines inserted (or deleted) before each original line, in a
+	 * Fenwick (binary indexed) tree so that both recording an insertion and
+	 * translating a line take logarithmic time, however many lines were
+	 * inserted.
+	 */
 	private static class LineOffsets {
 
-		private final List<LineOffset> offsets = new ArrayList<LineOffset>();
-		
+		/**
+		 * Node i counts the insertions at the original lines up to i - 1,
+		 * going back as many lines as the lowest set bit of i.
+		 */
+		private final int[] tree;
+
+		public LineOffsets(int lineCount) {
+			// Node 0 is unused, and lines can be inserted after the last one
+			tree = new int[lineCount + 2];
+		}
+
+		/**
+		 * @return The number of original lines.
+		 */
+		public int getLineCount() {
+			return tree.length - 2;
+		}
+
+		/**
+		 * @return Where the original line is now, that is the line itself
+		 *         plus the number of lines inserted at earlier original lines,
+		 *         minus the number of those deleted.
+		 */
 		public int getRealLinePosition(int origLine) {
 			int realLine = origLine;
-			for (LineOffset offset : offsets) {
-				if (offset.getLine() < origLine) {
-					realLine++;
-				}
+			for (int i = Math.min(origLine, tree.length - 1); i > 0; i -= i & -i) {
+				realLine += tree[i];
 			}
 			return realLine;
 		}
-		
+
+		/**
+		 * @param origLine
+		 *            At most the number of original lines, which insertLine()
+		 *            has already checked.
+		 */
 		public void addLineAt(int origLine) {
-			offsets.add(new LineOffset(origLine));
-			Collections.sort(offsets);
+			moveLinesAfter(origLine, 1);
 		}
-	}
-	
-	private static class LineOffset implements Comparable<LineOffset> {
-		private int line;
 
-		public LineOffset(int line) {
-			this.line = line;
-		}
-		
-		public int getLine() {
-			return line;
+		/**
+		 * @param origLine
+		 *            An original line, which deleteLine() has already checked.
+		 */
+		public void removeLineAt(int origLine) {
+			moveLinesAfter(origLine, -1);
 		}
-		
-		public int compareTo(LineOffset o) {
-			if (getLine() > o.getLine()) {
-				return 1;
-			} else if (getLine() < o.getLine()) {
-				return -1;
-			} else {
-				return 0;
+
+		private void moveLinesAfter(int origLine, int count) {
+			for (int i = origLine + 1; i < tree.length; i += i & -i) {
+				tree[i] += count;
 			}
 		}
-		
-		@Override
-		public String toString() {
-			return String.format("[Line: %d]", line);
-		}
 	}
 }
@@ -1,21 +1,22 @@
 package junitconverter;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
 import junitconverter.testcase.TestCaseClass;
 import junitconverter.testcase.TestCaseMethod;
 
 public class SimpleCoderEditor implements CodeEditor
 {
 
-	private static final String PACKAGE_PREFIX = "package ";
-
 	private static final String IMPORT_PREFIX = "import ";
 
+	private static final String EXTENDS = "extends";
+
+	private static final Visibility[] VISIBILITIES = Visibility.values();
+
 	private final ClassWriter classWriter;
 
 	public SimpleCoderEditor(ClassWriter classWriter)
@@ -30,7 +31,7 @@ public class SimpleCoderEditor implements CodeEditor
 		{
 			return;
 		}
-		String methodLine = testCaseClass.getLines().get(method.getLine());
+		CharSequence methodLine = testCaseClass.getLines().get(method.getLine());
 		String indent = extractIndent(methodLine);
 		classWriter.insertLine(method.getLine(), indent + "@" + annotation.getSimpleName());
 
@@ -43,31 +44,50 @@ public class SimpleCoderEditor implements CodeEditor
 			return;
 		}
 
-		String methodLine = testCaseClass.getLines().get(testCaseClass.getTypeLine());
-		String indent = extractIndent(methodLine);
-		classWriter.insertLine(testCaseClass.getExtendsLine(), indent + "@" + annotation.getSimpleName() + "(" + value
+		CharSequence typeLine = testCaseClass.getLines().get(testCaseClass.getTypeLine());
+		String indent = extractIndent(typeLine);
+		classWriter.insertLine(testCaseClass.getTypeLine(), indent + "@" + annotation.getSimpleName() + "(" + value
 				+ ")");
 	}
 
 	public void importClass(TestCaseClass testCaseClass, Class<?> klass)
 	{
-		classWriter.insertLine(indexForInsertingImports(testCaseClass.getLines()), IMPORT_PREFIX
-				+ klass.getName().replace('$', '.') + ";");
+		ImportIndex imports = testCaseClass.getImports();
+		String name = klass.getName().replace('$', '.');
+		if (imports.isImported(name))
+		{
+			return;
+		}
+		classWriter.insertLine(imports.getInsertionLine(), IMPORT_PREFIX + name + ";");
+		imports.record(name, false, false);
+	}
+
+	public void removeImport(TestCaseClass testCaseClass, ImportIndex.Entry entry)
+	{
+		classWriter.deleteLine(entry.getLine());
 	}
 
 	public void changeVisiblity(TestCaseClass testCaseClass, TestCaseMethod method, Visibility visibility)
 	{
-		String line = testCaseClass.getLines().get(method.getLine());
+		int lineNumber = method.getVisibilityLine() != -1 ? method.getVisibilityLine() : method.getLine();
+		String line = testCaseClass.getLines().get(lineNumber).toString();
 
-		Visibility oldVisibility = extractVisibility(line);
+		int column = method.getVisibilityColumn() != -1 ? method.getVisibilityColumn() : findVisibility(line);
+		Visibility oldVisibility = visibilityAt(line, column);
 
-		classWriter.replaceLine(method.getLine(), line.replaceFirst(oldVisibility.toString(), visibility.toString()));
+		classWriter.replaceLine(lineNumber, splice(line, column, column + oldVisibility.toString().length(),
+				visibility.toString()));
 	}
 
 	public void importStaticClass(TestCaseClass testCaseClass, Class<?> klass)
 	{
-		classWriter.insertLine(indexForInsertingImports(testCaseClass.getLines()),
-				IMPORT_PREFIX + "static " + klass.getName() + ".*;");
+		ImportIndex imports = testCaseClass.getImports();
+		if (imports.isStaticallyImported(klass.getName()))
+		{
+			return;
+		}
+		classWriter.insertLine(imports.getInsertionLine(), IMPORT_PREFIX + "static " + klass.getName() + ".*;");
+		imports.record(klass.getName(), true, true);
 	}
 
 	public void removeSuper(TestCaseClass testCaseClass)
@@ -86,62 +106,15 @@ public class SimpleCoderEditor implements CodeEditor
 
 	public void removeSuite(TestCaseClass testCaseClass)
 	{
-		List<Integer> lines = new ArrayList<Integer>();
 		for (int i = testCaseClass.getSuiteStartLine(); i <= testCaseClass.getSuiteEndLine(); i++)
 		{
-			lines.add(i);
+			commentOutLine(testCaseClass, i);
 		}
-		commentOutLines(testCaseClass, lines);
 	}
 
 	/* --- Helper Methods --- */
 
-	private int indexForInsertingImports(List<String> lines)
-	{
-		int index = findFirstImport(lines);
-		if (index != -1)
-		{
-			return index;
-		}
-
-		index = findPackageLine(lines);
-		if (index != -1)
-		{
-			return index;
-		}
-
-		return 0;
-	}
-
-	private int findPackageLine(List<String> lines)
-	{
-		int line = findFirstLineThatStartsWith(PACKAGE_PREFIX, lines);
-		if (line != -1)
-		{
-			return line + 1;
-		}
-		return -1;
-	}
-
-	private int findFirstImport(List<String> lines)
-	{
-		return findFirstLineThatStartsWith(IMPORT_PREFIX, lines);
-	}
-
-	private int findFirstLineThatStartsWith(String prefix, List<String> lines)
-	{
-		for (int i = 0; i < lines.size(); i++)
-		{
-			if (lines.get(i).startsWith(prefix))
-			{
-				return i;
-			}
-		}
-
-		return -1;
-	}
-
-	private String extractIndent(String line)
+	private String extractIndent(CharSequence line)
 	{
 		StringBuilder indent = new StringBuilder();
 		for (int i = 0; i < line.length(); i++)
@@ -159,50 +132,104 @@ public class SimpleCoderEditor implements CodeEditor
 	}
 
 	/**
-	 * Used to find the current visibility of a method. We search for the first occurrence of a visibility in the line
-	 * and return it (in case someone decides to name his method 'privateTest' or whatever).
+	 * Used to find the current visibility of a method when the parser didn't tell where it is. We search for the first
+	 * occurrence of a visibility in the line (in case someone decides to name his method 'privateTest' or whatever).
 	 * 
 	 * @param line
 	 *            The line to get the visibility of.
-	 * @return The visibility in the line.
+	 * @return Where the visibility starts in the line.
 	 */
-	private Visibility extractVisibility(String line)
+	private int findVisibility(String line)
 	{
-		Pattern pattern = Pattern.compile(visibilityPattern());
-		Matcher matcher = pattern.matcher(line);
-		matcher.find();
+		int first = -1;
+		for (Visibility visibility : VISIBILITIES)
+		{
+			int index = line.indexOf(visibility.toString());
+			if (index != -1 && (first == -1 || index < first))
+			{
+				first = index;
+			}
+		}
+		if (first == -1)
+		{
+			throw new IllegalArgumentException("Couldn't find a visibility");
+		}
+		return first;
+	}
 
-		String stringVisibility = line.substring(matcher.start(), matcher.end());
-		for (Visibility visibility : Visibility.values())
+	private Visibility visibilityAt(String line, int column)
+	{
+		for (Visibility visibility : VISIBILITIES)
 		{
-			if (stringVisibility.equals(visibility.toString()))
+			if (line.startsWith(visibility.toString(), column))
 			{
 				return visibility;
 			}
 		}
-
 		throw new IllegalArgumentException("Couldn't find a visibility");
 	}
 
-	private String visibilityPattern()
+	/**
+	 * @return The line with the characters from start (inclusive) to end (exclusive) replaced.
+	 */
+	private static String splice(String line, int start, int end, String replacement)
 	{
-		StringBuilder patternBuilder = new StringBuilder();
-		for (Visibility visibility : Visibility.values())
-		{
-			patternBuilder.append(visibility);
-			patternBuilder.append('|');
-		}
-		// Remove the extra pipe
-		patternBuilder.setLength(patternBuilder.length() - 1);
-		return patternBuilder.toString();
+		return new StringBuilder(line.length() - (end - start) + replacement.length()).append(line, 0, start).append(
+				replacement).append(line, end, line.length()).toString();
 	}
 
 	private void removeExtendsClause(TestCaseClass testCaseClass)
 	{
-		String definitionWithExtends = testCaseClass.getLines().get(testCaseClass.getExtendsLine());
-		String definitionWithoutExtends = definitionWithExtends.replaceFirst(
-				"\\s*extends\\s+" + Pattern.quote(testCaseClass.getSuperName()), "");
-		classWriter.replaceLine(testCaseClass.getExtendsLine(), definitionWithoutExtends);
+		List<? extends CharSequence> lines = testCaseClass.getLines();
+		int line = testCaseClass.getExtendsLine();
+		int column = testCaseClass.getExtendsColumn();
+		int endLine = testCaseClass.getSuperEndLine();
+		int endColumn = testCaseClass.getSuperEndColumn();
+		if (column == -1)
+		{
+			// The parser didn't tell where the clause is, look for it in the line
+			String definition = lines.get(line).toString();
+			column = definition.indexOf(EXTENDS);
+			if (column == -1)
+			{
+				return;
+			}
+			endLine = line;
+			endColumn = definition.indexOf(testCaseClass.getSuperName(), column + EXTENDS.length());
+			if (endColumn == -1)
+			{
+				return;
+			}
+			endColumn += testCaseClass.getSuperName().length();
+		}
+
+		String first = lines.get(line).toString();
+		String last = lines.get(endLine).toString();
+		// Whatever the clause is separated with goes with it, keeping the indentation if it starts a line
+		int start = column;
+		while (start > 0 && Character.isWhitespace(first.charAt(start - 1)))
+		{
+			start--;
+		}
+		int end = endColumn;
+		if (start == 0)
+		{
+			start = column;
+			while (end < last.length() && Character.isWhitespace(last.charAt(end)))
+			{
+				end++;
+			}
+		}
+
+		if (line == endLine)
+		{
+			classWriter.replaceLine(line, splice(first, start, end, ""));
+		}
+		else
+		{
+			classWriter.replaceLine(line, first.substring(0, start));
+			classWriter.replaceLine(endLine, splice(last, 0, end, extractIndent(last)));
+		}
 	}
 
 	private boolean hasExtendsClause(TestCaseClass testCaseClass)
@@ -225,11 +252,16 @@ public class SimpleCoderEditor implements CodeEditor
 		commentOutLines(testCaseClass, testCaseClass.getOverrideAnnotationsLines());
 	}
 
-	private void commentOutLines(TestCaseClass testCaseClass, List<Integer> lines)
+	private void commentOutLines(TestCaseClass testCaseClass, LineSet lines)
 	{
-		for (int line : lines)
+		for (int i = 0; i < lines.size(); i++)
 		{
-			classWriter.replaceLine(line, "//" + testCaseClass.getLines().get(line));
+			commentOutLine(testCaseClass, lines.get(i));
 		}
 	}
+
+	private void commentOutLine(TestCaseClass testCaseClass, int line)
+	{
+		classWriter.replaceLine(line, "//" + testCaseClass.getLines().get(line));
+	}
 }
@@ -0,0 +1,325 @@
+package junitconverter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+
+/**
+ * The contents of a source file. The file is read exactly once; the same characters then back both the
+ * {@link CharStream} the lexer reads and the lines the conversion stages edit.
+ * <p>
+ * Most sources only contain ASCII, where every character is a single byte whatever the encoding. Those are kept as
+ * the raw bytes and lexed through a {@link ByteCharStream}, which takes half the memory of decoded characters. Only
+ * sources that really contain multi-byte characters are decoded into a <code>char[]</code>, and only once their
+ * characters are first needed, so that the raw bytes can be looked at first (see {@link CandidateFilter}). Large
+ * files are memory-mapped rather than read onto the heap.
+ */
+public class SourceBuffer
+{
+
+	/** Files at least this big are memory-mapped instead of being read into a heap array. */
+	private static final int MAPPING_THRESHOLD = 512 * 1024;
+
+	private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+	/** Whether each charset seen so far is ASCII compatible, see {@link #isAsciiCompatible(Charset)}. */
+	private static final Map<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<Charset, Boolean>();
+
+	/** The raw source (null if the buffer was created from characters). */
+	private final ByteBuffer bytes;
+	private final Charset charset;
+	/** Whether every byte of {@link #bytes} is a character on its own, so there's no need to decode. */
+	private final boolean singleByte;
+	/** The decoded source (null until decoded, always null for single byte sources). */
+	private char[] chars;
+	private int length;
+	private LineTable lines;
+
+	/**
+	 * @param chars
+	 *            The characters of the source, this buffer takes ownership of the array.
+	 * @param length
+	 *            How many characters of <code>chars</code> are used.
+	 */
+	public SourceBuffer(char[] chars, int length)
+	{
+		this.bytes = null;
+		this.charset = Charset.defaultCharset();
+		this.singleByte = false;
+		this.chars = chars;
+		this.length = length;
+	}
+
+	public SourceBuffer(String source)
+	{
+		this(source.toCharArray(), source.length());
+	}
+
+	/**
+	 * @param bytes
+	 *            The raw source, from index zero up to the buffer's limit.
+	 * @param charset
+	 *            The encoding of the source.
+	 */
+	private SourceBuffer(ByteBuffer bytes, Charset charset)
+	{
+		this.bytes = bytes;
+		this.charset = charset;
+		this.singleByte = LATIN_1.equals(charset) || (isAsciiCompatible(charset) && isAscii(bytes));
+		this.length = singleByte ? bytes.limit() : -1;
+	}
+
+	/**
+	 * Reads a file using the platform's default encoding.
+	 */
+	public static SourceBuffer read(File file) throws IOException
+	{
+		return read(file, Charset.defaultCharset());
+	}
+
+	public static SourceBuffer read(File file, Charset charset) throws IOException
+	{
+		return new SourceBuffer(file.length() >= MAPPING_THRESHOLD ? mapBytes(file) : readBytes(file), charset);
+	}
+
+	/**
+	 * @return The raw, undecoded source. Buffers that were created from characters encode them on every call.
+	 */
+	public ByteBuffer bytes()
+	{
+		if (bytes == null)
+		{
+			return charset.encode(CharBuffer.wrap(chars, 0, length));
+		}
+		return bytes.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return A new stream over the buffer, for lexing.
+	 */
+	public CharStream charStream()
+	{
+		if (singleByte)
+		{
+			return new ByteCharStream(bytes.duplicate());
+		}
+		decode();
+		return new ANTLRStringStream(chars, length);
+	}
+
+	/**
+	 * @return The characters of the source, as a view over the buffer rather than a copy.
+	 */
+	public CharSequence chars()
+	{
+		decode();
+		return singleByte ? new ByteChars(bytes, 0, length) : CharBuffer.wrap(chars, 0, length);
+	}
+
+	/**
+	 * @return The lines of the source, as views over the buffer (see {@link LineTable}).
+	 */
+	public LineTable lines()
+	{
+		if (lines == null)
+		{
+			lines = new LineTable(chars());
+		}
+		return lines;
+	}
+
+	/**
+	 * @return The number of characters in the source.
+	 */
+	public int length()
+	{
+		decode();
+		return length;
+	}
+
+	/**
+	 * @return Whether the source is kept as raw single-byte characters rather than decoded.
+	 */
+	public boolean isByteBacked()
+	{
+		return singleByte;
+	}
+
+	private void decode()
+	{
+		if (!singleByte && chars == null)
+		{
+			CharBuffer decoded = charset.decode(bytes.duplicate());
+			chars = decoded.array();
+			length = decoded.limit();
+		}
+	}
+
+	private static boolean isAscii(ByteBuffer contents)
+	{
+		for (int i = contents.position(); i < contents.limit(); i++)
+		{
+			if (contents.get(i) < 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Whether the charset decodes every ASCII byte to the same character, worked out once per charset.
+	 */
+	private static boolean isAsciiCompatible(Charset charset)
+	{
+		Boolean compatible = ASCII_COMPATIBLE.get(charset);
+		if (compatible == null)
+		{
+			compatible = decodesAsciiAsIs(charset);
+			ASCII_COMPATIBLE.put(charset, compatible);
+		}
+		return compatible;
+	}
+
+	private static boolean decodesAsciiAsIs(Charset charset)
+	{
+		byte[] ascii = new byte[128];
+		for (int i = 0; i < ascii.length; i++)
+		{
+			ascii[i] = (byte) i;
+		}
+		CharBuffer decoded = charset.decode(ByteBuffer.wrap(ascii));
+		if (decoded.remaining() != ascii.length)
+		{
+			return false;
+		}
+		for (int i = 0; i < ascii.length; i++)
+		{
+			if (decoded.get(i) != i)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static ByteBuffer mapBytes(File file) throws IOException
+	{
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = randomAccessFile.getChannel();
+			// The mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			try
+			{
+				randomAccessFile.close();
+			}
+			catch (IOException e)
+			{
+				// Ignore
+			}
+		}
+	}
+
+	private static ByteBuffer readBytes(File file) throws IOException
+	{
+		InputStream in = new FileInputStream(file);
+		try
+		{
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (true)
+			{
+				if (read == bytes.length)
+				{
+					// The file grew since we asked for its length, make room for the rest
+					int next = in.read();
+					if (next == -1)
+					{
+						return ByteBuffer.wrap(bytes);
+					}
+					byte[] grown = new byte[Math.max(bytes.length * 2, 1024)];
+					System.arraycopy(bytes, 0, grown, 0, read);
+					bytes = grown;
+					bytes[read++] = (byte) next;
+				}
+				int count = in.read(bytes, read, bytes.length - read);
+				if (count == -1)
+				{
+					return ByteBuffer.wrap(bytes, 0, read);
+				}
+				read += count;
+			}
+		}
+		finally
+		{
+			try
+			{
+				in.close();
+			}
+			catch (IOException e)
+			{
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * Single-byte characters read straight from the bytes, from offset (inclusive) to offset + length (exclusive).
+	 */
+	private static class ByteChars implements CharSequence
+	{
+
+		private final ByteBuffer bytes;
+		private final int offset;
+		private final int length;
+
+		public ByteChars(ByteBuffer bytes, int offset, int length)
+		{
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public char charAt(int index)
+		{
+			return (char) (bytes.get(offset + index) & 0xff);
+		}
+
+		public int length()
+		{
+			return length;
+		}
+
+		public CharSequence subSequence(int start, int end)
+		{
+			return new ByteChars(bytes, offset + start, end - start);
+		}
+
+		@Override
+		public String toString()
+		{
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++)
+			{
+				chars[i] = charAt(i);
+			}
+			return new String(chars);
+		}
+	}
+}
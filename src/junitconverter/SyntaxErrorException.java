@@ -0,0 +1,22 @@
+package junitconverter;
+
+import org.antlr.runtime.RecognitionException;
+
+/**
+ * Thrown by a fail-fast parser (see {@link JavaParser#setFailFast(boolean)}) at the first syntax error. It isn't a
+ * RecognitionException, so that no rule catches it to recover: the whole parse is abandoned.
+ */
+public class SyntaxErrorException extends RuntimeException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param message
+	 *            Where the error is and what it is, as the parser would have reported it.
+	 */
+	public SyntaxErrorException(String message, RecognitionException cause)
+	{
+		super(message, cause);
+	}
+}
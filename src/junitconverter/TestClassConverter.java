@@ -1,19 +1,17 @@
 package junitconverter;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.security.DigestOutputStream;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import junit.framework.TestCase;
+import junitconverter.ClassFacts.MethodFacts;
 import junitconverter.stages.AnnotationsImportingStage;
 import junitconverter.stages.AssertsImportingStage;
 import junitconverter.stages.PreperationMethodsAnnotationStage;
@@ -23,96 +21,340 @@ import junitconverter.stages.SuiteRewritingStage;
 import junitconverter.stages.SuperRemovingStage;
 import junitconverter.stages.TestConversionStage;
 import junitconverter.stages.TestMethodsAnnotationStage;
+import junitconverter.stages.UnusedImportsRemovingStage;
 import junitconverter.stages.VisibilityAdaptionStage;
 import junitconverter.testcase.SetUpMethod;
 import junitconverter.testcase.TearDownMethod;
 import junitconverter.testcase.TestCaseClass;
+import junitconverter.testcase.TestCaseMethod;
 import junitconverter.testcase.TestMethod;
 
-import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
 
+/**
+ * Converts JUnit 3 test cases and suites to JUnit 4. A converter keeps no state of the files it converts, so once set
+ * up, it can be used by any number of threads at once.
+ */
 public class TestClassConverter
 {
 
+	/**
+	 * The version of the conversion itself, to be changed whenever the same input would be converted differently, so
+	 * that incremental runs convert everything again.
+	 */
+	public static final String VERSION = "5"; //$NON-NLS-1$
+
 	private static final String PUBLIC = "public"; //$NON-NLS-1$
 	private static final String SUITE = "suite"; //$NON-NLS-1$
 	private static final String FILENAME_SUFFIX = ".java"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
 	private static final String TEAR_DOWN = "tearDown"; //$NON-NLS-1$
 	private static final String SET_UP = "setUp"; //$NON-NLS-1$
 	private static final String TEST_METHOD_PREFIX = "test"; //$NON-NLS-1$
+	private static final String THREADS_OPTION = "-threads"; //$NON-NLS-1$
+	private static final String NO_FILTER_OPTION = "-nofilter"; //$NON-NLS-1$
+	private static final String BASE_CLASSES_OPTION = "-baseclasses"; //$NON-NLS-1$
+	private static final String INCREMENTAL_OPTION = "-incremental"; //$NON-NLS-1$
+	private static final String CACHE_OPTION = "-cache"; //$NON-NLS-1$
+	private static final String FULL_PARSE_OPTION = "-fullparse"; //$NON-NLS-1$
+	private static final String SCANNER_OPTION = "-scanner"; //$NON-NLS-1$
+	private static final String BUDGET_OPTION = "-budget"; //$NON-NLS-1$
+	private static final String FAIL_FAST_OPTION = "-failfast"; //$NON-NLS-1$
 
 	private final List<TestConversionStage> stages = new ArrayList<TestConversionStage>();
 	private final List<TestConversionStage> suiteStages = new ArrayList<TestConversionStage>();
 
+	private TypeHierarchyIndex typeHierarchy;
+	private FactsCache factsCache;
+	private boolean outline = true;
+	private boolean scanner;
+	private ParseBudget budget;
+	private boolean failFast;
+
 	public TestClassConverter()
 	{
+		stages.add(new UnusedImportsRemovingStage());
 		stages.add(new SuperRemovingStage());
 		stages.add(new VisibilityAdaptionStage());
 		stages.add(new PreperationMethodsAnnotationStage());
 		stages.add(new TestMethodsAnnotationStage());
 		stages.add(new AssertsImportingStage());
 		stages.add(new AnnotationsImportingStage());
+		suiteStages.add(new UnusedImportsRemovingStage(true));
 		suiteStages.add(new SuperRemovingStage());
 		suiteStages.add(new SuiteRewritingStage());
 		suiteStages.add(new SuiteAnnotationsImportingStage());
 		suiteStages.add(new SuiteRemovingStage());
-		// TODO Add stage to remove unused imports? Such as:
-		// import junit.framework.Test;
-		// import junit.framework.TestCase;
-		// import junit.framework.TestResult;
-		// import junit.framework.TestSuite;
 	}
 
-	public void convert(File inputFile, File outputFile) throws IOException, RecognitionException
+	/**
+	 * @param typeHierarchy
+	 *            The classes of the source tree, to recognize classes that extend {@link TestCase} indirectly (null to
+	 *            only recognize those that extend it directly).
+	 */
+	public void setTypeHierarchyIndex(TypeHierarchyIndex typeHierarchy)
 	{
-		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(new ANTLRFileStream(
-				inputFile.getAbsolutePath()))));
-		parser.compilationUnit();
+		this.typeHierarchy = typeHierarchy;
+	}
+
+	/**
+	 * @param factsCache
+	 *            Where to take the facts of sources parsed by an earlier run, and keep those of the sources parsed by
+	 *            this one (null to parse every source).
+	 */
+	public void setFactsCache(FactsCache factsCache)
+	{
+		this.factsCache = factsCache;
+	}
+
+	/**
+	 * @param outline
+	 *            Whether to parse sources in outline mode, skipping method bodies, and only in full if that fails
+	 *            (see {@link JavaParser#setOutline(boolean)}), rather than always in full. Outline is the default.
+	 */
+	public void setOutline(boolean outline)
+	{
+		this.outline = outline;
+	}
+
+	/**
+	 * @param scanner
+	 *            Whether to take the facts of sources from an {@link OutlineScanner}, and only parse those it can't make
+	 *            sense of, rather than parse every source. Parsing is the default.
+	 */
+	public void setScanner(boolean scanner)
+	{
+		this.scanner = scanner;
+	}
+
+	/**
+	 * @param budget
+	 *            How much parsing a source may cost before its facts are taken from an {@link OutlineScanner} instead,
+	 *            or the source is given up on (null for no limit).
+	 */
+	public void setBudget(ParseBudget budget)
+	{
+		this.budget = budget;
+	}
+
+	/**
+	 * @param failFast
+	 *            Whether to give up on a source at the first syntax error its full parse finds (see
+	 *            {@link JavaParser#setFailFast(boolean)}), rather than recover from errors and convert it anyway. Off
+	 *            by default.
+	 */
+	public void setFailFast(boolean failFast)
+	{
+		this.failFast = failFast;
+	}
+
+	/**
+	 * @return A description of the stages that are run, which changes whenever they do.
+	 */
+	public String getConfiguration()
+	{
+		StringBuilder configuration = new StringBuilder();
+		configuration.append("stages=");
+		appendStages(configuration, stages);
+		configuration.append(";suiteStages=");
+		appendStages(configuration, suiteStages);
+		configuration.append(";parser=").append(getParser());
+		return configuration.toString();
+	}
 
-		if (isTestSuite(parser, inputFile))
+	/**
+	 * @return What takes the facts of sources, which they depend on.
+	 */
+	private String getParser()
+	{
+		return (scanner ? "scanner-" : "") + (outline ? "outline" : "full");
+	}
+
+	private static void appendStages(StringBuilder configuration, List<TestConversionStage> stages)
+	{
+		for (int i = 0; i < stages.size(); i++)
+		{
+			if (i > 0)
+			{
+				configuration.append(',');
+			}
+			configuration.append(stages.get(i).getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Converts a single file if it is a JUnit 3 test case or suite.
+	 * 
+	 * @return Whether the file was a test and has been rewritten to <code>outputFile</code>.
+	 */
+	public boolean convert(File inputFile, File outputFile) throws IOException, RecognitionException
+	{
+		return convert(SourceBuffer.read(inputFile), outputFile);
+	}
+
+	/**
+	 * Converts a source that has already been read, if it is a JUnit 3 test case or suite.
+	 * 
+	 * @return Whether the source was a test and has been rewritten to <code>outputFile</code>.
+	 */
+	public boolean convert(SourceBuffer source, File outputFile) throws IOException, RecognitionException
+	{
+		return convertAndHash(source, outputFile) != null;
+	}
+
+	/**
+	 * Converts a source that has already been read, if it is a JUnit 3 test case or suite, hashing the class as it's
+	 * written.
+	 * 
+	 * @return The {@link ContentHash} of what has been written to <code>outputFile</code>, or null if the source wasn't
+	 *         a test.
+	 */
+	public String convertAndHash(SourceBuffer source, File outputFile) throws IOException, RecognitionException
+	{
+		ClassFacts facts = factsOf(source);
+
+		if (isTestSuite(facts))
 		{
-			writeChanges(outputFile, runSuiteConversion(inputFile, parser));
+			return writeChanges(outputFile, runSuiteConversion(source.lines(), facts));
 		}
-		else if (isTestCase(parser, inputFile))
+		else if (isTestCase(facts))
 		{
-			writeChanges(outputFile, runConversion(inputFile, parser));
+			return writeChanges(outputFile, runConversion(source.lines(), facts));
 		}
+		return null;
 	}
 
-	private List<String> runSuiteConversion(File inputFile, JavaParser parser) throws FileNotFoundException,
-			IOException
+	/**
+	 * Takes the facts of the source from the cache if they're there, and parses it otherwise. A parse that goes over
+	 * the budget is abandoned, and the facts are taken from the scanner if it hasn't been tried yet and makes sense of
+	 * the source. Those facts aren't cached, as they aren't what a parse would have found.
+	 *
+	 * @throws ParseBudgetExceededException
+	 *             If the parse went over the budget and the scanner can't stand in for it.
+	 */
+	private ClassFacts factsOf(SourceBuffer source) throws RecognitionException
 	{
-		List<String> lines = readLines(inputFile);
+		String hash = null;
+		if (factsCache != null)
+		{
+			hash = ContentHash.of(source.bytes());
+			ClassFacts facts = factsCache.get(hash, getParser());
+			if (facts != null)
+			{
+				return facts;
+			}
+		}
 
-		TestCaseClass testCaseClass = buildTestCaseClass(parser, lines);
+		ClassFacts facts;
+		try
+		{
+			facts = parse(source);
+		}
+		catch (ParseBudgetExceededException e)
+		{
+			facts = scanner ? null : scan(source);
+			if (facts == null)
+			{
+				throw e;
+			}
+			budget.fellBack();
+			return facts;
+		}
+		if (factsCache != null)
+		{
+			factsCache.put(hash, getParser(), facts);
+		}
+		return facts;
+	}
 
-		ClassWriter classWriter = new SimpleClassWriter(lines);
-		CodeEditor codeEditor = new SimpleCoderEditor(classWriter);
+	/**
+	 * Parses the source, keeping only the facts so that the parser and its tokens can go before the class is edited.
+	 * An outline parse that finds errors may have skipped a body it shouldn't have, so the source is parsed again in
+	 * full, which also reports the errors. The same goes for a source the scanner can't make sense of. Both parses
+	 * share the time the budget gives the source.
+	 *
+	 * @throws SyntaxErrorException
+	 *             If parsing fails fast and the full parse finds an error.
+	 */
+	private ClassFacts parse(SourceBuffer source) throws RecognitionException
+	{
+		if (scanner)
+		{
+			ClassFacts facts = scan(source);
+			if (facts != null)
+			{
+				return facts;
+			}
+		}
+		long deadline = budget == null ? Long.MAX_VALUE : budget.deadline();
+		if (outline)
+		{
+			JavaParser parser = createParser(source, deadline);
+			parser.setOutline(true);
+			try
+			{
+				parser.compilationUnit();
+			}
+			catch (SyntaxErrorException e)
+			{
+				// Parsed again in full, like any outline parse with errors
+			}
+			if (parser.getSyntaxErrors() == 0)
+			{
+				return new ClassFacts(parser);
+			}
+		}
+		JavaParser parser = createParser(source, deadline);
+		parser.compilationUnit();
+		return new ClassFacts(parser);
+	}
 
-		for (TestConversionStage stage : suiteStages)
+	/**
+	 * @return The facts of the source as the scanner finds them, null if it can't make sense of the source.
+	 */
+	private ClassFacts scan(SourceBuffer source)
+	{
+		OutlineScanner outlineScanner = new OutlineScanner(source.chars());
+		outlineScanner.scan();
+		return outlineScanner.getSyntaxErrors() == 0 ? new ClassFacts(outlineScanner) : null;
+	}
+
+	private JavaParser createParser(SourceBuffer source, long deadline)
+	{
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(source.charStream())));
+		parser.setFailFast(failFast);
+		if (budget != null)
 		{
-			stage.setCodeEditor(codeEditor);
+			parser.setBudget(budget, deadline);
 		}
+		return parser;
+	}
+
+	private ClassWriter runSuiteConversion(List<? extends CharSequence> lines, ClassFacts facts)
+	{
+		TestCaseClass testCaseClass = buildTestCaseClass(facts, lines);
+
+		// Stages only record their edits, which are all applied when the class is written
+		ClassWriter classWriter = new EditPlan(lines);
+		CodeEditor codeEditor = new SimpleCoderEditor(classWriter);
 
 		for (TestConversionStage stage : suiteStages)
 		{
-			stage.convertClass(testCaseClass);
+			stage.convertClass(testCaseClass, codeEditor);
 		}
 
-		return classWriter.result();
+		return classWriter;
 	}
 
-	private boolean isTestSuite(JavaParser parser, File inputFile)
+	private boolean isTestSuite(ClassFacts facts)
 	{
-		Set<String> methods = parser.getMethods();
-		if (!methods.contains(SUITE))
+		MethodFacts suite = facts.getMethod(SUITE);
+		if (suite == null)
 		{
 			return false;
 		}
-		String visibility = parser.getVisibility(SUITE);
-		if (!PUBLIC.equals(visibility))
+		if (!PUBLIC.equals(suite.getVisibility()))
 		{
 			return false;
 		}
@@ -121,7 +363,7 @@ public class TestClassConverter
 		// an OSGi/Eclipse thing
 		// try
 		// {
-		// Method m = Class.forName(parser.getFullName()).getMethod(SUITE);
+		// Method m = Class.forName(facts.getFullName()).getMethod(SUITE);
 		// return Modifier.isStatic(m.getModifiers());
 		// }
 		// catch (Exception e)
@@ -130,158 +372,157 @@ public class TestClassConverter
 		// }
 	}
 
-	private void writeChanges(File outputFile, List<String> newLines) throws IOException
+	/**
+	 * Writes the class aside and then renames it over the output file. When converting in place, the lines the class
+	 * is written from are views over the output file, which may be memory-mapped, so it mustn't be truncated before
+	 * they have all been written.
+	 * 
+	 * @return The {@link ContentHash} of the file as written.
+	 */
+	private String writeChanges(File outputFile, ClassWriter classWriter) throws IOException
 	{
-		BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile));
+		File directory = outputFile.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile(outputFile.getName(), TEMP_SUFFIX, directory);
+		boolean replaced = false;
 		try
 		{
-			for (String line : newLines)
+			DigestOutputStream out = ContentHash.hashing(new FileOutputStream(temp));
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+			try
 			{
-				writer.write(line);
-				writer.write("\n");
+				classWriter.writeTo(writer);
 			}
-		}
-		finally
-		{
-			try
+			finally
 			{
 				writer.close();
 			}
-			catch (IOException e)
+			// Renaming over an existing file fails on some platforms
+			replaced = temp.renameTo(outputFile) || (outputFile.delete() && temp.renameTo(outputFile));
+			if (!replaced)
+			{
+				throw new IOException("Can't replace " + outputFile + " with " + temp); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return ContentHash.of(out);
+		}
+		finally
+		{
+			if (!replaced)
 			{
-				// Ignore
+				temp.delete();
 			}
 		}
 	}
 
-	private List<String> runConversion(File inputFile, JavaParser parser) throws FileNotFoundException, IOException
+	private ClassWriter runConversion(List<? extends CharSequence> lines, ClassFacts facts)
 	{
-		List<String> lines = readLines(inputFile);
+		TestCaseClass testCaseClass = buildTestCaseClass(facts, lines);
 
-		TestCaseClass testCaseClass = buildTestCaseClass(parser, lines);
-
-		ClassWriter classWriter = new SimpleClassWriter(lines);
+		// Stages only record their edits, which are all applied when the class is written
+		ClassWriter classWriter = new EditPlan(lines);
 		CodeEditor codeEditor = new SimpleCoderEditor(classWriter);
 
 		for (TestConversionStage stage : stages)
 		{
-			stage.setCodeEditor(codeEditor);
+			stage.convertClass(testCaseClass, codeEditor);
 		}
 
-		for (TestConversionStage stage : stages)
-		{
-			stage.convertClass(testCaseClass);
-		}
-
-		return classWriter.result();
+		return classWriter;
 	}
 
-	private boolean isTestCase(JavaParser parser, File inputFile)
+	private boolean isTestCase(ClassFacts facts)
 	{
-		if (!TestCase.class.getSimpleName().equals(parser.getSuperName())
-				&& !TestCase.class.getName().equals(parser.getSuperName()))
+		if (TestCase.class.getSimpleName().equals(facts.getSuperName())
+				|| TestCase.class.getName().equals(facts.getSuperName()))
 		{
-			try
-			{
-				if (!TestCase.class.isAssignableFrom(Class.forName(parser.getFullName())))
-				{
-					return false;
-				}
-			}
-			catch (ClassNotFoundException e)
-			{
-				return false;
-			}
+			return true;
 		}
 
-		return true;
+		return typeHierarchy != null && typeHierarchy.isTestCase(facts.getFullName());
 	}
 
-	private TestCaseClass buildTestCaseClass(JavaParser parser, List<String> lines)
+	private TestCaseClass buildTestCaseClass(ClassFacts facts, List<? extends CharSequence> lines)
 	{
 		SetUpMethod setUpMethod = null;
-		if (parser.getMethodsWithLines().containsKey(SET_UP))
+		MethodFacts setUp = facts.getMethod(SET_UP);
+		if (setUp != null)
 		{
-			setUpMethod = new SetUpMethod(parser.getMethodsWithLines().get(SET_UP), parser.getAnnotations(SET_UP));
+			setUpMethod = new SetUpMethod(setUp.getLine(), setUp.getAnnotations());
+			setVisibilityPosition(setUp, setUpMethod);
 		}
 
 		TearDownMethod tearDownMethod = null;
-		if (parser.getMethodsWithLines().containsKey(TEAR_DOWN))
+		MethodFacts tearDown = facts.getMethod(TEAR_DOWN);
+		if (tearDown != null)
 		{
-			tearDownMethod = new TearDownMethod(parser.getMethodsWithLines().get(TEAR_DOWN),
-					parser.getAnnotations(TEAR_DOWN));
+			tearDownMethod = new TearDownMethod(tearDown.getLine(), tearDown.getAnnotations());
+			setVisibilityPosition(tearDown, tearDownMethod);
 		}
 
 		List<TestMethod> testMethods = new ArrayList<TestMethod>();
-		for (String methodName : parser.getMethods())
+		for (MethodFacts method : facts.getMethods().values())
 		{
-			if (methodName.startsWith(TEST_METHOD_PREFIX) && isVisibleEnough(parser, methodName))
+			if (method.getName().startsWith(TEST_METHOD_PREFIX) && isVisibleEnough(method))
 			{
-				testMethods.add(new TestMethod(parser.getMethodsWithLines().get(methodName), parser
-						.getAnnotations(methodName)));
+				TestMethod testMethod = new TestMethod(method.getLine(), method.getAnnotations());
+				setVisibilityPosition(method, testMethod);
+				testMethods.add(testMethod);
 			}
 		}
 
-		String superName = parser.getSuperName();
+		String superName = facts.getSuperName();
 		TestCaseClass testCaseClass = new TestCaseClass(lines, setUpMethod, tearDownMethod, testMethods, superName,
-				parser.getAnnotations("")); // Hack, we use empty string to grab the annotations for the class
+				facts.getAnnotations());
 
-		Integer suiteLine = parser.getMethodsWithLines().get(SUITE);
-		if (suiteLine != null)
+		MethodFacts suite = facts.getMethod(SUITE);
+		if (suite != null)
 		{
 			// FIXME This is commenting too far into class
 			int endLine = lines.size() - 2;
-			for (Map.Entry<String, Integer> entry : parser.getMethodsWithLines().entrySet())
+			for (MethodFacts method : facts.getMethods().values())
 			{
-				if (entry.getValue() > suiteLine)
+				if (method.getLine() > suite.getLine())
 				{
-					endLine = Math.min(endLine, entry.getValue() - 2);
+					endLine = Math.min(endLine, method.getLine() - 2);
 				}
 			}
-			testCaseClass.setSuiteLine(suiteLine - 1, endLine);
+			testCaseClass.setSuiteLine(suite.getLine() - 1, endLine);
+			testCaseClass.setSuiteClasses(facts.getSuiteClasses());
 		}
-		testCaseClass.setExtendsLine(parser.getSuperLine());
-		testCaseClass.setExtendsLine(parser.getTypeLine());
-		testCaseClass.setOverrideAnnotationsLines(new LinkedList<Integer>(parser.getOverrideAnnotationsLines()));
-		testCaseClass.setSuperConstructorInvocations(new LinkedList<Integer>(parser.getSuperConstructorInvocations()));
-		testCaseClass.setSuperMethodInvocations(new LinkedList<Integer>(parser.getSuperMethodInvocations()));
+		if (superName != null)
+		{
+			testCaseClass.setExtendsClause(facts.getExtendsLine(), facts.getExtendsPos(), facts.getSuperEndLine(),
+					facts.getSuperEndPos());
+		}
+		testCaseClass.setTypeLine(facts.getTypeLine());
+		// The editor records the imports it adds in the index
+		testCaseClass.setImports(facts.getImports().copy());
+		testCaseClass.setReferences(facts.getReferences());
+		testCaseClass.setOverrideAnnotationsLines(facts.getOverrideAnnotationsLines());
+		testCaseClass.setSuperConstructorInvocations(facts.getSuperConstructorInvocations());
+		testCaseClass.setSuperMethodInvocations(facts.getSuperMethodInvocations());
 		return testCaseClass;
 	}
 
-	private boolean isVisibleEnough(JavaParser parser, String methodName)
+	private void setVisibilityPosition(MethodFacts facts, TestCaseMethod method)
 	{
-		return (parser.getVisibility(methodName).equals(Visibility.PUBLIC.toString()) || parser.getVisibility(
-				methodName).equals(Visibility.PROTECTED.toString()));
+		if (facts.getVisibilityPos() != -1)
+		{
+			method.setVisibilityPosition(facts.getVisibilityLine(), facts.getVisibilityPos());
+		}
 	}
 
-	private List<String> readLines(File inputFile) throws FileNotFoundException, IOException
+	private boolean isVisibleEnough(MethodFacts method)
 	{
-		List<String> lines = new ArrayList<String>();
-		BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-		try
-		{
-			while (reader.ready())
-			{
-				lines.add(reader.readLine());
-			}
-		}
-		finally
-		{
-			try
-			{
-				reader.close();
-			}
-			catch (IOException e)
-			{
-				// Ignore
-			}
-		}
-		return lines;
+		return (method.getVisibility().equals(Visibility.PUBLIC.toString()) || method.getVisibility().equals(
+				Visibility.PROTECTED.toString()));
 	}
 
 	private static void listJavaFilesRecursively(File dir, List<File> files)
 	{
-		for (File file : dir.listFiles())
+		File[] children = dir.listFiles();
+		// Sort so that runs (and their reports) don't depend on the file system's listing order
+		Arrays.sort(children);
+		for (File file : children)
 		{
 			if (file.isDirectory())
 			{
@@ -297,18 +538,72 @@ public class TestClassConverter
 		}
 	}
 
-	public static void main(String[] args) throws IOException, RecognitionException
+	public static void main(String[] args) throws IOException, InterruptedException
 	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean filter = true;
+		boolean incremental = false;
+		File cacheDirectory = null;
+		boolean outline = true;
+		boolean scanner = false;
+		ParseBudget budget = new ParseBudget(ParseBudget.DEFAULT_SPECULATIVE_TOKENS, 0);
+		boolean failFast = false;
+		List<String> baseClasses = new ArrayList<String>();
+		int i = 0;
+		for (; i < args.length - 1; i++)
+		{
+			if (THREADS_OPTION.equals(args[i]))
+			{
+				threads = parseThreads(args[++i]);
+			}
+			else if (NO_FILTER_OPTION.equals(args[i]))
+			{
+				filter = false;
+			}
+			else if (BASE_CLASSES_OPTION.equals(args[i]))
+			{
+				baseClasses.addAll(Arrays.asList(args[++i].split(",")));
+			}
+			else if (INCREMENTAL_OPTION.equals(args[i]))
+			{
+				incremental = true;
+			}
+			else if (CACHE_OPTION.equals(args[i]))
+			{
+				cacheDirectory = new File(args[++i]);
+			}
+			else if (FULL_PARSE_OPTION.equals(args[i]))
+			{
+				outline = false;
+			}
+			else if (SCANNER_OPTION.equals(args[i]))
+			{
+				scanner = true;
+			}
+			else if (BUDGET_OPTION.equals(args[i]))
+			{
+				budget = parseBudget(args[++i]);
+			}
+			else if (FAIL_FAST_OPTION.equals(args[i]))
+			{
+				failFast = true;
+			}
+			else
+			{
+				usage();
+				return;
+			}
+		}
 
-		if (args.length != 1)
+		if (i != args.length - 1)
 		{
 			usage();
 			return;
 		}
 
-		File rootFile = new File(args[0]);
+		File rootFile = new File(args[i]);
 
-		List<File> files = new LinkedList<File>();
+		List<File> files = new ArrayList<File>();
 		if (rootFile.isDirectory())
 		{
 			listJavaFilesRecursively(rootFile, files);
@@ -317,16 +612,109 @@ public class TestClassConverter
 		{
 			files.add(rootFile);
 		}
-		TestClassConverter testClassConverter = new TestClassConverter();
-		for (File file : files)
+		BatchConverter batchConverter = new BatchConverter(threads);
+		batchConverter.setOutline(outline);
+		batchConverter.setScanner(scanner);
+		batchConverter.setBudget(budget);
+		batchConverter.setFailFast(failFast);
+		if (filter)
+		{
+			batchConverter.setCandidateFilter(new CandidateFilter(baseClasses));
+		}
+		FactsCache factsCache = null;
+		if (cacheDirectory != null)
+		{
+			factsCache = new FactsCache(cacheDirectory);
+			batchConverter.setFactsCache(factsCache);
+		}
+		ConversionManifest manifest = null;
+		if (incremental)
+		{
+			manifest = ConversionManifest.load(rootFile.isDirectory() ? rootFile : rootFile.getAbsoluteFile()
+					.getParentFile());
+			batchConverter.setManifest(manifest);
+		}
+		ConversionReport report = batchConverter.convert(files);
+		if (manifest != null)
+		{
+			manifest.save();
+		}
+		report.print(System.out);
+		if (factsCache != null)
+		{
+			System.out.println("facts cache: " + factsCache.getHits() + " hits, " + factsCache.getMisses() + " parsed");
+		}
+		if (budget.getFallbacks() > 0)
+		{
+			System.out.println("parse budget: " + budget.getFallbacks() + " over budget, scanned instead");
+		}
+	}
+
+	private static int parseThreads(String value)
+	{
+		try
+		{
+			int threads = Integer.parseInt(value);
+			if (threads > 0)
+			{
+				return threads;
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			// Fall through to usage
+		}
+		usage();
+		return 1;
+	}
+
+	/**
+	 * @return The budget given as <code>tokens,milliseconds</code>, 0 for either meaning no limit.
+	 */
+	private static ParseBudget parseBudget(String value)
+	{
+		String[] limits = value.split(","); //$NON-NLS-1$
+		try
+		{
+			if (limits.length == 2)
+			{
+				int speculativeTokens = Integer.parseInt(limits[0]);
+				long milliseconds = Long.parseLong(limits[1]);
+				if (speculativeTokens >= 0 && milliseconds >= 0)
+				{
+					return new ParseBudget(speculativeTokens, milliseconds);
+				}
+			}
+		}
+		catch (NumberFormatException e)
 		{
-			testClassConverter.convert(file, file);
+			// Fall through to usage
 		}
+		usage();
+		return null;
 	}
 
 	private static void usage()
 	{
-		System.err.println("Usage: java " + TestClassConverter.class.getName() + " <src dir>");
+		System.err.println("Usage: java " + TestClassConverter.class.getName() + " [options] <src dir>");
+		System.err.println("Options:");
+		System.err.println("  " + THREADS_OPTION + " <count>        Number of worker threads (default: number of cores)");
+		System.err.println("  " + NO_FILTER_OPTION + "              Parse every file, even those that can't be tests");
+		System.err.println("  " + BASE_CLASSES_OPTION + " <a,b,...> Base classes (simple names) that tests may extend");
+		System.err.println("                         instead of TestCase, for the filter");
+		System.err.println("  " + INCREMENTAL_OPTION + "           Skip files unchanged since the last incremental run,");
+		System.err.println("                         as recorded in " + ConversionManifest.FILENAME);
+		System.err.println("  " + CACHE_OPTION + " <dir>           Keep the facts of parsed files in dir, and don't parse");
+		System.err.println("                         unchanged files again on later runs");
+		System.err.println("  " + FULL_PARSE_OPTION + "             Parse method bodies in full instead of skipping them");
+		System.err.println("  " + SCANNER_OPTION + "               Take the outline of files with a hand-written scanner,");
+		System.err.println("                         and only parse those it can't make sense of");
+		System.err.println("  " + BUDGET_OPTION + " <tokens,ms>    Give up parsing a file after matching that many tokens");
+		System.err.println("                         while backtracking, or after that long, and scan it instead");
+		System.err.println("                         (default: " + ParseBudget.DEFAULT_SPECULATIVE_TOKENS
+				+ ",0, 0 for no limit)");
+		System.err.println("  " + FAIL_FAST_OPTION + "              Skip a file at its first syntax error, rather than");
+		System.err.println("                         recover from errors and convert it anyway");
 		System.exit(1);
 	}
 }
@@ -0,0 +1,287 @@
+package junitconverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.Token;
+
+/**
+ * The header of a source file: its package, its imports and the name and superclass of its (first) class. Headers are
+ * read straight off the lexer, stopping at the body of the class, so reading one costs a tiny fraction of a full
+ * parse. They are what {@link TypeHierarchyIndex} is built from.
+ */
+public class TypeHeader
+{
+
+	private static final String PACKAGE = "package"; //$NON-NLS-1$
+	private static final String IMPORT = "import"; //$NON-NLS-1$
+	private static final String STATIC = "static"; //$NON-NLS-1$
+	private static final String CLASS = "class"; //$NON-NLS-1$
+	private static final String INTERFACE = "interface"; //$NON-NLS-1$
+	private static final String ENUM = "enum"; //$NON-NLS-1$
+	private static final String EXTENDS = "extends"; //$NON-NLS-1$
+
+	private final String packageName;
+	private final String typeName;
+	private final String superName;
+	private final List<String> imports;
+
+	/**
+	 * @param packageName
+	 *            The package of the file (null for the default package).
+	 * @param typeName
+	 *            The simple name of the class (null if the file has none).
+	 * @param superName
+	 *            The name of the superclass, as seen in the extends clause (null if none).
+	 * @param imports
+	 *            The non-static imports, such as <code>java.util.List</code> or <code>java.util.*</code>.
+	 */
+	public TypeHeader(String packageName, String typeName, String superName, List<String> imports)
+	{
+		this.packageName = packageName;
+		this.typeName = typeName;
+		this.superName = superName;
+		this.imports = Collections.unmodifiableList(new ArrayList<String>(imports));
+	}
+
+	/**
+	 * Reads the header of a source file. Like {@link JavaParser}, this looks at the first top-level class of the
+	 * file, skipping any interfaces, enums and annotation types before it.
+	 */
+	public static TypeHeader read(CharStream source)
+	{
+		HeaderTokens tokens = new HeaderTokens(new JavaLexer(source));
+		String packageName = null;
+		List<String> imports = new ArrayList<String>();
+
+		for (Token token = tokens.next(); token != null; token = tokens.next())
+		{
+			String text = token.getText();
+			if (PACKAGE.equals(text))
+			{
+				packageName = tokens.readUntil(";");
+			}
+			else if (IMPORT.equals(text))
+			{
+				String imported = tokens.readUntil(";");
+				if (!imported.startsWith(STATIC + " "))
+				{
+					imports.add(imported);
+				}
+			}
+			else if ("@".equals(text))
+			{
+				tokens.skipAnnotation();
+			}
+			else if (CLASS.equals(text))
+			{
+				Token name = tokens.next();
+				if (name == null)
+				{
+					break;
+				}
+				return new TypeHeader(packageName, name.getText(), tokens.readExtendsClause(), imports);
+			}
+			else if (INTERFACE.equals(text) || ENUM.equals(text))
+			{
+				tokens.skipBody();
+			}
+		}
+		return new TypeHeader(packageName, null, null, imports);
+	}
+
+	public String getPackageName()
+	{
+		return packageName;
+	}
+
+	public String getTypeName()
+	{
+		return typeName;
+	}
+
+	/**
+	 * @return The fully qualified name of the class, as in {@link JavaParser#getFullName()} (null if no class).
+	 */
+	public String getFullName()
+	{
+		if (typeName == null || packageName == null)
+		{
+			return typeName;
+		}
+		return packageName + "." + typeName;
+	}
+
+	public String getSuperName()
+	{
+		return superName;
+	}
+
+	/**
+	 * @return Whether the class extends {@link TestCase} itself, by simple or full name.
+	 */
+	public boolean extendsTestCase()
+	{
+		return TestCase.class.getSimpleName().equals(superName) || TestCase.class.getName().equals(superName);
+	}
+
+	/**
+	 * @return The header of the class once converted, which no longer extends {@link TestCase} itself. The imports it
+	 *         no longer uses are kept, they don't change what its superclass is.
+	 */
+	public TypeHeader converted()
+	{
+		return extendsTestCase() ? new TypeHeader(packageName, typeName, null, imports) : this;
+	}
+
+	public List<String> getImports()
+	{
+		return imports;
+	}
+
+	/**
+	 * The visible tokens of a file, with the few bits of look-ahead needed to read a header.
+	 */
+	private static class HeaderTokens
+	{
+
+		private final JavaLexer lexer;
+		private Token pushedBack;
+
+		public HeaderTokens(JavaLexer lexer)
+		{
+			this.lexer = lexer;
+		}
+
+		/**
+		 * @return The next token on the default channel (null at the end of the file).
+		 */
+		public Token next()
+		{
+			if (pushedBack != null)
+			{
+				Token token = pushedBack;
+				pushedBack = null;
+				return token;
+			}
+			Token token = lexer.nextToken();
+			while (token.getType() != Token.EOF && token.getChannel() != Token.DEFAULT_CHANNEL)
+			{
+				token = lexer.nextToken();
+			}
+			return token.getType() == Token.EOF ? null : token;
+		}
+
+		/**
+		 * @return The text of the tokens up to (and excluding) the terminator, keywords separated by a space.
+		 */
+		public String readUntil(String terminator)
+		{
+			StringBuilder text = new StringBuilder();
+			for (Token token = next(); token != null && !terminator.equals(token.getText()); token = next())
+			{
+				if (STATIC.equals(token.getText()))
+				{
+					text.append(STATIC).append(' ');
+				}
+				else
+				{
+					text.append(token.getText());
+				}
+			}
+			return text.toString();
+		}
+
+		/**
+		 * Reads what comes after the name of a class up to its body.
+		 *
+		 * @return The superclass without its type arguments (null if there's no extends clause).
+		 */
+		public String readExtendsClause()
+		{
+			String superName = null;
+			boolean inExtends = false;
+			for (Token token = next(); token != null && !"{".equals(token.getText()); token = next())
+			{
+				String text = token.getText();
+				if ("<".equals(text))
+				{
+					skipBalanced("<", ">");
+				}
+				else if (EXTENDS.equals(text) && superName == null)
+				{
+					inExtends = true;
+					superName = "";
+				}
+				else if (inExtends && (token.getType() == JavaLexer.Identifier || ".".equals(text)))
+				{
+					superName += text;
+				}
+				else
+				{
+					inExtends = false;
+				}
+			}
+			return superName;
+		}
+
+		/**
+		 * Skips an annotation, the <code>@</code> having been read.
+		 */
+		public void skipAnnotation()
+		{
+			Token token = next();
+			while (token != null && (token.getType() == JavaLexer.Identifier || ".".equals(token.getText())))
+			{
+				token = next();
+			}
+			if (token != null && "(".equals(token.getText()))
+			{
+				skipBalanced("(", ")");
+			}
+			else
+			{
+				// 'interface' of an annotation type, or whatever follows the annotation
+				pushedBack = token;
+			}
+		}
+
+		/**
+		 * Skips the declaration and body of a type we're not interested in.
+		 */
+		public void skipBody()
+		{
+			for (Token token = next(); token != null; token = next())
+			{
+				if ("{".equals(token.getText()))
+				{
+					skipBalanced("{", "}");
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Skips to the token closing one that has just been read.
+		 */
+		private void skipBalanced(String open, String close)
+		{
+			int depth = 1;
+			for (Token token = next(); token != null; token = next())
+			{
+				if (open.equals(token.getText()))
+				{
+					depth++;
+				}
+				else if (close.equals(token.getText()) && --depth == 0)
+				{
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package junitconverter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * The superclasses of all the classes of a source tree, used to tell whether a class is a {@link TestCase} when it
+ * only extends it indirectly (<code>FooTest extends AbstractDbTestCase extends TestCase</code>). Superclass names are
+ * resolved the way the compiler would, from the header of the file that uses them: single-type imports first, then the
+ * class's own package, then on-demand imports. Nothing is ever loaded, so no class path is needed.
+ * <p>
+ * The index is filled once and then only read, so it can be shared by any number of threads.
+ */
+public class TypeHierarchyIndex
+{
+
+	private static final String ON_DEMAND_SUFFIX = ".*"; //$NON-NLS-1$
+
+	private final Map<String, TypeHeader> types = new HashMap<String, TypeHeader>();
+	/** Every class added that has a superclass, including those whose name was already taken. */
+	private final List<TypeHeader> subclasses = new ArrayList<TypeHeader>();
+
+	/**
+	 * Adds a class to the index. If a class with the same name was already added, the first one is kept.
+	 */
+	public void add(TypeHeader header)
+	{
+		String fullName = header.getFullName();
+		if (fullName != null && !types.containsKey(fullName))
+		{
+			types.put(fullName, header);
+		}
+		if (header.getSuperName() != null)
+		{
+			subclasses.add(header);
+		}
+	}
+
+	public int size()
+	{
+		return types.size();
+	}
+
+	/**
+	 * @param fullName
+	 *            The fully qualified name of a class of the source tree.
+	 * @return Whether that class extends {@link TestCase}, directly or not. Classes that aren't in the index, or whose
+	 *         ancestry leaves the source tree before reaching {@link TestCase}, aren't.
+	 */
+	public boolean isTestCase(String fullName)
+	{
+		return isTestCase(types.get(fullName));
+	}
+
+	/**
+	 * @param header
+	 *            The header of a class, which doesn't need to be in the index itself.
+	 * @return Whether that class extends {@link TestCase}, directly or through classes of the index.
+	 */
+	public boolean isTestCase(TypeHeader header)
+	{
+		Set<String> visited = new HashSet<String>();
+		while (header != null && visited.add(header.getFullName()))
+		{
+			String superName = header.getSuperName();
+			if (superName == null)
+			{
+				return false;
+			}
+			if (header.extendsTestCase())
+			{
+				return true;
+			}
+			header = types.get(resolve(header, superName));
+		}
+		return false;
+	}
+
+	/**
+	 * @return The simple names of the classes in the index that extend {@link TestCase} and are themselves extended by
+	 *         another class (sorted). Test cases that nobody extends are left out: a class only needs the names of its
+	 *         own ancestors to be recognized.
+	 */
+	public Set<String> getTestCaseBaseSimpleNames()
+	{
+		Set<String> names = new TreeSet<String>();
+		for (TypeHeader subclass : subclasses)
+		{
+			TypeHeader base = types.get(resolve(subclass, subclass.getSuperName()));
+			if (base != null && isTestCase(base))
+			{
+				names.add(base.getTypeName());
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @return The fully qualified name that a type name used in the given file refers to, or the name itself if it
+	 *         isn't a class of the source tree.
+	 */
+	private String resolve(TypeHeader header, String name)
+	{
+		if (name.indexOf('.') != -1)
+		{
+			return name;
+		}
+
+		String suffix = "." + name;
+		for (String imported : header.getImports())
+		{
+			if (imported.endsWith(suffix))
+			{
+				return imported;
+			}
+		}
+
+		String samePackage = header.getPackageName() == null ? name : header.getPackageName() + suffix;
+		if (types.containsKey(samePackage))
+		{
+			return samePackage;
+		}
+
+		for (String imported : header.getImports())
+		{
+			if (imported.endsWith(ON_DEMAND_SUFFIX))
+			{
+				String candidate = imported.substring(0, imported.length() - ON_DEMAND_SUFFIX.length()) + suffix;
+				if (types.containsKey(candidate))
+				{
+					return candidate;
+				}
+			}
+		}
+		return name;
+	}
+}
@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 import org.junit.After;
@@ -12,12 +13,12 @@ import org.junit.Test;
  *
  * @author abyx
  */
-public class AnnotationsImportingStage extends AbstractTestConversionStage {
+public class AnnotationsImportingStage implements TestConversionStage {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
 		if (testCase.getSetUpMethod() != null) {
 			codeEditor.importClass(testCase, Before.class);
 		}
@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 import org.junit.Assert;
@@ -9,9 +10,9 @@ import org.junit.Assert;
  *
  * @author abyx
  */
-public class AssertsImportingStage extends AbstractTestConversionStage {
+public class AssertsImportingStage implements TestConversionStage {
 
-	public void convertClass(TestCaseClass testCase) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
 		codeEditor.importStaticClass(testCase, Assert.class);
 	}
 }
@@ -1,6 +1,7 @@
 package junitconverter.stages;
 
 import junit.framework.TestCase;
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 import org.junit.After;
@@ -14,12 +15,12 @@ import org.junit.Before;
  * @author abyx
  */
 public class PreperationMethodsAnnotationStage 
-		extends AbstractTestConversionStage {
+		implements TestConversionStage {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
 		if (testCase.getSetUpMethod() != null) {
 			codeEditor.annotateMethod(
 					testCase, testCase.getSetUpMethod(), Before.class);
@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 import org.junit.runner.RunWith;
@@ -12,13 +13,13 @@ import org.junit.runners.Suite.SuiteClasses;
  * 
  * @author cwilliams
  */
-public class SuiteAnnotationsImportingStage extends AbstractTestConversionStage
+public class SuiteAnnotationsImportingStage implements TestConversionStage
 {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase)
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor)
 	{
 		codeEditor.importClass(testCase, Suite.class);
 		codeEditor.importClass(testCase, RunWith.class);
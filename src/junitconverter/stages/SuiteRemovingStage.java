@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 /**
@@ -7,13 +8,13 @@ import junitconverter.testcase.TestCaseClass;
  * 
  * @author cwilliams
  */
-public class SuiteRemovingStage extends AbstractTestConversionStage
+public class SuiteRemovingStage implements TestConversionStage
 {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase)
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor)
 	{
 		codeEditor.removeSuite(testCase);
 	}
@@ -1,9 +1,6 @@
 package junitconverter.stages;
 
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 import org.junit.runner.RunWith;
@@ -14,30 +11,19 @@ import org.junit.runners.Suite.SuiteClasses;
  * 
  * @author abyx
  */
-public class SuiteRewritingStage extends AbstractTestConversionStage
+public class SuiteRewritingStage implements TestConversionStage
 {
-	// This lovely regex matches addTest and addTestSuite calls so we can extract out the classes/suites added
-	private static final Pattern p = Pattern
-			.compile("\\.addTest(Suite)?\\s*\\((([\\p{L}_$][\\p{L}\\p{N}_$]*\\.)*[\\p{L}_$][\\p{L}\\p{N}_$]*)\\.(suite\\(\\)|class)\\s*\\);");
-
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase)
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor)
 	{
-		// This is a gigantic hack. We use a regex to search for classes/suites added to the suite.
-		// We start our search at the beginning of the suite method
-		List<String> lines = testCase.getLines().subList(testCase.getSuiteStartLine(), testCase.getSuiteEndLine() + 1);
+		// The classes/suites added to the suite, as found by the parser in addTest and addTestSuite calls
 		StringBuilder builder = new StringBuilder();
 		builder.append('{');
-		for (String line : lines)
+		for (String testName : testCase.getSuiteClasses())
 		{
-			Matcher m = p.matcher(line);
-			if (m.find())
-			{
-				String testName = m.group(2);
-				builder.append(testName).append(".class, "); //$NON-NLS-1$
-			}
+			builder.append(testName).append(".class, "); //$NON-NLS-1$
 		}
 		builder.append('}');
 		codeEditor.addAnnotation(testCase, SuiteClasses.class, builder.toString());
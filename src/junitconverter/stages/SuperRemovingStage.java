@@ -1,6 +1,6 @@
 package junitconverter.stages;
 
-import junit.framework.TestCase;
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 /**
@@ -8,14 +8,13 @@ import junitconverter.testcase.TestCaseClass;
  *
  * @author abyx
  */
-public class SuperRemovingStage extends AbstractTestConversionStage {
+public class SuperRemovingStage implements TestConversionStage {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase) {
-		if (TestCase.class.getSimpleName().equals(testCase.getSuperName())
-				|| TestCase.class.getName().equals(testCase.getSuperName())) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
+		if (testCase.extendsTestCase()) {
 			codeEditor.removeSuper(testCase);
 		}
 	}
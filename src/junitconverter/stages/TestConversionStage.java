@@ -4,13 +4,18 @@ import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 
 /**
- * This is a stage in the conversion of a test case.
+ * This is a stage in the conversion of a test case. Stages keep no state of
+ * their own, everything about the class being converted is passed to them,
+ * so a single instance can convert any number of classes at once.
  *
  * @author abyx
  */
 public interface TestConversionStage {
 
-	public void setCodeEditor(CodeEditor editor);
-	
-	public void convertClass(TestCaseClass testCase);
+	/**
+	 * @param testCase The class to convert.
+	 * @param codeEditor The editor to make the changes with, which is only
+	 *            used for that class.
+	 */
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor);
 }
@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.testcase.TestCaseClass;
 import junitconverter.testcase.TestCaseMethod;
 
@@ -11,12 +12,12 @@ import org.junit.Test;
  *
  * @author abyx
  */
-public class TestMethodsAnnotationStage extends AbstractTestConversionStage {
+public class TestMethodsAnnotationStage implements TestConversionStage {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
 		if (testCase.getTestMethods() == null) {
 			return;
 		}
@@ -0,0 +1,76 @@
+package junitconverter.stages;
+
+import junit.framework.TestCase;
+import junitconverter.CodeEditor;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+import junitconverter.testcase.TestCaseClass;
+
+/**
+ * Removes the imports of JUnit 3 classes, such as <code>TestCase</code> or
+ * <code>TestSuite</code>, that the converted class no longer uses. A class is
+ * still used if its name appears anywhere outside of the imports, except in
+ * the code the conversion removes: the <code>extends TestCase</code> clause
+ * and, for suites, the suite() method.
+ * <p>
+ * Only runs on parsed classes, as it relies on the identifiers the parser
+ * found.
+ */
+public class UnusedImportsRemovingStage implements TestConversionStage {
+
+	private static final String JUNIT_PACKAGE = "junit.framework."; //$NON-NLS-1$
+
+	private final boolean suiteRemoved;
+
+	public UnusedImportsRemovingStage() {
+		this(false);
+	}
+
+	/**
+	 * @param suiteRemoved Whether the suite() method of the class is removed
+	 *            by the conversion.
+	 */
+	public UnusedImportsRemovingStage(boolean suiteRemoved) {
+		this.suiteRemoved = suiteRemoved;
+	}
+
+	/**
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
+	 */
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
+		if (testCase.getReferences() == null) {
+			return;
+		}
+		for (ImportIndex.Entry entry : testCase.getImports().getEntries()) {
+			if (entry.isOnDemand() || !entry.getName().startsWith(JUNIT_PACKAGE)) {
+				continue;
+			}
+			String simpleName = entry.getName().substring(entry.getName().lastIndexOf('.') + 1);
+			if (!isUsed(testCase, simpleName)) {
+				codeEditor.removeImport(testCase, entry);
+			}
+		}
+	}
+
+	private boolean isUsed(TestCaseClass testCase, String name) {
+		LineSet lines = testCase.getReferences().get(name);
+		if (lines == null) {
+			return false;
+		}
+		boolean superRemoved = testCase.extendsTestCase()
+				&& TestCase.class.getSimpleName().equals(name);
+		for (int i = 0; i < lines.size(); i++) {
+			int line = lines.get(i);
+			if (superRemoved && line >= testCase.getExtendsLine()
+					&& line <= testCase.getSuperEndLine()) {
+				continue;
+			}
+			if (suiteRemoved && line >= testCase.getSuiteStartLine()
+					&& line <= testCase.getSuiteEndLine()) {
+				continue;
+			}
+			return true;
+		}
+		return false;
+	}
+}
@@ -1,5 +1,6 @@
 package junitconverter.stages;
 
+import junitconverter.CodeEditor;
 import junitconverter.Visibility;
 import junitconverter.testcase.TestCaseClass;
 
@@ -9,12 +10,12 @@ import junitconverter.testcase.TestCaseClass;
  *
  * @author abyx
  */
-public class VisibilityAdaptionStage extends AbstractTestConversionStage {
+public class VisibilityAdaptionStage implements TestConversionStage {
 
 	/**
-	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass)
+	 * @see junitconverter.stages.TestConversionStage#convertClass(junitconverter.testcase.TestCaseClass, junitconverter.CodeEditor)
 	 */
-	public void convertClass(TestCaseClass testCase) {
+	public void convertClass(TestCaseClass testCase, CodeEditor codeEditor) {
 		if (testCase.getSetUpMethod() != null) {
 			codeEditor.changeVisiblity(
 					testCase, testCase.getSetUpMethod(), Visibility.PUBLIC);
@@ -0,0 +1,158 @@
+package junitconverter.testcase;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * The annotations of a class or method, as written in the source. The annotations the conversion knows about are
+ * kept as bits of a mask, so that checking for one of them is a bit test rather than a search through names. Any other
+ * annotation is kept by name. Sets are immutable.
+ */
+public class AnnotationSet
+{
+
+	/**
+	 * The annotations the conversion looks for, each one a bit of the mask.
+	 */
+	private enum Known
+	{
+		TEST(Test.class), BEFORE(Before.class), AFTER(After.class), BEFORE_CLASS(BeforeClass.class), AFTER_CLASS(
+				AfterClass.class), IGNORE(Ignore.class), OVERRIDE(Override.class), RUN_WITH(RunWith.class), SUITE_CLASSES(
+				SuiteClasses.class);
+
+		private final Class<? extends Annotation> annotation;
+
+		private Known(Class<? extends Annotation> annotation)
+		{
+			this.annotation = annotation;
+		}
+
+		public int bit()
+		{
+			return 1 << ordinal();
+		}
+	}
+
+	private static final Known[] KNOWN = Known.values();
+
+	/** The known annotations by simple name and by full name. */
+	private static final Map<String, Known> KNOWN_NAMES = new HashMap<String, Known>();
+	static
+	{
+		for (Known known : KNOWN)
+		{
+			KNOWN_NAMES.put(known.annotation.getSimpleName(), known);
+			KNOWN_NAMES.put(known.annotation.getName(), known);
+			KNOWN_NAMES.put(known.annotation.getName().replace('$', '.'), known);
+		}
+	}
+
+	public static final AnnotationSet EMPTY = new AnnotationSet(0, new String[0]);
+
+	private final int known;
+	/** The other annotations, in the order they were added. */
+	private final String[] others;
+
+	private AnnotationSet(int known, String[] others)
+	{
+		this.known = known;
+		this.others = others;
+	}
+
+	public static AnnotationSet of(List<String> names)
+	{
+		AnnotationSet set = EMPTY;
+		for (String name : names)
+		{
+			set = set.with(name);
+		}
+		return set;
+	}
+
+	/**
+	 * @param name
+	 *            The name of an annotation, simple or full.
+	 * @return This set with the annotation added.
+	 */
+	public AnnotationSet with(String name)
+	{
+		Known annotation = KNOWN_NAMES.get(name);
+		if (annotation != null)
+		{
+			return (known & annotation.bit()) != 0 ? this : new AnnotationSet(known | annotation.bit(), others);
+		}
+		String[] more = new String[others.length + 1];
+		System.arraycopy(others, 0, more, 0, others.length);
+		more[others.length] = name;
+		return new AnnotationSet(known, more);
+	}
+
+	/**
+	 * @return Whether the annotation is in the set, by simple or full name.
+	 */
+	public boolean contains(Class<? extends Annotation> annotation)
+	{
+		for (Known candidate : KNOWN)
+		{
+			if (candidate.annotation == annotation)
+			{
+				return (known & candidate.bit()) != 0;
+			}
+		}
+		for (String name : others)
+		{
+			if (name.equals(annotation.getSimpleName()) || name.equals(annotation.getName()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty()
+	{
+		return known == 0 && others.length == 0;
+	}
+
+	/**
+	 * @return The simple names of the known annotations of the set, followed by the names of the others as they were
+	 *         added.
+	 */
+	public List<String> getNames()
+	{
+		if (isEmpty())
+		{
+			return Collections.emptyList();
+		}
+		List<String> names = new ArrayList<String>();
+		for (Known candidate : KNOWN)
+		{
+			if ((known & candidate.bit()) != 0)
+			{
+				names.add(candidate.annotation.getSimpleName());
+			}
+		}
+		names.addAll(Arrays.asList(others));
+		return names;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getNames().toString();
+	}
+}
@@ -0,0 +1,324 @@
+package junitconverter.testcase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The import section of a class: where every import is, what it imports, and where new imports go. Lookups are
+ * constant time, so importing stages can check whether an import is needed before adding it.
+ * <p>
+ * The index is normally filled by the parser. For classes that weren't parsed, {@link #scan(List)} builds it from the
+ * lines of the class. An index that is shared, such as the one of cached facts, is handed out as an
+ * {@link #unmodifiable() unmodifiable} view.
+ */
+public class ImportIndex
+{
+
+	private static final String PACKAGE_PREFIX = "package "; //$NON-NLS-1$
+	private static final String IMPORT_PREFIX = "import "; //$NON-NLS-1$
+	private static final String STATIC_PREFIX = "static "; //$NON-NLS-1$
+	private static final String ON_DEMAND_SUFFIX = ".*"; //$NON-NLS-1$
+
+	/**
+	 * A single import declaration.
+	 */
+	public static class Entry
+	{
+
+		private final String name;
+		private final boolean isStatic;
+		private final boolean onDemand;
+		private final int line;
+
+		public Entry(String name, boolean isStatic, boolean onDemand, int line)
+		{
+			this.name = name;
+			this.isStatic = isStatic;
+			this.onDemand = onDemand;
+			this.line = line;
+		}
+
+		/**
+		 * @return The imported name, without the <code>.*</code> of on-demand imports.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		public boolean isStatic()
+		{
+			return isStatic;
+		}
+
+		public boolean isOnDemand()
+		{
+			return onDemand;
+		}
+
+		/**
+		 * @return The line of the declaration (first is zero).
+		 */
+		public int getLine()
+		{
+			return line;
+		}
+
+		@Override
+		public String toString()
+		{
+			return IMPORT_PREFIX + (isStatic ? STATIC_PREFIX : "") + name + (onDemand ? ON_DEMAND_SUFFIX : "") + ";";
+		}
+	}
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final Set<String> types = new HashSet<String>();
+	private final Set<String> packages = new HashSet<String>();
+	private final Set<String> staticMembers = new HashSet<String>();
+	private final Set<String> staticTypes = new HashSet<String>();
+	private int packageLine = -1;
+	private int firstImportLine = -1;
+
+	/**
+	 * Builds the index of a class that wasn't parsed, from the lines starting with <code>package</code> and
+	 * <code>import</code>.
+	 */
+	public static ImportIndex scan(List<? extends CharSequence> lines)
+	{
+		ImportIndex index = new ImportIndex();
+		for (int i = 0; i < lines.size(); i++)
+		{
+			CharSequence line = lines.get(i);
+			if (startsWith(line, IMPORT_PREFIX))
+			{
+				String name = line.toString().substring(IMPORT_PREFIX.length()).trim();
+				boolean isStatic = name.startsWith(STATIC_PREFIX);
+				if (isStatic)
+				{
+					name = name.substring(STATIC_PREFIX.length()).trim();
+				}
+				if (name.endsWith(";"))
+				{
+					name = name.substring(0, name.length() - 1).trim();
+				}
+				boolean onDemand = name.endsWith(ON_DEMAND_SUFFIX);
+				if (onDemand)
+				{
+					name = name.substring(0, name.length() - ON_DEMAND_SUFFIX.length());
+				}
+				index.addImport(name, isStatic, onDemand, i);
+			}
+			else if (startsWith(line, PACKAGE_PREFIX) && index.packageLine == -1)
+			{
+				index.setPackageLine(i);
+			}
+		}
+		return index;
+	}
+
+	private static boolean startsWith(CharSequence line, String prefix)
+	{
+		if (line.length() < prefix.length())
+		{
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++)
+		{
+			if (line.charAt(i) != prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param line
+	 *            The line of the package declaration (first is zero).
+	 */
+	public void setPackageLine(int line)
+	{
+		this.packageLine = line;
+	}
+
+	/**
+	 * @return The line of the package declaration (first is zero), -1 if there's none.
+	 */
+	public int getPackageLine()
+	{
+		return packageLine;
+	}
+
+	/**
+	 * Adds an import declaration of the class.
+	 *
+	 * @param name
+	 *            The imported name, without the <code>.*</code> of on-demand imports.
+	 * @param line
+	 *            The line of the declaration (first is zero).
+	 */
+	public void addImport(String name, boolean isStatic, boolean onDemand, int line)
+	{
+		entries.add(new Entry(name, isStatic, onDemand, line));
+		record(name, isStatic, onDemand);
+		if (firstImportLine == -1 || line < firstImportLine)
+		{
+			firstImportLine = line;
+		}
+	}
+
+	/**
+	 * @return A copy of the index, which can be changed without changing this one.
+	 */
+	public ImportIndex copy()
+	{
+		ImportIndex copy = new ImportIndex();
+		copy.entries.addAll(entries);
+		copy.types.addAll(types);
+		copy.packages.addAll(packages);
+		copy.staticMembers.addAll(staticMembers);
+		copy.staticTypes.addAll(staticTypes);
+		copy.packageLine = packageLine;
+		copy.firstImportLine = firstImportLine;
+		return copy;
+	}
+
+	/**
+	 * @return A view of the index that can't be changed, to share the index without copying it.
+	 */
+	public ImportIndex unmodifiable()
+	{
+		return this instanceof Unmodifiable ? this : new Unmodifiable(this);
+	}
+
+	/**
+	 * Records an import that has been added to the class during conversion, so that it isn't added again.
+	 */
+	public void record(String name, boolean isStatic, boolean onDemand)
+	{
+		if (isStatic)
+		{
+			(onDemand ? staticTypes : staticMembers).add(name);
+		}
+		else
+		{
+			(onDemand ? packages : types).add(name);
+		}
+	}
+
+	/**
+	 * @return The import declarations, in the order they appear in.
+	 */
+	public List<Entry> getEntries()
+	{
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return Where new imports go: where the first import is, else after the package declaration, else at the top.
+	 */
+	public int getInsertionLine()
+	{
+		if (firstImportLine != -1)
+		{
+			return firstImportLine;
+		}
+		return packageLine + 1;
+	}
+
+	/**
+	 * @param className
+	 *            The canonical name of a class, such as <code>org.junit.runners.Suite.SuiteClasses</code>.
+	 * @return Whether the class is imported, by name or on demand.
+	 */
+	public boolean isImported(String className)
+	{
+		if (types.contains(className))
+		{
+			return true;
+		}
+		int lastDot = className.lastIndexOf('.');
+		return lastDot != -1 && packages.contains(className.substring(0, lastDot));
+	}
+
+	/**
+	 * @param className
+	 *            The canonical name of a class.
+	 * @return Whether all of the static members of the class are imported.
+	 */
+	public boolean isStaticallyImported(String className)
+	{
+		return staticTypes.contains(className);
+	}
+
+	/**
+	 * A read-only view of another index, see {@link ImportIndex#unmodifiable()}.
+	 */
+	private static class Unmodifiable extends ImportIndex
+	{
+
+		private final ImportIndex index;
+
+		public Unmodifiable(ImportIndex index)
+		{
+			this.index = index;
+		}
+
+		@Override
+		public void setPackageLine(int line)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getPackageLine()
+		{
+			return index.getPackageLine();
+		}
+
+		@Override
+		public void addImport(String name, boolean isStatic, boolean onDemand, int line)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public ImportIndex copy()
+		{
+			return index.copy();
+		}
+
+		@Override
+		public void record(String name, boolean isStatic, boolean onDemand)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Entry> getEntries()
+		{
+			return index.getEntries();
+		}
+
+		@Override
+		public int getInsertionLine()
+		{
+			return index.getInsertionLine();
+		}
+
+		@Override
+		public boolean isImported(String className)
+		{
+			return index.isImported(className);
+		}
+
+		@Override
+		public boolean isStaticallyImported(String className)
+		{
+			return index.isStaticallyImported(className);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package junitconverter.testcase;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of line numbers, kept in an <code>int[]</code> so that lines are never boxed. Lines are usually added
+ * in order, as the parser finds them, which only appends to the array.
+ */
+public class LineSet
+{
+
+	private int[] lines;
+	private int size;
+
+	public LineSet()
+	{
+		this(new int[8], 0);
+	}
+
+	private LineSet(int[] lines, int size)
+	{
+		this.lines = lines;
+		this.size = size;
+	}
+
+	public static LineSet of(int... lines)
+	{
+		LineSet set = new LineSet();
+		for (int line : lines)
+		{
+			set.add(line);
+		}
+		return set;
+	}
+
+	/**
+	 * Adds a line, unless it's already there.
+	 */
+	public void add(int line)
+	{
+		int index = size == 0 || lines[size - 1] < line ? size : Arrays.binarySearch(lines, 0, size, line);
+		if (index >= 0 && index < size)
+		{
+			return;
+		}
+		if (index < 0)
+		{
+			index = -index - 1;
+		}
+		if (size == lines.length)
+		{
+			int[] grown = new int[size * 2];
+			System.arraycopy(lines, 0, grown, 0, size);
+			lines = grown;
+		}
+		System.arraycopy(lines, index, lines, index + 1, size - index);
+		lines[index] = line;
+		size++;
+	}
+
+	public boolean contains(int line)
+	{
+		return Arrays.binarySearch(lines, 0, size, line) >= 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return The index-th smallest line.
+	 */
+	public int get(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return lines[index];
+	}
+
+	/**
+	 * @return A copy of the set with every line moved by <code>delta</code>, such as -1 to count lines from zero
+	 *         rather than one.
+	 */
+	public LineSet shift(int delta)
+	{
+		int[] shifted = new int[Math.max(size, 1)];
+		for (int i = 0; i < size; i++)
+		{
+			shifted[i] = lines[i] + delta;
+		}
+		return new LineSet(shifted, size);
+	}
+
+	public int[] toArray()
+	{
+		int[] array = new int[size];
+		System.arraycopy(lines, 0, array, 0, size);
+		return array;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof LineSet))
+		{
+			return false;
+		}
+		LineSet other = (LineSet) obj;
+		if (size != other.size)
+		{
+			return false;
+		}
+		for (int i = 0; i < size; i++)
+		{
+			if (lines[i] != other.lines[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int hash = 1;
+		for (int i = 0; i < size; i++)
+		{
+			hash = 31 * hash + lines[i];
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString()
+	{
+		return Arrays.toString(toArray());
+	}
+}
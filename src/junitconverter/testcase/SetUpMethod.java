@@ -18,4 +18,8 @@ public class SetUpMethod extends TestCaseMethod {
 	public SetUpMethod(int methodLine, List<String> annotations) {
 		super(methodLine, annotations);
 	}
+
+	public SetUpMethod(int methodLine, AnnotationSet annotations) {
+		super(methodLine, annotations);
+	}
 }
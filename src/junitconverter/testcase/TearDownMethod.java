@@ -18,4 +18,8 @@ public class TearDownMethod extends TestCaseMethod {
 	public TearDownMethod(int methodLine, List<String> annotations) {
 		super(methodLine, annotations);
 	}
+
+	public TearDownMethod(int methodLine, AnnotationSet annotations) {
+		super(methodLine, annotations);
+	}
 }
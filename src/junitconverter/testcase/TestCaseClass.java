@@ -1,9 +1,9 @@
 package junitconverter.testcase;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
@@ -15,25 +15,31 @@ import junit.framework.TestCase;
 public class TestCaseClass
 {
 
-	private List<String> annotations;
+	private final AnnotationSet annotations;
 	private final List<TestMethod> testMethods;
 	private final SetUpMethod setUpMethod;
 	private final TearDownMethod tearDownMethod;
-	private final List<String> lines;
+	private final List<? extends CharSequence> lines;
 	private final String superName;
 	private int extendsLine;
-	private final List<Integer> superMethodInvocations = new ArrayList<Integer>();
-	private final List<Integer> superConstructorInvocations = new ArrayList<Integer>();
-	private final List<Integer> overrideAnnotationsLines = new ArrayList<Integer>();
+	private int extendsColumn = -1;
+	private int superEndLine;
+	private int superEndColumn = -1;
+	private LineSet superMethodInvocations = new LineSet();
+	private LineSet superConstructorInvocations = new LineSet();
+	private LineSet overrideAnnotationsLines = new LineSet();
 	private int suiteLine;
 	private int suiteEndLine;
 	private int typeLine;
+	private List<String> suiteClasses = Collections.emptyList();
+	private ImportIndex imports;
+	private Map<String, LineSet> references;
 
 	/**
 	 * @param lines
 	 *            The lines of code of this test case.
 	 */
-	public TestCaseClass(List<String> lines)
+	public TestCaseClass(List<? extends CharSequence> lines)
 	{
 		this(lines, null);
 	}
@@ -44,7 +50,7 @@ public class TestCaseClass
 	 * @param testMethods
 	 *            The test methods in this test case (null if none).
 	 */
-	public TestCaseClass(List<String> lines, List<TestMethod> testMethods)
+	public TestCaseClass(List<? extends CharSequence> lines, List<TestMethod> testMethods)
 	{
 		this(lines, null, testMethods);
 	}
@@ -57,15 +63,15 @@ public class TestCaseClass
 	 * @param testMethods
 	 *            The test methods in this test case (null if none).
 	 */
-	public TestCaseClass(List<String> lines, SetUpMethod setUpMethod, List<TestMethod> testMethods)
+	public TestCaseClass(List<? extends CharSequence> lines, SetUpMethod setUpMethod, List<TestMethod> testMethods)
 	{
-		this(lines, setUpMethod, null, testMethods, null, Collections.<String> emptyList());
+		this(lines, setUpMethod, null, testMethods, null, AnnotationSet.EMPTY);
 	}
 
-	public TestCaseClass(List<String> lines, SetUpMethod setUpMethod, TearDownMethod tearDownMethod,
+	public TestCaseClass(List<? extends CharSequence> lines, SetUpMethod setUpMethod, TearDownMethod tearDownMethod,
 			List<TestMethod> testMethods, String superName)
 	{
-		this(lines, setUpMethod, tearDownMethod, testMethods, superName, Collections.<String> emptyList());
+		this(lines, setUpMethod, tearDownMethod, testMethods, superName, AnnotationSet.EMPTY);
 	}
 
 	/**
@@ -80,8 +86,28 @@ public class TestCaseClass
 	 * @param superName
 	 *            The name of the super class, as seen in the extends clause (null if none).
 	 */
-	public TestCaseClass(List<String> lines, SetUpMethod setUpMethod, TearDownMethod tearDownMethod,
+	public TestCaseClass(List<? extends CharSequence> lines, SetUpMethod setUpMethod, TearDownMethod tearDownMethod,
 			List<TestMethod> testMethods, String superName, List<String> annotations)
+	{
+		this(lines, setUpMethod, tearDownMethod, testMethods, superName, AnnotationSet.of(annotations));
+	}
+
+	/**
+	 * @param lines
+	 *            The lines of code of this test case.
+	 * @param setUpMethod
+	 *            The set up method of this test case (null if none).
+	 * @param tearDownMethod
+	 *            The tear down method of this test case (null if none).
+	 * @param testMethods
+	 *            The test methods in this test case (null if none).
+	 * @param superName
+	 *            The name of the super class, as seen in the extends clause (null if none).
+	 * @param annotations
+	 *            The annotations of the class.
+	 */
+	public TestCaseClass(List<? extends CharSequence> lines, SetUpMethod setUpMethod, TearDownMethod tearDownMethod,
+			List<TestMethod> testMethods, String superName, AnnotationSet annotations)
 	{
 		this.lines = lines;
 		this.setUpMethod = setUpMethod;
@@ -106,7 +132,10 @@ public class TestCaseClass
 		return tearDownMethod;
 	}
 
-	public List<String> getLines()
+	/**
+	 * @return The lines of code of this test case, which may be views over the source rather than strings.
+	 */
+	public List<? extends CharSequence> getLines()
 	{
 		return lines;
 	}
@@ -116,6 +145,14 @@ public class TestCaseClass
 		return superName;
 	}
 
+	/**
+	 * @return Whether the class extends {@link TestCase} itself, by simple or full name.
+	 */
+	public boolean extendsTestCase()
+	{
+		return TestCase.class.getSimpleName().equals(superName) || TestCase.class.getName().equals(superName);
+	}
+
 	public int getExtendsLine()
 	{
 		return extendsLine;
@@ -126,51 +163,102 @@ public class TestCaseClass
 		this.extendsLine = extendsLine - 1;
 	}
 
-	public List<Integer> getSuperMethodInvocations()
+	/**
+	 * Sets the exact position of the extends clause, from the <code>extends</code> keyword to the end of the super
+	 * class.
+	 * 
+	 * @param line
+	 *            The line of the <code>extends</code> keyword (first is one).
+	 * @param column
+	 *            Where the keyword starts in its line (first is zero).
+	 * @param endLine
+	 *            The line where the super class ends (first is one).
+	 * @param endColumn
+	 *            Where the super class ends in its line, exclusive.
+	 */
+	public void setExtendsClause(int line, int column, int endLine, int endColumn)
+	{
+		setExtendsLine(line);
+		this.extendsColumn = column;
+		this.superEndLine = endLine - 1;
+		this.superEndColumn = endColumn;
+	}
+
+	/**
+	 * @return Where the <code>extends</code> keyword starts in its line, -1 if unknown.
+	 */
+	public int getExtendsColumn()
+	{
+		return extendsColumn;
+	}
+
+	public int getSuperEndLine()
+	{
+		return superEndLine;
+	}
+
+	/**
+	 * @return Where the super class ends in its line (exclusive), -1 if unknown.
+	 */
+	public int getSuperEndColumn()
+	{
+		return superEndColumn;
+	}
+
+	/**
+	 * @return The lines (first is zero) of the super method invocations.
+	 */
+	public LineSet getSuperMethodInvocations()
 	{
 		return superMethodInvocations;
 	}
 
-	public void setSuperMethodInvocations(List<Integer> superMethodInvocations)
+	/**
+	 * @param superMethodInvocations
+	 *            The lines (first is one) of the super method invocations.
+	 */
+	public void setSuperMethodInvocations(LineSet superMethodInvocations)
 	{
-		this.superMethodInvocations.clear();
-		for (int line : superMethodInvocations)
-		{
-			this.superMethodInvocations.add(line - 1);
-		}
+		this.superMethodInvocations = superMethodInvocations.shift(-1);
 	}
 
-	public List<Integer> getSuperConstructorInvocations()
+	/**
+	 * @return The lines (first is zero) of the super constructor invocations.
+	 */
+	public LineSet getSuperConstructorInvocations()
 	{
 		return superConstructorInvocations;
 	}
 
-	public void setSuperConstructorInvocations(List<Integer> superConstructorInvocations)
+	/**
+	 * @param superConstructorInvocations
+	 *            The lines (first is one) of the super constructor invocations.
+	 */
+	public void setSuperConstructorInvocations(LineSet superConstructorInvocations)
 	{
-		this.superConstructorInvocations.clear();
-		for (int line : superConstructorInvocations)
-		{
-			this.superConstructorInvocations.add(line - 1);
-		}
+		this.superConstructorInvocations = superConstructorInvocations.shift(-1);
 	}
 
-	public List<Integer> getOverrideAnnotationsLines()
+	/**
+	 * @return The lines (first is zero) of the <code>@Override</code> annotations.
+	 */
+	public LineSet getOverrideAnnotationsLines()
 	{
 		return overrideAnnotationsLines;
 	}
 
-	public void setOverrideAnnotationsLines(List<Integer> overrideAnnotationsLines)
+	/**
+	 * @param overrideAnnotationsLines
+	 *            The lines (first is one) of the <code>@Override</code> annotations.
+	 */
+	public void setOverrideAnnotationsLines(LineSet overrideAnnotationsLines)
 	{
-		this.overrideAnnotationsLines.clear();
-		for (int line : overrideAnnotationsLines)
-		{
-			this.overrideAnnotationsLines.add(line - 1);
-		}
+		this.overrideAnnotationsLines = overrideAnnotationsLines.shift(-1);
 	}
 
 	public boolean hasAnnotation(Class<? extends Annotation> annotation)
 	{
-		return annotations.contains(annotation.getSimpleName()) || annotations.contains(annotation.getName());
+		return annotations.contains(annotation);
 	}
 
 	public void setSuiteLine(int startLine, int endLine)
@@ -191,11 +279,55 @@ public class TestCaseClass
 
 	public void setTypeLine(int line)
 	{
-		this.typeLine = line;
+		this.typeLine = line - 1;
 	}
 
 	public int getTypeLine()
 	{
 		return this.typeLine;
 	}
+
+	/**
+	 * @return The import section of the class, built from its lines if the parser didn't provide it.
+	 */
+	public ImportIndex getImports()
+	{
+		if (imports == null)
+		{
+			imports = ImportIndex.scan(lines);
+		}
+		return imports;
+	}
+
+	public void setImports(ImportIndex imports)
+	{
+		this.imports = imports;
+	}
+
+	/**
+	 * @return The lines (first is zero) where each identifier is used outside of the import declarations, null if the
+	 *         class wasn't parsed.
+	 */
+	public Map<String, LineSet> getReferences()
+	{
+		return references;
+	}
+
+	public void setReferences(Map<String, LineSet> references)
+	{
+		this.references = references;
+	}
+
+	/**
+	 * @return The names of the classes added to the suite, as written in the suite() method.
+	 */
+	public List<String> getSuiteClasses()
+	{
+		return suiteClasses;
+	}
+
+	public void setSuiteClasses(List<String> suiteClasses)
+	{
+		this.suiteClasses = suiteClasses;
+	}
 }
@@ -1,7 +1,6 @@
 package junitconverter.testcase;
 
 import java.lang.annotation.Annotation;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -12,13 +11,19 @@ import java.util.List;
 public class TestCaseMethod {
 
 	protected final int methodLine;
-	private List<String> annotations;
+	private final AnnotationSet annotations;
+	private int visibilityLine = -1;
+	private int visibilityColumn = -1;
 
 	public TestCaseMethod(int methodLine) {
-		this(methodLine, Collections.<String>emptyList());
+		this(methodLine, AnnotationSet.EMPTY);
 	}
 
 	public TestCaseMethod(int methodLine, List<String> annotations) {
+		this(methodLine, AnnotationSet.of(annotations));
+	}
+
+	public TestCaseMethod(int methodLine, AnnotationSet annotations) {
 		this.methodLine = methodLine - 1;
 		this.annotations = annotations;
 	}
@@ -30,9 +35,32 @@ public class TestCaseMethod {
 		return methodLine;
 	}
 
+	/**
+	 * @param line The line of the visibility modifier (first is one).
+	 * @param column Where the modifier starts in its line (first is zero).
+	 */
+	public void setVisibilityPosition(int line, int column) {
+		this.visibilityLine = line - 1;
+		this.visibilityColumn = column;
+	}
+
+	/**
+	 * @return The line of the visibility modifier, -1 if unknown.
+	 */
+	public int getVisibilityLine() {
+		return visibilityLine;
+	}
+
+	/**
+	 * @return Where the visibility modifier starts in its line, -1 if
+	 *         unknown.
+	 */
+	public int getVisibilityColumn() {
+		return visibilityColumn;
+	}
+
 	public boolean hasAnnotation(Class<? extends Annotation> annotation) {
-		return annotations.contains(annotation.getSimpleName())
-			|| annotations.contains(annotation.getName());
+		return annotations.contains(annotation);
 	}
 
 }
@@ -1,15 +1,18 @@
 package junitconverter.testcase;
 
-import java.util.Collections;
 import java.util.List;
 
 public class TestMethod extends TestCaseMethod {
 
 	public TestMethod(int methodLine) {
-		this(methodLine, Collections.<String>emptyList());
+		this(methodLine, AnnotationSet.EMPTY);
 	}
 
 	public TestMethod(int methodLine, List<String> annotations) {
 		super(methodLine, annotations);
 	}
+
+	public TestMethod(int methodLine, AnnotationSet annotations) {
+		super(methodLine, annotations);
+	}
 }
@@ -17,7 +17,14 @@ import tests.junitconverter.stages.*;
 	TestMethodsAnnotationStageTest.class, SimpleCodeEditorTest.class,
 	VisibilityAdaptionStageTest.class, AssertImportingStageTest.class,
 	SuperRemovingStageTest.class, JavaParserTest.class,
-	SimpleClassWriterTest.class })
+	SimpleClassWriterTest.class, BatchConverterTest.class,
+	SourceBufferTest.class, ByteCharStreamTest.class, JavaLexerTest.class,
+	CandidateFilterTest.class, TypeHierarchyIndexTest.class,
+	ConversionManifestTest.class, EditPlanTest.class,
+	UnusedImportsRemovingStageTest.class,
+	LineTableTest.class, LineSetTest.class, AnnotationSetTest.class,
+	ClassFactsTest.class, FactsCacheTest.class, OutlineScannerTest.class,
+	MemoizingParserTest.class })
 public class AllTests {
 	// Blank
 }
@@ -0,0 +1,39 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import junitconverter.testcase.AnnotationSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * Tests the {@link AnnotationSet} class.
+ */
+public class AnnotationSetTest {
+
+	@Test
+	public void findsKnownAnnotations() {
+		AnnotationSet annotations = AnnotationSet.EMPTY.with("Test")
+				.with("org.junit.runners.Suite.SuiteClasses");
+		assertTrue(annotations.contains(Test.class));
+		assertTrue(annotations.contains(SuiteClasses.class));
+		assertFalse(annotations.contains(Before.class));
+		assertFalse(AnnotationSet.EMPTY.contains(Test.class));
+	}
+
+	@Test
+	public void findsOtherAnnotationsByName() {
+		AnnotationSet annotations = AnnotationSet.of(Arrays.asList(
+				"Deprecated", "org.junit.runner.RunWith"));
+		assertTrue(annotations.contains(Deprecated.class));
+		assertTrue(annotations.contains(RunWith.class));
+		assertFalse(annotations.contains(SuppressWarnings.class));
+		assertEquals(Arrays.asList("RunWith", "Deprecated"),
+				annotations.getNames());
+	}
+}
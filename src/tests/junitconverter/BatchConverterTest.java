@@ -0,0 +1,214 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import junitconverter.BatchConverter;
+import junitconverter.CandidateFilter;
+import junitconverter.ConversionReport;
+import junitconverter.ConversionResult;
+import junitconverter.ConversionResult.Outcome;
+import junitconverter.ParseBudget;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the {@link BatchConverter} class.
+ */
+public class BatchConverterTest {
+
+	private final List<File> files = new ArrayList<File>();
+
+	/* --- Tests Organization --- */
+
+	@After
+	public void tearDown() {
+		for (File file : files) {
+			file.delete();
+		}
+	}
+
+	/* --- Tests --- */
+
+	@Test
+	public void reportsResultsInInputOrder() throws Exception {
+		List<File> input = new ArrayList<File>();
+		for (int i = 0; i < 20; i++) {
+			if (i % 2 == 0) {
+				input.add(createFile("public class MyTest" + i + " extends TestCase {\n"
+						+ "public void testThat() {}\n"
+						+ "}\n"));
+			} else {
+				input.add(createFile("public class NotATest" + i + " {}\n"));
+			}
+		}
+
+		ConversionReport report = new BatchConverter(4).convert(input);
+
+		assertEquals(input.size(), report.getResults().size());
+		for (int i = 0; i < input.size(); i++) {
+			ConversionResult result = report.getResults().get(i);
+			assertEquals(input.get(i), result.getFile());
+			assertEquals(i % 2 == 0 ? Outcome.CONVERTED : Outcome.NOT_A_TEST,
+					result.getOutcome());
+		}
+	}
+
+	@Test
+	public void sameReportWhateverTheNumberOfWorkers() throws Exception {
+		List<File> input = new ArrayList<File>();
+		for (int i = 0; i < 10; i++) {
+			input.add(createFile("public class NotATest" + i + " {}\n"));
+		}
+		input.add(3, new File("does-not-exist.java"));
+
+		assertEquals(
+				new BatchConverter(1).convert(input).getResults().toString(),
+				new BatchConverter(8).convert(input).getResults().toString());
+	}
+
+	@Test
+	public void failureDoesNotAffectOtherFiles() throws Exception {
+		File missing = new File("does-not-exist.java");
+		File test = createFile("public class MyTest extends TestCase {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+
+		ConversionReport report =
+			new BatchConverter(2).convert(Arrays.asList(missing, test));
+
+		assertEquals(Outcome.FAILED, report.getResults().get(0).getOutcome());
+		assertNotNull(report.getResults().get(0).getReason());
+		assertEquals(Outcome.CONVERTED, report.getResults().get(1).getOutcome());
+		assertEquals(1, report.count(Outcome.FAILED));
+		assertEquals(1, report.count(Outcome.CONVERTED));
+	}
+
+	@Test
+	public void convertsIndirectTestCases() throws Exception {
+		File base = createFile("package a;\n"
+				+ "public abstract class AbstractDbTest extends junit.framework.TestCase {}\n");
+		File test = createFile("package a;\n"
+				+ "public class MyTest extends AbstractDbTest {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+
+		BatchConverter batchConverter = new BatchConverter(2);
+		batchConverter.setCandidateFilter(new CandidateFilter());
+		ConversionReport report = batchConverter.convert(Arrays.asList(base, test));
+
+		assertEquals(Outcome.CONVERTED, report.getResults().get(0).getOutcome());
+		assertEquals(Outcome.CONVERTED, report.getResults().get(1).getOutcome());
+	}
+
+	@Test
+	public void scansFilesOverTheParseBudget() throws Exception {
+		// The cast has the parser backtrack, even in outline mode
+		File overBudget = createFile("public class MyTest extends TestCase {\n"
+				+ "int x = (int) (a + b);\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+		File unscannable = createFile("public class OtherTest extends TestCase {\n"
+				+ "int x = (int) (a + b);\n"
+				+ "public void testThat() }} }\n");
+
+		BatchConverter batchConverter = new BatchConverter(2);
+		ParseBudget budget = new ParseBudget(1, 0);
+		batchConverter.setBudget(budget);
+		ConversionReport report = batchConverter.convert(Arrays.asList(overBudget, unscannable));
+
+		assertEquals(Outcome.CONVERTED, report.getResults().get(0).getOutcome());
+		assertEquals(Outcome.OVER_BUDGET, report.getResults().get(1).getOutcome());
+		assertNotNull(report.getResults().get(1).getReason());
+		assertEquals(1, budget.getFallbacks());
+	}
+
+	@Test
+	public void skipsFilesWithSyntaxErrorsWhenFailingFast() throws Exception {
+		String source = "public class MyTest extends TestCase {\n"
+				+ "Runnable r = () -> {};\n"
+				+ "public void testThat() {}\n"
+				+ "}\n";
+		File recovered = createFile(source);
+		File skipped = createFile(source);
+
+		ConversionReport report = new BatchConverter(1).convert(Arrays.asList(recovered));
+		assertEquals(Outcome.CONVERTED, report.getResults().get(0).getOutcome());
+
+		BatchConverter batchConverter = new BatchConverter(1);
+		batchConverter.setFailFast(true);
+		report = batchConverter.convert(Arrays.asList(skipped));
+		assertEquals(Outcome.SYNTAX_ERROR, report.getResults().get(0).getOutcome());
+		assertTrue(report.getResults().get(0).getReason().startsWith("line 2:"));
+		assertEquals(source, read(skipped));
+	}
+
+	@Test
+	public void keepsSuperCallsInCreatorArguments() throws Exception {
+		String method = "public String toString() {\n"
+				+ "StringBuilder b = new StringBuilder(super.toString());\n"
+				+ "return b.toString();\n"
+				+ "}\n";
+		File outline = createFile("public class MyTest extends TestCase {\n" + method + "}\n");
+		File full = createFile("public class MyTest extends TestCase {\n" + method + "}\n");
+
+		new BatchConverter(1).convert(Arrays.asList(outline));
+		BatchConverter batchConverter = new BatchConverter(1);
+		batchConverter.setOutline(false);
+		batchConverter.convert(Arrays.asList(full));
+
+		assertTrue(read(outline).contains(method));
+		assertEquals(read(full), read(outline));
+	}
+
+	@Test
+	public void convertsMappedFilesInPlace() throws Exception {
+		// Big enough for the source to be memory-mapped rather than read
+		StringBuilder padding = new StringBuilder();
+		while (padding.length() < 600 * 1024) {
+			padding.append("// Keeps the source above the mapping threshold\n");
+		}
+		File test = createFile("public class MyTest extends TestCase {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n"
+				+ padding);
+
+		ConversionReport report = new BatchConverter(1).convert(Arrays.asList(test));
+
+		assertEquals(Outcome.CONVERTED, report.getResults().get(0).getOutcome());
+		String converted = read(test);
+		assertTrue(converted.contains("@Test\npublic void testThat() {}\n"));
+		assertTrue(converted.endsWith("}\n" + padding));
+	}
+
+	/* --- Helper Methods --- */
+
+	private File createFile(String contents) throws IOException {
+		File file = File.createTempFile("BatchConverterTest", ".java");
+		files.add(file);
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(contents);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private String read(File file) throws IOException {
+		StringBuilder contents = new StringBuilder();
+		Reader reader = new FileReader(file);
+		try {
+			char[] buffer = new char[1024];
+			for (int read; (read = reader.read(buffer)) != -1;) {
+				contents.append(buffer, 0, read);
+			}
+		} finally {
+			reader.close();
+		}
+		return contents.toString();
+	}
+}
@@ -0,0 +1,100 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import junitconverter.ByteCharStream;
+import junitconverter.JavaLexer;
+
+import org.antlr.runtime.*;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ByteCharStream} class against {@link ANTLRStringStream}.
+ */
+public class ByteCharStreamTest {
+
+	private static final String SOURCE = "package a;\n\npublic class A {\r\n"
+			+ "  // Comment\n  int x = 0x1F;\n}\n";
+
+	@Test
+	public void readsLikeStringStream() throws Exception {
+		CharStream expected = new ANTLRStringStream(SOURCE);
+		CharStream actual = byteStream(SOURCE);
+
+		assertEquals(expected.size(), actual.size());
+		while (expected.LA(1) != CharStream.EOF) {
+			assertState(expected, actual);
+			expected.consume();
+			actual.consume();
+		}
+		assertState(expected, actual);
+		assertEquals(CharStream.EOF, actual.LA(1));
+		assertEquals(expected.LA(-1), actual.LA(-1));
+	}
+
+	@Test
+	public void rewindsToMarks() throws Exception {
+		CharStream stream = byteStream(SOURCE);
+		for (int i = 0; i < 5; i++) {
+			stream.consume();
+		}
+		int marker = stream.mark();
+		for (int i = 0; i < 20; i++) {
+			stream.consume();
+		}
+		stream.rewind(marker);
+		assertEquals(5, stream.index());
+		assertEquals(1, stream.getLine());
+		assertEquals(5, stream.getCharPositionInLine());
+		assertEquals((int) 'g', stream.LA(1));
+	}
+
+	@Test
+	public void substringIsInclusive() throws Exception {
+		assertEquals("package", byteStream(SOURCE).substring(0, 6));
+	}
+
+	@Test
+	public void widensLatin1Bytes() throws Exception {
+		CharStream stream = new ByteCharStream(
+				ByteBuffer.wrap(new byte[] { 'a', (byte) 0xe9 }));
+		stream.consume();
+		assertEquals(0xe9, stream.LA(1));
+		assertEquals("a\u00e9", stream.substring(0, 1));
+	}
+
+	@Test
+	public void lexesSameTokens() throws Exception {
+		List<String> expected = tokens(new ANTLRStringStream(SOURCE));
+		assertEquals(expected, tokens(byteStream(SOURCE)));
+	}
+
+	/* --- Helper Methods --- */
+
+	private void assertState(CharStream expected, CharStream actual) {
+		assertEquals(expected.index(), actual.index());
+		assertEquals(expected.LA(1), actual.LA(1));
+		assertEquals(expected.LA(2), actual.LA(2));
+		assertEquals(expected.getLine(), actual.getLine());
+		assertEquals(expected.getCharPositionInLine(),
+				actual.getCharPositionInLine());
+	}
+
+	private List<String> tokens(CharStream stream) {
+		List<String> tokens = new ArrayList<String>();
+		JavaLexer lexer = new JavaLexer(stream);
+		for (Token token = lexer.nextToken(); token.getType() != Token.EOF;
+				token = lexer.nextToken()) {
+			tokens.add(token.getType() + ":" + token.getText() + "@"
+					+ token.getLine() + ":" + token.getCharPositionInLine());
+		}
+		return tokens;
+	}
+
+	private CharStream byteStream(String source) throws Exception {
+		return new ByteCharStream(ByteBuffer.wrap(source.getBytes("US-ASCII")));
+	}
+}
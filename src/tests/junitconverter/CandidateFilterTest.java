@@ -0,0 +1,79 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import junitconverter.CandidateFilter;
+import junitconverter.MarkerMatcher;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link CandidateFilter} and {@link MarkerMatcher} classes.
+ */
+public class CandidateFilterTest {
+
+	private final CandidateFilter filter = new CandidateFilter();
+
+	@Test
+	public void acceptsTestCases() throws Exception {
+		assertTrue(filter.isCandidate(bytes(
+				"public class MyTest extends TestCase {}")));
+		assertTrue(filter.isCandidate(bytes(
+				"public class MyTest\n\textends junit.framework.TestCase {}")));
+	}
+
+	@Test
+	public void acceptsSuites() throws Exception {
+		assertTrue(filter.isCandidate(bytes(
+				"public class AllTests {\n"
+				+ "public static Test suite() { return null; }}")));
+	}
+
+	@Test
+	public void rejectsOtherClasses() throws Exception {
+		assertFalse(filter.isCandidate(bytes("public class A {}")));
+		assertFalse(filter.isCandidate(bytes(
+				"public class A extends Object { void testThat() {} }")));
+		// Mentioning TestCase isn't enough without an extends clause
+		assertFalse(filter.isCandidate(bytes(
+				"public class A { TestCase test; }")));
+	}
+
+	@Test
+	public void acceptsKnownBaseClasses() throws Exception {
+		String source = "public class MyTest extends AbstractDbTest {}";
+		assertFalse(filter.isCandidate(bytes(source)));
+		assertTrue(new CandidateFilter(Arrays.asList("AbstractDbTest"))
+				.isCandidate(bytes(source)));
+	}
+
+	@Test
+	public void findsOverlappingMarkers() throws Exception {
+		MarkerMatcher matcher = new MarkerMatcher("he", "she", "his", "hers");
+		int found = matcher.scan(bytes("ushers"));
+		assertEquals(matcher.maskOf("he") | matcher.maskOf("she")
+				| matcher.maskOf("hers"), found);
+		assertEquals(0, matcher.scan(bytes("hi")));
+	}
+
+	@Test
+	public void scansFromPositionToLimit() throws Exception {
+		MarkerMatcher matcher = new MarkerMatcher("abc");
+		ByteBuffer buffer = bytes("xabcx");
+		buffer.limit(3);
+		assertEquals(0, matcher.scan(buffer));
+		buffer.limit(4);
+		assertEquals(matcher.maskOf("abc"), matcher.scan(buffer));
+		buffer.position(2);
+		assertEquals(0, matcher.scan(buffer));
+	}
+
+	/* --- Helper Methods --- */
+
+	private ByteBuffer bytes(String source) throws Exception {
+		return ByteBuffer.wrap(source.getBytes("US-ASCII"));
+	}
+}
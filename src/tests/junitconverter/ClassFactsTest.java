@@ -0,0 +1,99 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import junitconverter.ClassFacts;
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.ClassFacts.MethodFacts;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ClassFacts} class.
+ */
+public class ClassFactsTest {
+
+	private ClassFacts facts;
+
+	/* --- Tests Organization --- */
+
+	@Before
+	public void setUp() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(
+				new JavaLexer(new ANTLRStringStream(
+						"package a;\n" +
+						"import junit.framework.*;\n" +
+						"public class MyTest extends TestCase {\n" +
+						"  protected void setUp() {\n" +
+						"    super.setUp();\n" +
+						"  }\n" +
+						"  @Test\n" +
+						"  public void testThat() {}\n" +
+						"  void helper() {}\n" +
+						"  public static junit.framework.Test suite() {\n" +
+						"    TestSuite suite = new TestSuite();\n" +
+						"    suite.addTestSuite(MyTest.class);\n" +
+						"    return suite;\n" +
+						"  }\n" +
+						"}"))));
+		parser.compilationUnit();
+		facts = new ClassFacts(parser);
+	}
+
+	/* --- Tests --- */
+
+	@Test
+	public void describesTheClass() {
+		assertEquals("a.MyTest", facts.getFullName());
+		assertEquals(3, facts.getTypeLine());
+		assertNotNull(facts.getAnnotations());
+		assertEquals("TestCase", facts.getSuperName());
+		assertEquals(3, facts.getExtendsLine());
+		assertEquals(20, facts.getExtendsPos());
+		assertEquals(36, facts.getSuperEndPos());
+		assertEquals(LineSet.of(5), facts.getSuperMethodInvocations());
+		assertEquals(Arrays.asList("MyTest"), facts.getSuiteClasses());
+		assertEquals(1, facts.getImports().getInsertionLine());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void importsCantBeChanged() {
+		facts.getImports().record("org.junit.Test", false, false);
+	}
+
+	@Test
+	public void importsCanBeCopiedToBeChanged() {
+		ImportIndex imports = facts.getImports().copy();
+		imports.record("org.junit.Test", false, false);
+
+		assertTrue(imports.isImported("org.junit.Test"));
+		assertFalse(facts.getImports().isImported("org.junit.Test"));
+	}
+
+	@Test
+	public void describesMethodsInOrder() {
+		assertEquals(Arrays.asList("setUp", "testThat", "helper", "suite"),
+				new ArrayList<String>(facts.getMethods().keySet()));
+
+		MethodFacts setUp = facts.getMethod("setUp");
+		assertEquals(4, setUp.getLine());
+		assertEquals("protected", setUp.getVisibility());
+		assertEquals(4, setUp.getVisibilityLine());
+		assertEquals(2, setUp.getVisibilityPos());
+
+		MethodFacts testThat = facts.getMethod("testThat");
+		assertTrue(testThat.getAnnotations().contains(Test.class));
+
+		MethodFacts helper = facts.getMethod("helper");
+		assertEquals("", helper.getVisibility());
+		assertEquals(-1, helper.getVisibilityPos());
+	}
+}
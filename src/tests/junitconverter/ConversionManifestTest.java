@@ -0,0 +1,154 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import junitconverter.BatchConverter;
+import junitconverter.ConversionManifest;
+import junitconverter.ConversionReport;
+import junitconverter.ConversionResult.Outcome;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ConversionManifest} class and incremental runs of the
+ * {@link BatchConverter}.
+ */
+public class ConversionManifestTest {
+
+	private File root;
+
+	/* --- Tests Organization --- */
+
+	@Before
+	public void setUp() throws Exception {
+		root = File.createTempFile("ConversionManifestTest", "");
+		root.delete();
+		root.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : root.listFiles()) {
+			file.delete();
+		}
+		root.delete();
+	}
+
+	/* --- Tests --- */
+
+	@Test
+	public void savesAndLoads() throws Exception {
+		File file = new File(root, "A.java");
+		ConversionManifest manifest = new ConversionManifest(root);
+		manifest.setConfiguration("1", "config");
+		manifest.update(file, "abc");
+		manifest.save();
+
+		ConversionManifest loaded = ConversionManifest.load(root);
+		loaded.setConfiguration("1", "config");
+		assertTrue(loaded.isUnchanged(file, "abc"));
+		assertFalse(loaded.isUnchanged(file, "abd"));
+		assertFalse(loaded.isUnchanged(new File(root, "B.java"), "abc"));
+
+		manifest.update(file, "abd");
+		manifest.save();
+		loaded = ConversionManifest.load(root);
+		loaded.setConfiguration("1", "config");
+		assertTrue(loaded.isUnchanged(file, "abd"));
+		assertEquals(Arrays.asList(ConversionManifest.FILENAME), Arrays.asList(root.list()));
+	}
+
+	@Test
+	public void forgetsFilesThatWerentPartOfTheRun() throws Exception {
+		File test = createFile("MyTest.java", "public class MyTest extends TestCase {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+		File other = createFile("Other.java", "public class Other {}\n");
+		runIncrementally(test, other);
+
+		other.delete();
+		runIncrementally(test);
+
+		ConversionManifest loaded = ConversionManifest.load(root);
+		assertEquals(1, loaded.size());
+	}
+
+	@Test
+	public void forgetsEverythingOnNewConfiguration() throws Exception {
+		ConversionManifest manifest = new ConversionManifest(root);
+		manifest.setConfiguration("1", "config");
+		manifest.update(new File(root, "A.java"), "abc");
+		manifest.save();
+
+		ConversionManifest loaded = ConversionManifest.load(root);
+		loaded.setConfiguration("2", "config");
+		assertEquals(0, loaded.size());
+		loaded = ConversionManifest.load(root);
+		loaded.setConfiguration("1", "other config");
+		assertEquals(0, loaded.size());
+	}
+
+	@Test
+	public void skipsUnchangedFiles() throws Exception {
+		File test = createFile("MyTest.java", "public class MyTest extends TestCase {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+		File other = createFile("Other.java", "public class Other {}\n");
+
+		ConversionReport report = runIncrementally(test, other);
+		assertEquals(Outcome.CONVERTED, report.getResults().get(0).getOutcome());
+		assertEquals(Outcome.NOT_A_TEST, report.getResults().get(1).getOutcome());
+
+		report = runIncrementally(test, other);
+		assertEquals(2, report.count(Outcome.UNCHANGED));
+
+		createFile("Other.java", "public class Other extends TestCase {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+		report = runIncrementally(test, other);
+		assertEquals(Outcome.UNCHANGED, report.getResults().get(0).getOutcome());
+		assertEquals(Outcome.CONVERTED, report.getResults().get(1).getOutcome());
+	}
+
+	@Test
+	public void convertsFilesWhoseBaseClassBecameATestCase() throws Exception {
+		File base = createFile("Base.java", "public abstract class Base {}\n");
+		File test = createFile("MyTest.java", "public class MyTest extends Base {\n"
+				+ "public void testThat() {}\n"
+				+ "}\n");
+
+		ConversionReport report = runIncrementally(base, test);
+		assertEquals(2, report.count(Outcome.NOT_A_TEST));
+
+		createFile("Base.java", "public abstract class Base extends TestCase {}\n");
+		report = runIncrementally(base, test);
+		assertEquals(2, report.count(Outcome.CONVERTED));
+	}
+
+	/* --- Helper Methods --- */
+
+	private ConversionReport runIncrementally(File... files) throws Exception {
+		ConversionManifest manifest = ConversionManifest.load(root);
+		BatchConverter batchConverter = new BatchConverter(2);
+		batchConverter.setManifest(manifest);
+		ConversionReport report = batchConverter.convert(Arrays.asList(files));
+		manifest.save();
+		return report;
+	}
+
+	private File createFile(String name, String contents) throws IOException {
+		File file = new File(root, name);
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(contents);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+}
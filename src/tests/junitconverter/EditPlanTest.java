@@ -0,0 +1,130 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.*;
+
+import junitconverter.Edit;
+import junitconverter.EditPlan;
+import junitconverter.SimpleClassWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link EditPlan} class against the {@link SimpleClassWriter}.
+ */
+public class EditPlanTest {
+
+	private final Random rand = new Random();
+
+	@Test
+	public void recordsEditsWithoutApplyingThem() throws Exception {
+		List<String> lines = Arrays.asList("a", "b", "c");
+		EditPlan plan = new EditPlan(lines);
+		plan.replaceLine(2, "C");
+		plan.insertLine(1, "1");
+		plan.insertLine(1, "2");
+
+		List<Edit> edits = plan.getEdits();
+		assertEquals(3, edits.size());
+		assertEquals("1", edits.get(0).getText());
+		assertEquals("2", edits.get(1).getText());
+		assertEquals(Edit.Kind.REPLACE, edits.get(2).getKind());
+		assertEquals(Arrays.asList("a", "b", "c"), lines);
+
+		assertEquals(Arrays.asList("a", "2", "1", "b", "C"), plan.result());
+	}
+
+	@Test
+	public void sameResultAsSimpleWriter() throws Exception {
+		for (int run = 0; run < 20; run++) {
+			List<String> lines = new ArrayList<String>();
+			int lineCount = rand.nextInt(20) + 1;
+			for (int i = 0; i < lineCount; i++) {
+				lines.add("line " + i);
+			}
+			EditPlan plan = new EditPlan(lines);
+			SimpleClassWriter reference = new SimpleClassWriter(lines);
+
+			for (int i = 0; i < 200; i++) {
+				int lineNumber = rand.nextInt(lineCount + 1);
+				String line = "edit " + i;
+				if (rand.nextBoolean() || lineNumber == lineCount) {
+					plan.insertLine(lineNumber, line);
+					reference.insertLine(lineNumber, line);
+				} else {
+					plan.replaceLine(lineNumber, line);
+					reference.replaceLine(lineNumber, line);
+				}
+			}
+			assertEquals(reference.result(), plan.result());
+
+			StringWriter written = new StringWriter();
+			plan.writeTo(written);
+			StringWriter expected = new StringWriter();
+			reference.writeTo(expected);
+			assertEquals(expected.toString(), written.toString());
+		}
+	}
+
+	@Test
+	public void sameResultAsSimpleWriterWithDeletions() throws Exception {
+		for (int run = 0; run < 20; run++) {
+			List<String> lines = new ArrayList<String>();
+			int lineCount = rand.nextInt(20) + 1;
+			for (int i = 0; i < lineCount; i++) {
+				lines.add("line " + i);
+			}
+			EditPlan plan = new EditPlan(lines);
+			SimpleClassWriter reference = new SimpleClassWriter(lines);
+			boolean[] deleted = new boolean[lineCount + 1];
+			boolean[] inserted = new boolean[lineCount + 1];
+
+			for (int i = 0; i < 200; i++) {
+				int lineNumber = rand.nextInt(lineCount + 1);
+				String line = "edit " + i;
+				int edit = rand.nextInt(3);
+				if (edit == 0 && lineNumber < lineCount && !deleted[lineNumber]) {
+					plan.deleteLine(lineNumber);
+					reference.deleteLine(lineNumber);
+					deleted[lineNumber] = true;
+				} else if (edit == 1 && lineNumber < lineCount && (inserted[lineNumber] || !deleted[lineNumber])) {
+					plan.replaceLine(lineNumber, line);
+					reference.replaceLine(lineNumber, line);
+				} else {
+					plan.insertLine(lineNumber, line);
+					reference.insertLine(lineNumber, line);
+					inserted[lineNumber] = true;
+				}
+			}
+			assertEquals(reference.result(), plan.result());
+		}
+	}
+
+	@Test
+	public void deletingKeepsTheLinesInsertedAtTheLine() {
+		EditPlan plan = new EditPlan(Arrays.asList("a", "b", "c"));
+		plan.insertLine(1, "1");
+		plan.deleteLine(1);
+		plan.insertLine(1, "2");
+		plan.deleteLine(2);
+
+		assertEquals(Arrays.asList("a", "2", "1"), plan.result());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void replacingADeletedLine() {
+		EditPlan plan = new EditPlan(Arrays.asList("a", "b"));
+		plan.deleteLine(1);
+		plan.replaceLine(1, "c");
+		plan.result();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void replacingPastTheEnd() {
+		EditPlan plan = new EditPlan(Arrays.asList("a"));
+		plan.replaceLine(1, "b");
+		plan.result();
+	}
+}
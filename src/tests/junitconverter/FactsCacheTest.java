@@ -0,0 +1,212 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import junitconverter.ClassFacts;
+import junitconverter.FactsCache;
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.ParseBudget;
+import junitconverter.SourceBuffer;
+import junitconverter.TestClassConverter;
+import junitconverter.ClassFacts.MethodFacts;
+import junitconverter.testcase.LineSet;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link FactsCache} class and the binary form of {@link ClassFacts}.
+ */
+public class FactsCacheTest {
+
+	private static final String SOURCE = "package a;\n"
+			+ "import junit.framework.TestCase;\n"
+			+ "import static org.junit.Assert.*;\n"
+			+ "public class MyTest extends TestCase {\n"
+			+ "  protected void setUp() {\n"
+			+ "    super.setUp();\n"
+			+ "  }\n"
+			+ "  @Override\n"
+			+ "  public String toString() { return \"\"; }\n"
+			+ "  @Deprecated public void testThat() {}\n"
+			+ "}\n";
+
+	private File directory;
+
+	/* --- Tests Organization --- */
+
+	@Before
+	public void setUp() throws Exception {
+		directory = File.createTempFile("FactsCacheTest", "");
+		directory.delete();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/* --- Tests --- */
+
+	@Test
+	public void readsBackWhatItWrites() throws Exception {
+		ClassFacts facts = parse(SOURCE);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		facts.writeTo(new DataOutputStream(bytes));
+
+		ClassFacts read = ClassFacts.readFrom(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(describe(facts), describe(read));
+	}
+
+	@Test
+	public void missesUnknownAndCorruptFiles() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		assertNull(cache.get("abc", "full"));
+
+		cache.put("abc", "full", parse(SOURCE));
+		assertNotNull(cache.get("abc", "full"));
+
+		FileOutputStream out = new FileOutputStream(new File(directory, "abc-full.facts"));
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+		assertNull(cache.get("abc", "full"));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void missesFilesWithNegativeCounts() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		cache.put("abc", "full", parse("class A {}"));
+		File file = new File(directory, "abc-full.facts");
+		// The count of the class's annotations, after the header, the name "A" and the type line
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(16);
+		raf.writeInt(-1);
+		raf.close();
+
+		assertNull(cache.get("abc", "full"));
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void keepsTheFactsOfEachParserApart() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		cache.put("abc", "outline", parse(SOURCE));
+
+		assertNull(cache.get("abc", "full"));
+		assertNotNull(cache.get("abc", "outline"));
+	}
+
+	@Test
+	public void ignoresFactsOfAnotherGrammarVersion() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		cache.put("abc", "full", parse(SOURCE));
+		File file = new File(directory, "abc-full.facts");
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(4);
+		raf.writeInt(ClassFacts.GRAMMAR_VERSION + 1);
+		raf.close();
+
+		assertNull(cache.get("abc", "full"));
+	}
+
+	@Test
+	public void convertsTheSameFromTheCache() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		TestClassConverter converter = new TestClassConverter();
+		converter.setFactsCache(cache);
+		File parsed = File.createTempFile("FactsCacheTest", ".java");
+		File cached = File.createTempFile("FactsCacheTest", ".java");
+		try {
+			assertTrue(converter.convert(new SourceBuffer(SOURCE), parsed));
+			assertTrue(converter.convert(new SourceBuffer(SOURCE), cached));
+
+			assertEquals(1, cache.getHits());
+			assertEquals(1, cache.getMisses());
+			assertEquals(read(parsed), read(cached));
+		} finally {
+			parsed.delete();
+			cached.delete();
+		}
+	}
+
+	@Test
+	public void doesNotCacheFactsScannedOverTheBudget() throws Exception {
+		FactsCache cache = new FactsCache(directory);
+		TestClassConverter converter = new TestClassConverter();
+		converter.setFactsCache(cache);
+		ParseBudget budget = new ParseBudget(1, 0);
+		converter.setBudget(budget);
+		File file = File.createTempFile("FactsCacheTest", ".java");
+		try {
+			// The cast has the parser backtrack, even in outline mode
+			String source = SOURCE.replace("  protected void setUp()", "  int x = (int) (a + b);\n  protected void setUp()");
+			assertTrue(converter.convert(new SourceBuffer(source), file));
+			assertTrue(converter.convert(new SourceBuffer(source), file));
+
+			assertEquals(2, budget.getFallbacks());
+			assertEquals(0, cache.getHits());
+			assertFalse(directory.exists() && directory.list().length > 0);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/* --- Helper Methods --- */
+
+	private static ClassFacts parse(String source) throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(
+				new JavaLexer(new ANTLRStringStream(source))));
+		parser.compilationUnit();
+		return new ClassFacts(parser);
+	}
+
+	private static String describe(ClassFacts facts) {
+		StringBuilder description = new StringBuilder();
+		description.append(facts.getFullName()).append(' ')
+				.append(facts.getTypeLine()).append(' ')
+				.append(facts.getAnnotations()).append(' ')
+				.append(facts.getSuperName()).append(' ')
+				.append(facts.getExtendsLine()).append(':')
+				.append(facts.getExtendsPos()).append('-')
+				.append(facts.getSuperEndLine()).append(':')
+				.append(facts.getSuperEndPos()).append('\n');
+		for (MethodFacts method : facts.getMethods().values()) {
+			description.append(method.getName()).append(' ')
+					.append(method.getLine()).append(' ')
+					.append(method.getVisibility()).append(' ')
+					.append(method.getVisibilityLine()).append(':')
+					.append(method.getVisibilityPos()).append(' ')
+					.append(method.getAnnotations()).append('\n');
+		}
+		description.append(facts.getSuiteClasses()).append('\n')
+				.append(facts.getImports().getEntries()).append(' ')
+				.append(facts.getImports().getPackageLine()).append('\n')
+				.append(new TreeMap<String, LineSet>(facts.getReferences())).append('\n')
+				.append(facts.getSuperConstructorInvocations())
+				.append(facts.getSuperMethodInvocations())
+				.append(facts.getOverrideAnnotationsLines());
+		return description.toString();
+	}
+
+	private static String read(File file) throws IOException {
+		return SourceBuffer.read(file).lines().toString();
+	}
+}
@@ -0,0 +1,44 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.assertEquals;
+
+import junitconverter.JavaLexer;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.Token;
+import org.junit.Test;
+
+/**
+ * Tests the java lexer.
+ */
+public class JavaLexerTest {
+
+	private static final String SOURCE = "/* A */ public class A {\n"
+			+ "  String s = \"x\"; // B\n}\n";
+
+	@Test(expected = IllegalStateException.class)
+	public void doesNotAccumulateTextByDefault() throws Exception {
+		JavaLexer lexer = lex(new JavaLexer(new ANTLRStringStream(SOURCE)));
+		lexer.getAll();
+	}
+
+	@Test
+	public void accumulatesTextWhenAsked() throws Exception {
+		JavaLexer lexer = new JavaLexer(new ANTLRStringStream(SOURCE));
+		lexer.setAccumulateText(true);
+		lex(lexer);
+		// Keywords and operators are not kept, only literals, identifiers,
+		// white space and comments
+		assertEquals("/* A */   A \n  String s  \"x\" // B\n\n",
+				lexer.getAll());
+	}
+
+	/* --- Helper Methods --- */
+
+	private JavaLexer lex(JavaLexer lexer) {
+		while (lexer.nextToken().getType() != Token.EOF) {
+			// Just consume the tokens
+		}
+		return lexer;
+	}
+}
@@ -6,12 +6,18 @@ import java.util.*;
 
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.MismatchedTokenException;
 import org.antlr.runtime.RecognitionException;
 import org.junit.Test;
 
 import junitconverter.JavaLexer;
 import junitconverter.JavaParser;
+import junitconverter.ParseBudget;
+import junitconverter.ParseBudgetExceededException;
+import junitconverter.SyntaxErrorException;
 import junitconverter.Visibility;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
 
 
 /**
@@ -161,7 +167,7 @@ public class JavaParserTest {
 				"\n new Runnable() {" +
 				"\n public Runnable() { super(); }};" +
 				"\n}}");
-		assertEquals(asSet(3), parser.getSuperConstructorInvocations());
+		assertEquals(LineSet.of(3), parser.getSuperConstructorInvocations());
 	}
 	
 	/**
@@ -181,7 +187,7 @@ public class JavaParserTest {
 						"\n};}" +
 						"\n}"))));
 		parser.compilationUnit();
-		assertEquals(asSet(3), parser.getSuperMethodInvocations());
+		assertEquals(LineSet.of(3), parser.getSuperMethodInvocations());
 	}
 	
 	@Test
@@ -196,7 +202,7 @@ public class JavaParserTest {
 				"\n @Override" +
 				"\n private void a() {}" +
 				"\n}}");
-		assertEquals(asSet(2, 4), parser.getOverrideAnnotationsLines());
+		assertEquals(LineSet.of(2, 4), parser.getOverrideAnnotationsLines());
 	}
 	
 	@Test
@@ -240,7 +246,7 @@ public class JavaParserTest {
 				"    public void testAnnotations() {}\n" +
 				"}");
 		assertEquals(Collections.singletonList("Annotation"),
-				parser.getAnnotations("testAnnotations"));
+				parser.getAnnotations("testAnnotations").getNames());
 	}
 	
 	@Test
@@ -253,7 +259,7 @@ public class JavaParserTest {
 				"}");
 		assertEquals(
 				Arrays.asList("Annotation1", "Annotation2"), 
-				parser.getAnnotations("testAnnotations"));
+				parser.getAnnotations("testAnnotations").getNames());
 	}
 	
 	@Test
@@ -266,9 +272,9 @@ public class JavaParserTest {
 				"    public void testSecond() {}\n" +
 				"}");
 		assertEquals(Collections.singletonList("Annotation1"),
-				parser.getAnnotations("testFirst"));
+				parser.getAnnotations("testFirst").getNames());
 		assertEquals(Collections.singletonList("Annotation2"),
-				parser.getAnnotations("testSecond"));
+				parser.getAnnotations("testSecond").getNames());
 	}
 	
 	@Test
@@ -280,7 +286,7 @@ public class JavaParserTest {
 				"    public void testAnnotations() {}\n" +
 				"}");
 		assertEquals(Collections.singletonList("Annotation"), 
-				parser.getAnnotations("testAnnotations"));
+				parser.getAnnotations("testAnnotations").getNames());
 	}
 	
 	@Test
@@ -290,7 +296,7 @@ public class JavaParserTest {
 				"    public void testNoAnnotations() {}\n" +
 				"}");
 		assertEquals(new ArrayList<String>(),
-				parser.getAnnotations("testNoAnnotations"));
+				parser.getAnnotations("testNoAnnotations").getNames());
 	}
 	
 	@Test
@@ -317,6 +323,259 @@ public class JavaParserTest {
 				parser.getVisibility("testSomething"));
 	}
 	
+	@Test
+	public void savesMethodVisibilityPosition() throws Exception {
+		JavaParser parser = createParser(
+				"public class MyTest {\n" +
+				"    private int field;\n" +
+				"    void testPackage() {}\n" +
+				"    @Before\n" +
+				"    protected void setUp() {}\n" +
+				"}");
+		assertEquals(5, parser.getVisibilityLine("setUp"));
+		assertEquals(4, parser.getVisibilityPos("setUp"));
+		// The field's modifier isn't the method's
+		assertEquals("", parser.getVisibility("testPackage"));
+		assertEquals(-1, parser.getVisibilityPos("testPackage"));
+	}
+	
+	@Test
+	public void savesExtendsClausePosition() throws Exception {
+		JavaParser parser = createParser(
+				"public class MyTest\n" +
+				"\t\textends junit.framework.TestCase implements Runnable {\n" +
+				"}");
+		assertEquals(2, parser.getExtendsLine());
+		assertEquals(2, parser.getExtendsPos());
+		assertEquals(2, parser.getSuperEndLine());
+		assertEquals(34, parser.getSuperEndPos());
+	}
+	
+	@Test
+	public void findsClassesAddedToSuite() throws Exception {
+		JavaParser parser = createParser(
+				"public class AllTests {\n" +
+				"  public static Test suite() {\n" +
+				"    TestSuite suite = new TestSuite();\n" +
+				"    suite.addTestSuite(FooTest.class);\n" +
+				"    suite.addTest(a.b.BarTest.suite()); suite.addTest( Baz . suite ( ) );\n" +
+				"    suite.addTest(new FooTest(\"testThat\"));\n" +
+				"    suite.addTestSuite(\n" +
+				"        /* Later */ c.QuxTest.class);\n" +
+				"    return suite;\n" +
+				"  }\n" +
+				"  public void addTest() { addTestSuite(NotInSuite.class); }\n" +
+				"}");
+		assertEquals(Arrays.asList("FooTest", "a.b.BarTest", "Baz", "c.QuxTest"),
+				parser.getSuiteClasses());
+	}
+	
+	@Test
+	public void indexesImports() throws Exception {
+		JavaParser parser = createParser(
+				"package a.b;\n" +
+				"\n" +
+				"import java.util.List;\n" +
+				"import static org.junit.Assert.*;\n" +
+				"import org.junit.*;\n" +
+				"public class MyTest {}");
+		ImportIndex imports = parser.getImportIndex();
+		assertEquals(2, imports.getInsertionLine());
+		assertEquals(3, imports.getEntries().size());
+		assertEquals("import static org.junit.Assert.*;",
+				imports.getEntries().get(1).toString());
+		assertEquals(3, imports.getEntries().get(1).getLine());
+		assertTrue(imports.isImported("java.util.List"));
+		assertTrue(imports.isImported("org.junit.Test"));
+		assertFalse(imports.isImported("java.util.Set"));
+		assertTrue(imports.isStaticallyImported("org.junit.Assert"));
+		assertFalse(imports.isStaticallyImported("java.util.List"));
+	}
+	
+	@Test
+	public void insertsImportsAfterPackage() throws Exception {
+		assertEquals(1, createParser("package a;\nclass A {}")
+				.getImportIndex().getInsertionLine());
+		assertEquals(0, createParser("class A {}")
+				.getImportIndex().getInsertionLine());
+	}
+	
+	@Test
+	public void referencesSkipImports() throws Exception {
+		Map<String, LineSet> references = createParser(
+				"import junit.framework.TestCase;\n" +
+				"import junit.framework.TestSuite;\n" +
+				"public class MyTest extends TestCase {\n" +
+				"  TestSuite suite;\n" +
+				"  TestSuite other;\n" +
+				"}").getReferences();
+		assertEquals(LineSet.of(2), references.get("TestCase"));
+		assertEquals(LineSet.of(3, 4), references.get("TestSuite"));
+		assertEquals(LineSet.of(2), references.get("MyTest"));
+		assertNull(references.get("junit"));
+	}
+	
+	@Test
+	public void outlineFindsSuperInvocations() throws Exception {
+		String code = "public class MyTest extends junit.framework.TestCase {" +
+				"\npublic MyTest() {" +
+				"\n super(\"test\");" +
+				"\n}" +
+				"\npublic MyTest(int a) {" +
+				"\n new Runnable() {" +
+				"\n public Runnable() { super(); }};" +
+				"\n}" +
+				"\npublic void myTest() {" +
+				"\n if (true) { super.someMethod(\"test\"); }" +
+				"\n}" +
+				"\npublic void anotherTest() {" +
+				"\n new java.util.ArrayList<String>(1) {" +
+				"\n  public String toString() { return super.toString(); }" +
+				"\n};" +
+				"\n class Local extends Object {" +
+				"\n  public String toString() { return super.toString(); }" +
+				"\n}}" +
+				"\n}";
+		JavaParser outline = createOutlineParser(code);
+		JavaParser full = createParser(code);
+		assertEquals(LineSet.of(3), outline.getSuperConstructorInvocations());
+		assertEquals(LineSet.of(10), outline.getSuperMethodInvocations());
+		assertEquals(full.getSuperConstructorInvocations(),
+				outline.getSuperConstructorInvocations());
+		assertEquals(full.getSuperMethodInvocations(),
+				outline.getSuperMethodInvocations());
+		assertEquals(0, outline.getSyntaxErrors());
+	}
+	
+	@Test
+	public void outlineFindsMethods() throws Exception {
+		String code = "public class MyTest extends TestCase {\n" +
+				"  @Override\n" +
+				"  protected void setUp() throws Exception {\n" +
+				"    Map<String, List<Integer>> m = new HashMap<String, List<Integer>>();\n" +
+				"    int[] a = new int[] { 1, 2 };\n" +
+				"    for (int i : a) { if (i > 1) { m.put(\"}\", null); } }\n" +
+				"  }\n" +
+				"  public void testThat() { char c = '{'; }\n" +
+				"  void helper() {}\n" +
+				"  public static Test suite() {\n" +
+				"    TestSuite suite = new TestSuite();\n" +
+				"    suite.addTestSuite(MyTest.class);\n" +
+				"    return suite;\n" +
+				"  }\n" +
+				"}";
+		JavaParser outline = createOutlineParser(code);
+		JavaParser full = createParser(code);
+		assertEquals(full.getMethodsWithLines(), outline.getMethodsWithLines());
+		for (String method : full.getMethods()) {
+			assertEquals(full.getVisibility(method), outline.getVisibility(method));
+			assertEquals(full.getAnnotations(method).getNames(),
+					outline.getAnnotations(method).getNames());
+		}
+		assertEquals(Arrays.asList("MyTest"), outline.getSuiteClasses());
+		assertEquals(LineSet.of(2), outline.getOverrideAnnotationsLines());
+		assertEquals(full.getReferences(), outline.getReferences());
+	}
+	
+	@Test
+	public void outlineFindsWhatFullParsingFinds() throws Exception {
+		String code = "public class MyTest extends TestCase {\n" +
+				"  public MyTest(Outer o) { o.super(); }\n" +
+				"  public String toString() {\n" +
+				"    @SuppressWarnings(\"unused\") int unused = 0;\n" +
+				"    StringBuilder b = new StringBuilder(super.toString());\n" +
+				"    b.append(new Object[] { super.hashCode() }.length);\n" +
+				"    return b.append(new java.util.HashMap<String, Integer>(size(super.hashCode()))).toString();\n" +
+				"  }\n" +
+				"  static { @Deprecated int unused = 0; }\n" +
+				"  public void testThat() {}\n" +
+				"}";
+		JavaParser outline = createOutlineParser(code);
+		JavaParser full = createParser(code);
+		assertEquals(0, full.getSyntaxErrors());
+		assertEquals(0, outline.getSyntaxErrors());
+		assertEquals(LineSet.of(6), outline.getSuperMethodInvocations());
+		assertEquals(full.getSuperMethodInvocations(), outline.getSuperMethodInvocations());
+		assertEquals(full.getSuperConstructorInvocations(), outline.getSuperConstructorInvocations());
+		assertTrue(full.getAnnotations("testThat").getNames().isEmpty());
+		assertTrue(outline.getAnnotations("testThat").getNames().isEmpty());
+	}
+	
+	@Test
+	public void outlineCountsSyntaxErrors() throws Exception {
+		JavaParser parser = createOutlineParser(
+				"public class MyTest {\n" +
+				"  public void testThat() { {\n" +
+				"}");
+		assertTrue(parser.getSyntaxErrors() > 0);
+		assertEquals(0, createOutlineParser("public class MyTest {}")
+				.getSyntaxErrors());
+	}
+	
+	@Test
+	public void countsTokensMatchedWhileBacktracking() throws Exception {
+		assertEquals(0, createParser("public class MyTest { int x; }").getSpeculativeTokens());
+		assertTrue(createParser("public class MyTest { int x = (int) (a + b); }").getSpeculativeTokens() > 0);
+	}
+	
+	@Test(expected = ParseBudgetExceededException.class)
+	public void abandonsParsesOverBudget() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream("public class MyTest { int x = (int) (a + b); }"))));
+		parser.setBudget(new ParseBudget(3, 0));
+		parser.compilationUnit();
+	}
+	
+	@Test(expected = ParseBudgetExceededException.class)
+	public void abandonsParsesOutOfTimeWithoutBacktracking() throws Exception {
+		StringBuilder source = new StringBuilder("public class MyTest {\n");
+		for (int i = 0; i < 200; i++) {
+			source.append("int x").append(i).append(";\n");
+		}
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream(source.append("}").toString()))));
+		// Already past the deadline, as a full parse after an outline parse that took all the time
+		parser.setBudget(new ParseBudget(0, 1), System.nanoTime() - 1);
+		parser.compilationUnit();
+	}
+	
+	@Test
+	public void parsesWithinBudget() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream("public class MyTest { int x = (int) (a + b); }"))));
+		parser.setBudget(new ParseBudget(1000, 10000));
+		parser.compilationUnit();
+		assertEquals(0, parser.getSyntaxErrors());
+	}
+	
+	@Test
+	public void failsFastOnTheFirstSyntaxError() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream("public class MyTest {\n  int a = ;\n  int b = ;\n}"))));
+		parser.setFailFast(true);
+		try {
+			parser.compilationUnit();
+			fail();
+		} catch (SyntaxErrorException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:"));
+			assertEquals(1, parser.getSyntaxErrors());
+		}
+		assertEquals(2, createParser("public class MyTest {\n  int a = ;\n  int b = ;\n}").getSyntaxErrors());
+	}
+	
+	@Test
+	public void failsFastOnAMissingToken() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream("public class MyTest {\n  int a = 1 1;\n}"))));
+		parser.setFailFast(true);
+		try {
+			parser.compilationUnit();
+			fail();
+		} catch (SyntaxErrorException e) {
+			assertTrue(e.getCause() instanceof MismatchedTokenException);
+		}
+	}
+	
 	/* --- Helper Methods --- */
 	
 	/**
@@ -333,4 +592,12 @@ public class JavaParserTest {
 		parser.compilationUnit();
 		return parser;
 	}
+	
+	private JavaParser createOutlineParser(String code) throws RecognitionException {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream(code))));
+		parser.setOutline(true);
+		parser.compilationUnit();
+		return parser;
+	}
 }
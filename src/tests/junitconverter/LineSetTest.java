@@ -0,0 +1,35 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import junitconverter.testcase.LineSet;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link LineSet} class.
+ */
+public class LineSetTest {
+
+	@Test
+	public void keepsLinesSortedAndDistinct() {
+		LineSet lines = new LineSet();
+		for (int line : new int[] { 5, 1, 9, 5, 3, 20, 11, 12, 13, 14, 1 }) {
+			lines.add(line);
+		}
+		assertEquals("[1, 3, 5, 9, 11, 12, 13, 14, 20]",
+				Arrays.toString(lines.toArray()));
+		assertTrue(lines.contains(9));
+		assertFalse(lines.contains(10));
+	}
+
+	@Test
+	public void shiftsIntoACopy() {
+		LineSet lines = LineSet.of(2, 4);
+		assertEquals(LineSet.of(1, 3), lines.shift(-1));
+		assertEquals(LineSet.of(2, 4), lines);
+		assertEquals(0, new LineSet().shift(-1).size());
+	}
+}
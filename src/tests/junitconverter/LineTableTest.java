@@ -0,0 +1,77 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import junitconverter.EditPlan;
+import junitconverter.LineTable;
+import junitconverter.SourceBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link LineTable} class.
+ */
+public class LineTableTest {
+
+	@Test
+	public void linesAreViews() {
+		StringBuilder source = new StringBuilder("class A {\r\n}\n");
+		LineTable lines = new LineTable(source);
+		assertEquals(2, lines.size());
+		assertEquals("class A {", lines.get(0).toString());
+		assertEquals(9, lines.get(0).length());
+		assertEquals('A', lines.get(0).charAt(6));
+		assertEquals("A {", lines.get(0).subSequence(6, 9).toString());
+
+		// Nothing was copied
+		source.setCharAt(6, 'B');
+		assertEquals("class B {", lines.get(0).toString());
+	}
+
+	@Test
+	public void linesDontSpillIntoTheNextOne() {
+		LineTable lines = new LineTable("a\nb");
+		try {
+			lines.get(0).charAt(1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// Expected
+		}
+		try {
+			lines.get(2);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void writesLines() throws Exception {
+		String source = "package a;\n\npublic class A {\n}\n";
+		assertEquals(source, write(new SourceBuffer(source)));
+
+		File file = File.createTempFile("LineTableTest", ".java");
+		try {
+			Writer writer = new FileWriter(file);
+			writer.write(source);
+			writer.close();
+			SourceBuffer buffer = SourceBuffer.read(file, Charset.forName("US-ASCII"));
+			assertTrue(buffer.isByteBacked());
+			assertEquals(source, write(buffer));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/* --- Helper Methods --- */
+
+	private String write(SourceBuffer buffer) throws IOException {
+		StringWriter writer = new StringWriter();
+		new EditPlan(buffer.lines()).writeTo(writer);
+		return writer.toString();
+	}
+}
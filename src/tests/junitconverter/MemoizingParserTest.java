@@ -0,0 +1,118 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.MemoProfile;
+import junitconverter.MemoizingParser;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.BaseRecognizer;
+import org.antlr.runtime.CommonTokenStream;
+import org.junit.Test;
+
+/**
+ * Tests the memo table of the parser.
+ */
+public class MemoizingParserTest {
+
+	private static final String SOURCE = "public class A { int a = (int) (b + c) * d; }";
+
+	@Test
+	public void remembersWhereRulesStopped() throws Exception {
+		TestParser parser = new TestParser();
+		parser.memoizeAt(3, 7, 2, false);
+		parser.memoizeAt(4, 7, 5, false);
+		parser.memoizeAt(3, 9, 0, true);
+		assertEquals(2, parser.getRuleMemoization(3, 7));
+		assertEquals(5, parser.getRuleMemoization(4, 7));
+		assertEquals(BaseRecognizer.MEMO_RULE_FAILED, parser.getRuleMemoization(3, 9));
+		assertEquals(BaseRecognizer.MEMO_RULE_UNKNOWN, parser.getRuleMemoization(4, 9));
+		assertEquals(BaseRecognizer.MEMO_RULE_UNKNOWN, parser.getRuleMemoization(3, 8));
+		assertEquals(3, parser.getRuleMemoizationCacheSize());
+	}
+
+	@Test
+	public void growsWithTheEntries() throws Exception {
+		TestParser parser = new TestParser();
+		for (int start = 0; start < 5000; start++) {
+			for (int rule = 1; rule <= 3; rule++) {
+				parser.memoizeAt(rule, start, start + rule, false);
+			}
+		}
+		assertEquals(15000, parser.getRuleMemoizationCacheSize());
+		for (int start = 0; start < 5000; start++) {
+			for (int rule = 1; rule <= 3; rule++) {
+				assertEquals(start + rule, parser.getRuleMemoization(rule, start));
+			}
+		}
+	}
+
+	@Test
+	public void forgetsEverythingOnReset() throws Exception {
+		TestParser parser = new TestParser();
+		parser.memoizeAt(3, 7, 2, false);
+		parser.reset();
+		assertEquals(BaseRecognizer.MEMO_RULE_UNKNOWN, parser.getRuleMemoization(3, 7));
+		assertEquals(0, parser.getRuleMemoizationCacheSize());
+		parser.memoizeAt(3, 7, 4, false);
+		assertEquals(4, parser.getRuleMemoization(3, 7));
+	}
+
+	@Test
+	public void memoizesWhileBacktracking() throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(new ANTLRStringStream(SOURCE))));
+		parser.compilationUnit();
+		assertEquals(0, parser.getSyntaxErrors());
+		assertTrue(parser.getRuleMemoizationCacheSize() > 0);
+
+		parser.setTokenStream(new CommonTokenStream(new JavaLexer(new ANTLRStringStream(SOURCE))));
+		assertEquals(0, parser.getRuleMemoizationCacheSize());
+		assertFalse(parser.alreadyParsedRule(parser.getTokenStream(), 1));
+	}
+
+	@Test
+	public void countsMemoUseInAProfile() throws Exception {
+		MemoProfile profile = new MemoProfile();
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(new ANTLRStringStream(SOURCE))));
+		parser.setProfile(profile);
+		parser.compilationUnit();
+
+		assertTrue(profile.getRules().contains("castExpression"));
+		assertTrue(profile.getLookups("castExpression") > 0);
+		long lookups = 0;
+		long hits = 0;
+		for (String rule : profile.getRules()) {
+			assertTrue(profile.getHits(rule) <= profile.getLookups(rule));
+			assertEquals(profile.getLookups(rule), profile.getStores(rule));
+			lookups += profile.getLookups(rule);
+			hits += profile.getHits(rule);
+		}
+		assertTrue(hits > 0);
+		assertEquals(parser.getRuleMemoizationCacheSize(), lookups - hits);
+		assertTrue(profile.getRules().containsAll(profile.getRulesWorthMemoizing()));
+	}
+
+	/* --- Helper Methods --- */
+
+	private static class TestParser extends MemoizingParser {
+
+		public TestParser() {
+			super(new CommonTokenStream(new JavaLexer(new ANTLRStringStream(SOURCE))));
+		}
+
+		/**
+		 * Memoizes a rule as if it had just stopped at the given token.
+		 */
+		public void memoizeAt(int ruleIndex, int startIndex, int stopIndex, boolean failed) {
+			this.failed = failed;
+			input.LT(1);
+			input.seek(stopIndex + 1);
+			memoize(input, ruleIndex, startIndex);
+			this.failed = false;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.junit.Test;
+
+import junitconverter.ClassFacts;
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.OutlineScanner;
+import junitconverter.ClassFacts.MethodFacts;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+
+/**
+ * Tests the outline scanner against the parser: whatever the source, both must find the same facts.
+ */
+public class OutlineScannerTest {
+
+	@Test
+	public void scansExtendsClauses() throws Exception {
+		assertScansLikeParser(
+				"import junit.framework.TestCase;\n"
+				+ "public class MyTest extends TestCase {\n"
+				+ " public void testThat() {}}");
+		assertScansLikeParser(
+				"public class MyTest extends junit.framework.TestCase implements Runnable,Serializable {"
+				+ "\npublic void testThat() {}"
+				+ " private final static class Inner extends Other {}"
+				+ "}");
+		assertScansLikeParser(
+				"public class MyTest\n" +
+				"\t\textends junit . framework./* base */TestCase implements Runnable {\n" +
+				"}");
+		assertScansLikeParser(
+				"public class MyTest<T extends Comparable<? super T>> extends Base<Map<String, T>>\n" +
+				"    implements Runnable {\n" +
+				"}");
+		assertScansLikeParser(
+				"public class MyTest implements Runnable {\n" +
+				"  class Inner extends TestCase {}\n" +
+				"}");
+	}
+
+	@Test
+	public void scansMethods() throws Exception {
+		ClassFacts facts = assertScansLikeParser(
+				"public class MyTest extends junit.framework.TestCase {" +
+				"\npublic void testThis() {}" +
+				"\npublic void testThat() {" +
+				"\nnew Runnable() {" +
+				"\npublic void run() {}};}" +
+				"\n protected <T> T generic(T[] t) { return t[0]; }" +
+				"\n abstract int[] array()[] throws Exception;" +
+				"\n public MyTest(int a) {}" +
+				"\nprivate static class Inner {" +
+				"\n public void testInner() {}" +
+				"\n}" +
+				"\npublic void testThose() {}" +
+				"}");
+		assertEquals(Arrays.asList("testThis", "testThat", "generic", "array", "testThose"),
+				Arrays.asList(facts.getMethods().keySet().toArray()));
+	}
+
+	@Test
+	public void scansSuperInvocations() throws Exception {
+		ClassFacts facts = assertScansLikeParser(
+				"public class MyTest extends junit.framework.TestCase {" +
+				"\npublic MyTest() {" +
+				"\n super(\"test\");" +
+				"\n}" +
+				"\npublic MyTest(int a) {" +
+				"\n new Runnable() {" +
+				"\n public Runnable() { super(); }};" +
+				"\n}" +
+				"\npublic void myTest() {" +
+				"\n if (true) { super.someMethod(\"test\"); }" +
+				"\n}" +
+				"\npublic void anotherTest() {" +
+				"\n new java.util.ArrayList<String>(new Inner(super.size())) {" +
+				"\n  public String toString() { return super.toString(); }" +
+				"\n};" +
+				"\n class Local extends Object {" +
+				"\n  public String toString() { return super.toString(); }" +
+				"\n}" +
+				"\n Outer.super.toString(); new int[] { super.hashCode() };" +
+				"\n}" +
+				"\nprivate Object field = new Object() { int x = super.hashCode(); };" +
+				"\nprivate int other = super.hashCode();" +
+				"\n{ super.toString(); }" +
+				"\n}");
+		assertEquals(LineSet.of(3), facts.getSuperConstructorInvocations());
+		assertEquals(LineSet.of(10, 19, 22, 23), facts.getSuperMethodInvocations());
+	}
+
+	@Test
+	public void scansAnnotations() throws Exception {
+		ClassFacts facts = assertScansLikeParser(
+				"@Something\n" +
+				"public class MyTest extends TestCase {\n" +
+				"    @Annotation1 @org.junit.Ignore(\"later\")\n" +
+				"    public void testFirst() {}\n" +
+				"    @Deprecated private int field;\n" +
+				"    @Override\n" +
+				"    public void setUp(@Param(a = @Nested, b = { 1, 2 }) int a) {}\n" +
+				"    @SuppressWarnings({ \"unchecked\" }) MyTest() {}\n" +
+				"    public void testSecond() { @Local int a = 0; }\n" +
+				"    class Test {\n" +
+				"        @Override private void a() {}\n" +
+				"    }\n" +
+				"    static { @Local int b = 0; }\n" +
+				"    @Test public void testThird() {}\n" +
+				"}");
+		assertEquals(LineSet.of(6), facts.getOverrideAnnotationsLines());
+	}
+
+	@Test
+	public void scansVisibility() throws Exception {
+		assertScansLikeParser(
+				"public class MyTest {\n" +
+				"    private int field;\n" +
+				"    void testPackage() {}\n" +
+				"    @Before\n" +
+				"\tprotected void setUp() {}\n" +
+				"    public\n" +
+				"      static final synchronized void testStatic() {}\n" +
+				"    private MyTest() {}\n" +
+				"    public interface Callback { public void call(); int X = 1; }\n" +
+				"    void testAfterInterface() {}\n" +
+				"    public static class Inner {}\n" +
+				"    void testAfterClass() {}\n" +
+				"}");
+	}
+
+	@Test
+	public void scansSuites() throws Exception {
+		ClassFacts facts = assertScansLikeParser(
+				"public class AllTests {\n" +
+				"  public static Test suite() {\n" +
+				"    TestSuite suite = new TestSuite();\n" +
+				"    suite.addTestSuite(FooTest.class);\n" +
+				"    suite.addTest(a.b.BarTest.suite()); suite.addTest( Baz . suite ( ) );\n" +
+				"    suite.addTest(new FooTest(\"testThat\"));\n" +
+				"    suite.addTestSuite(\n" +
+				"        /* Later */ c.QuxTest.class);\n" +
+				"    return suite;\n" +
+				"  }\n" +
+				"  public void addTest() { addTestSuite(NotInSuite.class); }\n" +
+				"}");
+		assertEquals(Arrays.asList("FooTest", "a.b.BarTest", "Baz", "c.QuxTest"), facts.getSuiteClasses());
+	}
+
+	@Test
+	public void scansImportsAndReferences() throws Exception {
+		assertScansLikeParser(
+				"package a . b;\n" +
+				"\n" +
+				"import java.util.List;\n" +
+				"import static org.junit.Assert.*;\n" +
+				"import org.junit.*;\n" +
+				"public class MyTest extends TestCase {\n" +
+				"  List<String> list; /* TestSuite */ // TestSuite\n" +
+				"  String s = \"TestSuite\\\" {\"; char c = '}';\n" +
+				"  long l = 0x1FL + 1.5e-3f + .5 + 10L;\n" +
+				"  void test() { assertEquals(1, 1); }\n" +
+				"}");
+		assertScansLikeParser("class A {}");
+	}
+
+	@Test
+	public void scansOtherTypes() throws Exception {
+		assertScansLikeParser(
+				"public enum Color {\n" +
+				"  @Deprecated RED(1) { public int value() { return 2; } }, GREEN(2),;\n" +
+				"  private final int value;\n" +
+				"  public int value() { return value; }\n" +
+				"  class Inner extends Base {}\n" +
+				"}");
+		assertScansLikeParser(
+				"@Retention(RUNTIME) public @interface Marker {\n" +
+				"  String[] value() default { \"a\", \"b\" };\n" +
+				"  int count() default 1;\n" +
+				"  int CONSTANT = 2;\n" +
+				"}\n" +
+				"interface Callback { void call(); }\n" +
+				"public class MyTest extends TestCase {\n" +
+				"  @interface Inner { Class<?> type() default Object.class; enum Kind { A } }\n" +
+				"  enum Kind { A, B; void kind() {} }\n" +
+				"  public void testThat() {}\n" +
+				"};\n");
+		assertScansLikeParser(
+				"interface Callback {\n" +
+				"  Runnable R = new Runnable() { public void run() {} };\n" +
+				"}\n" +
+				"public class MyTest extends TestCase {}");
+	}
+
+	@Test
+	public void countsErrors() throws Exception {
+		assertTrue(scan("public class MyTest {\n  public void testThat() { {\n}").getSyntaxErrors() > 0);
+		assertTrue(scan("public class MyTest { void a() }} }").getSyntaxErrors() > 0);
+		assertTrue(scan("public class { }").getSyntaxErrors() > 0);
+		assertEquals(0, scan("public class MyTest {}").getSyntaxErrors());
+	}
+
+	@Test
+	public void countsErrorsWhereTheSourceEndsEarly() throws Exception {
+		assertTrue(scan("package a;\nimport ").getSyntaxErrors() > 0);
+		assertTrue(scan("package ").getSyntaxErrors() > 0);
+		assertTrue(scan("public class MyTest extends ").getSyntaxErrors() > 0);
+		assertTrue(scan("public class MyTest extends {}").getSyntaxErrors() > 0);
+
+		String code = "package a.b;\n" +
+				"import static org.junit.Assert.*;\n" +
+				"import java.util.List;\n" +
+				"@RunWith(Suite.class) @SuiteClasses({ A.class })\n" +
+				"public class MyTest<T extends List<?>> extends junit.framework.TestCase {\n" +
+				"    @Override protected void setUp() { super.setUp(); }\n" +
+				"    public void testThat() { new Object() { int x = 1; }; }\n" +
+				"}\n";
+		// Wherever the source ends, the scanner must count an error rather than throw
+		for (int end = 0; end < code.length(); end++) {
+			scan(code.substring(0, end));
+		}
+		assertEquals(0, scan(code).getSyntaxErrors());
+	}
+
+	/* --- Helper Methods --- */
+
+	/**
+	 * Checks that the scanner finds the same facts as the parser does in outline mode, which is how the conversion
+	 * parses by default.
+	 */
+	private ClassFacts assertScansLikeParser(String code) throws Exception {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(
+				new ANTLRStringStream(code))));
+		parser.setOutline(true);
+		parser.compilationUnit();
+		assertEquals(0, parser.getSyntaxErrors());
+		OutlineScanner scanner = scan(code);
+		assertEquals(0, scanner.getSyntaxErrors());
+
+		assertEquals(parser.getType(), scanner.getType());
+		assertEquals(parser.getSuperLine(), scanner.getSuperLine());
+		assertEquals(parser.getSuperPos(), scanner.getSuperPos());
+		ClassFacts expected = new ClassFacts(parser);
+		ClassFacts actual = new ClassFacts(scanner);
+		assertEquals(expected.getFullName(), actual.getFullName());
+		assertEquals(expected.getTypeLine(), actual.getTypeLine());
+		assertEquals(expected.getAnnotations().getNames(), actual.getAnnotations().getNames());
+		assertEquals(expected.getSuperName(), actual.getSuperName());
+		assertEquals(expected.getExtendsLine(), actual.getExtendsLine());
+		assertEquals(expected.getExtendsPos(), actual.getExtendsPos());
+		assertEquals(expected.getSuperEndLine(), actual.getSuperEndLine());
+		assertEquals(expected.getSuperEndPos(), actual.getSuperEndPos());
+		assertEquals(Arrays.asList(expected.getMethods().keySet().toArray()),
+				Arrays.asList(actual.getMethods().keySet().toArray()));
+		for (MethodFacts method : expected.getMethods().values()) {
+			MethodFacts other = actual.getMethod(method.getName());
+			assertEquals(method.getLine(), other.getLine());
+			assertEquals(method.getVisibility(), other.getVisibility());
+			assertEquals(method.getVisibilityLine(), other.getVisibilityLine());
+			assertEquals(method.getVisibilityPos(), other.getVisibilityPos());
+			assertEquals(method.getAnnotations().getNames(), other.getAnnotations().getNames());
+		}
+		assertEquals(expected.getSuiteClasses(), actual.getSuiteClasses());
+		assertEquals(expected.getImports().getPackageLine(), actual.getImports().getPackageLine());
+		assertEquals(expected.getImports().getEntries().size(), actual.getImports().getEntries().size());
+		for (int i = 0; i < expected.getImports().getEntries().size(); i++) {
+			ImportIndex.Entry entry = expected.getImports().getEntries().get(i);
+			ImportIndex.Entry other = actual.getImports().getEntries().get(i);
+			assertEquals(entry.toString(), other.toString());
+			assertEquals(entry.getLine(), other.getLine());
+		}
+		assertEquals(expected.getReferences(), actual.getReferences());
+		assertEquals(expected.getSuperConstructorInvocations(), actual.getSuperConstructorInvocations());
+		assertEquals(expected.getSuperMethodInvocations(), actual.getSuperMethodInvocations());
+		assertEquals(expected.getOverrideAnnotationsLines(), actual.getOverrideAnnotationsLines());
+		return actual;
+	}
+
+	private OutlineScanner scan(String code) {
+		OutlineScanner scanner = new OutlineScanner(code);
+		scanner.scan();
+		return scanner;
+	}
+}
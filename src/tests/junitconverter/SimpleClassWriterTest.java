@@ -8,6 +8,8 @@ import junitconverter.SimpleClassWriter;
 
 import org.junit.Test;
 
+import tests.junitconverter.benchmarks.NaiveClassWriter;
+
 
 /**
  * Tests the {@link SimpleClassWriter} class.
@@ -81,6 +83,53 @@ public class SimpleClassWriterTest {
 		assertEquals(lines, writer.result());
 	}
 	
+	@Test
+	public void sameResultAsNaiveWriter() {
+		for (int run = 0; run < 20; run++) {
+			List<String> lines = nextLines();
+			SimpleClassWriter writer = new SimpleClassWriter(lines);
+			NaiveClassWriter reference = new NaiveClassWriter(lines);
+
+			for (int i = 0; i < 300; i++) {
+				// Repeated edits on few lines, including the one past the end
+				int lineNumber = rand.nextInt(Math.min(lines.size(), 10) + 1);
+				String line = nextLine();
+				if (rand.nextBoolean() || lineNumber == lines.size()) {
+					writer.insertLine(lineNumber, line);
+					reference.insertLine(lineNumber, line);
+				} else {
+					writer.replaceLine(lineNumber, line);
+					reference.replaceLine(lineNumber, line);
+				}
+			}
+			assertEquals(reference.result(), writer.result());
+		}
+	}
+
+	@Test
+	public void deletionsSameResultAsNaiveWriter() {
+		for (int run = 0; run < 20; run++) {
+			List<String> lines = nextLines();
+			SimpleClassWriter writer = new SimpleClassWriter(lines);
+			NaiveClassWriter reference = new NaiveClassWriter(lines);
+			Set<Integer> deleted = new HashSet<Integer>();
+
+			for (int i = 0; i < 300; i++) {
+				int lineNumber = rand.nextInt(lines.size() + 1);
+				if (rand.nextBoolean() && deleted.add(lineNumber)
+						&& lineNumber < lines.size()) {
+					writer.deleteLine(lineNumber);
+					reference.deleteLine(lineNumber);
+				} else {
+					String line = nextLine();
+					writer.insertLine(lineNumber, line);
+					reference.insertLine(lineNumber, line);
+				}
+			}
+			assertEquals(reference.result(), writer.result());
+		}
+	}
+
 	private List<String> nextLines() {
 		int numLines = rand.nextInt(200) + 1;
 		List<String> lines = new LinkedList<String>();
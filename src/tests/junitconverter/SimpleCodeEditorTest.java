@@ -7,6 +7,7 @@ import static org.easymock.EasyMock.verify;
 import java.util.*;
 
 import junitconverter.*;
+import junitconverter.testcase.LineSet;
 import junitconverter.testcase.TestCaseClass;
 import junitconverter.testcase.TestMethod;
 
@@ -172,6 +173,36 @@ public class SimpleCodeEditorTest {
 		verify(mock);
 	}
 	
+	@Test
+	public void doesNotImportTwice() {
+		List<String> lines = getEmptyLines();
+		lines.add(0, PACKAGE_PREFIX + "something;");
+		lines.add(2, IMPORT_PREFIX + "org.junit.*;");
+		lines.add(3, IMPORT_PREFIX + "static org.junit.Assert.*;");
+		TestCaseClass testCaseClass = new TestCaseClass(lines);
+		mock.insertLine(2, IMPORT_PREFIX + "org.junit.runners.Suite;");
+		replay(mock);
+		
+		codeEditor.importClass(testCaseClass, Test.class);
+		codeEditor.importStaticClass(testCaseClass, Assert.class);
+		codeEditor.importClass(testCaseClass, org.junit.runners.Suite.class);
+		codeEditor.importClass(testCaseClass, org.junit.runners.Suite.class);
+		verify(mock);
+	}
+	
+	@Test
+	public void removingImport() {
+		List<String> lines = getEmptyLines();
+		lines.add(1, IMPORT_PREFIX + "junit.framework.TestCase;");
+		TestCaseClass testCaseClass = new TestCaseClass(lines);
+		mock.deleteLine(1);
+		replay(mock);
+		
+		codeEditor.removeImport(testCaseClass, 
+				testCaseClass.getImports().getEntries().get(0));
+		verify(mock);
+	}
+	
 	@Test
 	public void changingVisibility() {
 		List<String> lines = getEmptyLines();
@@ -210,6 +241,38 @@ public class SimpleCodeEditorTest {
 		verify(mock);
 	}
 	
+	@Test
+	public void changingVisibilityAtParsedPosition() {
+		List<String> lines = getEmptyLines();
+		lines.add(3, "\tprivate void protectedTest() {");
+		TestMethod testMethod = new TestMethod(4);
+		testMethod.setVisibilityPosition(4, 1);
+		TestCaseClass testCaseClass = 
+			new TestCaseClass(lines, Collections.singletonList(testMethod));
+		mock.replaceLine(3, "\tpublic void protectedTest() {");
+		replay(mock);
+		
+		codeEditor.changeVisiblity(testCaseClass, testMethod, Visibility.PUBLIC);
+		verify(mock);
+	}
+	
+	@Test
+	public void removesExtendsClauseAtParsedPosition() throws Exception {
+		List<String> lines = getEmptyLines();
+		lines.add(0, "public class Something");
+		lines.add(1, "\t\textends junit.framework.TestCase implements Runnable {");
+		
+		TestCaseClass testCaseClass = new TestCaseClass(lines, null, null, 
+				Collections.<TestMethod>emptyList(), "junit.framework.TestCase");
+		testCaseClass.setExtendsClause(2, 2, 2, 34);
+		
+		mock.replaceLine(1, "\t\timplements Runnable {");
+		replay(mock);
+		
+		codeEditor.removeSuper(testCaseClass);
+		verify(mock);
+	}
+	
 	@Test
 	public void removesSuperConstructorInvocations() throws Exception {
 		List<String> lines = getEmptyLines();
@@ -218,7 +281,7 @@ public class SimpleCodeEditorTest {
 		
 		TestCaseClass testCaseClass = new TestCaseClass(lines, null, null, 
 				Collections.<TestMethod>emptyList(), null);
-		testCaseClass.setSuperConstructorInvocations(Arrays.asList(2+1, 5+1));
+		testCaseClass.setSuperConstructorInvocations(LineSet.of(2+1, 5+1));
 		
 		mock.replaceLine(2, "//" + lines.get(2));
 		mock.replaceLine(5, "//" + lines.get(5));
@@ -236,7 +299,7 @@ public class SimpleCodeEditorTest {
 		
 		TestCaseClass testCaseClass = new TestCaseClass(lines, null, null, 
 				Collections.<TestMethod>emptyList(), null);
-		testCaseClass.setSuperMethodInvocations(Arrays.asList(2+1, 5+1));
+		testCaseClass.setSuperMethodInvocations(LineSet.of(2+1, 5+1));
 		
 		mock.replaceLine(2, "//" + lines.get(2));
 		mock.replaceLine(5, "//" + lines.get(5));
@@ -254,7 +317,7 @@ public class SimpleCodeEditorTest {
 		
 		TestCaseClass testCaseClass = new TestCaseClass(lines, null, null, 
 				Collections.<TestMethod>emptyList(), null);
-		testCaseClass.setOverrideAnnotationsLines(Arrays.asList(2+1, 5+1));
+		testCaseClass.setOverrideAnnotationsLines(LineSet.of(2+1, 5+1));
 		
 		mock.replaceLine(2, "//" + lines.get(2));
 		mock.replaceLine(5, "//" + lines.get(5));
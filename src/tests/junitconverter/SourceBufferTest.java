@@ -0,0 +1,141 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import junitconverter.LineTable;
+import junitconverter.SourceBuffer;
+
+import org.antlr.runtime.CharStream;
+import org.junit.Test;
+
+/**
+ * Tests the {@link SourceBuffer} class.
+ */
+public class SourceBufferTest {
+
+	@Test
+	public void splitsLinesLikeReadLine() throws Exception {
+		String[] sources = { "", "a", "a\n", "a\nb", "a\r\nb\r\n", "a\rb",
+				"\n\n", "a\n\nb\n", "a\r\n\r\n", "\r" };
+		for (String source : sources) {
+			assertEquals("For " + source.replace("\r", "\\r").replace("\n", "\\n"),
+					readLines(source),
+					LineTable.toStrings(new SourceBuffer(source).lines()));
+		}
+	}
+
+	@Test
+	public void readsFileOnce() throws Exception {
+		File file = File.createTempFile("SourceBufferTest", ".java");
+		try {
+			Writer writer = new FileWriter(file);
+			writer.write("class A {\n}\n");
+			writer.close();
+
+			SourceBuffer buffer = SourceBuffer.read(file);
+			assertEquals(Arrays.asList("class A {", "}"),
+					LineTable.toStrings(buffer.lines()));
+			assertEquals(12, buffer.length());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void keepsAsciiFilesAsBytes() throws Exception {
+		File file = createFile("class A {\n}\n".getBytes("UTF-8"));
+		try {
+			SourceBuffer buffer = SourceBuffer.read(file, Charset.forName("UTF-8"));
+			assertTrue(buffer.isByteBacked());
+			assertEquals(Arrays.asList("class A {", "}"),
+					LineTable.toStrings(buffer.lines()));
+			assertEquals((int) 'c', buffer.charStream().LA(1));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void decodesMultiByteFiles() throws Exception {
+		File file = createFile("class A {\n// \u00e9t\u00e9\n}".getBytes("UTF-8"));
+		try {
+			SourceBuffer buffer = SourceBuffer.read(file, Charset.forName("UTF-8"));
+			assertFalse(buffer.isByteBacked());
+			assertEquals(Arrays.asList("class A {", "// \u00e9t\u00e9", "}"),
+					LineTable.toStrings(buffer.lines()));
+			CharStream stream = buffer.charStream();
+			assertEquals(buffer.length(), stream.size());
+			assertEquals("\u00e9t\u00e9", stream.substring(13, 15));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void keepsLatin1FilesAsBytes() throws Exception {
+		File file = createFile("// \u00e9\n".getBytes("ISO-8859-1"));
+		try {
+			SourceBuffer buffer =
+				SourceBuffer.read(file, Charset.forName("ISO-8859-1"));
+			assertTrue(buffer.isByteBacked());
+			assertEquals(Arrays.asList("// \u00e9"), LineTable.toStrings(buffer.lines()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void decodesAsciiInCharsetsThatArentAsciiCompatible() throws Exception {
+		File file = createFile("class A {}\n".getBytes("UTF-16BE"));
+		File ascii = createFile("class A {}\n".getBytes("US-ASCII"));
+		try {
+			// Twice, as compatibility is only worked out the first time
+			for (int i = 0; i < 2; i++) {
+				SourceBuffer buffer = SourceBuffer.read(file, Charset.forName("UTF-16BE"));
+				assertFalse(buffer.isByteBacked());
+				assertEquals(Arrays.asList("class A {}"), LineTable.toStrings(buffer.lines()));
+				assertFalse(SourceBuffer.read(ascii, Charset.forName("UTF-16BE")).isByteBacked());
+				assertTrue(SourceBuffer.read(ascii, Charset.forName("UTF-8")).isByteBacked());
+			}
+		} finally {
+			file.delete();
+			ascii.delete();
+		}
+	}
+
+	@Test
+	public void charStreamSharesTheBuffer() throws Exception {
+		SourceBuffer buffer = new SourceBuffer("class A {}");
+		CharStream stream = buffer.charStream();
+		assertEquals(10, stream.size());
+		assertEquals((int) 'c', stream.LA(1));
+		assertEquals("A", stream.substring(6, 6));
+	}
+
+	/* --- Helper Methods --- */
+
+	private File createFile(byte[] contents) throws IOException {
+		File file = File.createTempFile("SourceBufferTest", ".java");
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private List<String> readLines(String source) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new StringReader(source));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lines.add(line);
+		}
+		return lines;
+	}
+}
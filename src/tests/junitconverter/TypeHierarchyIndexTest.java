@@ -0,0 +1,121 @@
+package tests.junitconverter;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import junitconverter.TypeHeader;
+import junitconverter.TypeHierarchyIndex;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.junit.Test;
+
+/**
+ * Tests the {@link TypeHierarchyIndex} and {@link TypeHeader} classes.
+ */
+public class TypeHierarchyIndexTest {
+
+	private final TypeHierarchyIndex index = new TypeHierarchyIndex();
+
+	/* --- Header Tests --- */
+
+	@Test
+	public void readsHeader() throws Exception {
+		TypeHeader header = header("package a.b;\n"
+				+ "import java.util.List;\n"
+				+ "import static org.junit.Assert.*;\n"
+				+ "import c.*;\n"
+				+ "/** A test */\n"
+				+ "@SuppressWarnings(\"unchecked\")\n"
+				+ "public final class MyTest<T extends List>\n"
+				+ "\t\textends c.d.Base<T> implements Runnable {\n"
+				+ "class Inner extends Other {}\n"
+				+ "}\n");
+
+		assertEquals("a.b", header.getPackageName());
+		assertEquals("MyTest", header.getTypeName());
+		assertEquals("a.b.MyTest", header.getFullName());
+		assertEquals("c.d.Base", header.getSuperName());
+		assertEquals(Arrays.asList("java.util.List", "c.*"), header.getImports());
+	}
+
+	@Test
+	public void readsFirstClass() throws Exception {
+		TypeHeader header = header("interface I { class X extends Y {} }\n"
+				+ "@interface A { }\n"
+				+ "class MyTest extends TestCase {}\n");
+
+		assertNull(header.getPackageName());
+		assertEquals("MyTest", header.getFullName());
+		assertEquals("TestCase", header.getSuperName());
+	}
+
+	@Test
+	public void readsHeaderWithoutClass() throws Exception {
+		TypeHeader header = header("package a;\ninterface I {}\n");
+
+		assertNull(header.getTypeName());
+		assertNull(header.getSuperName());
+	}
+
+	/* --- Index Tests --- */
+
+	@Test
+	public void findsDirectTestCases() throws Exception {
+		index.add(header("package a; class A extends TestCase {}"));
+		index.add(header("package a; class B extends junit.framework.TestCase {}"));
+		index.add(header("package a; class C {}"));
+
+		assertTrue(index.isTestCase("a.A"));
+		assertTrue(index.isTestCase("a.B"));
+		assertFalse(index.isTestCase("a.C"));
+		assertFalse(index.isTestCase("a.Unknown"));
+	}
+
+	@Test
+	public void findsIndirectTestCases() throws Exception {
+		index.add(header("package base;\n"
+				+ "import junit.framework.TestCase;\n"
+				+ "public abstract class AbstractDbTestCase extends TestCase {}"));
+		index.add(header("package base; class Middle extends AbstractDbTestCase {}"));
+		index.add(header("package a; import base.Middle; class A extends Middle {}"));
+		index.add(header("package a; import base.*; class B extends Middle {}"));
+		index.add(header("package a; class C extends base.AbstractDbTestCase {}"));
+		index.add(header("package a; class D extends A {}"));
+		// Same simple name, different package
+		index.add(header("package b; class Middle {}"));
+		index.add(header("package b; class E extends Middle {}"));
+
+		assertTrue(index.isTestCase("a.A"));
+		assertTrue(index.isTestCase("a.B"));
+		assertTrue(index.isTestCase("a.C"));
+		assertTrue(index.isTestCase("a.D"));
+		assertFalse(index.isTestCase("b.E"));
+		// Only those that other classes extend
+		assertEquals(new TreeSet<String>(Arrays.asList("A", "AbstractDbTestCase",
+				"Middle")), index.getTestCaseBaseSimpleNames());
+	}
+
+	@Test
+	public void stopsOnCycles() throws Exception {
+		index.add(header("package a; class A extends B {}"));
+		index.add(header("package a; class B extends A {}"));
+
+		assertFalse(index.isTestCase("a.A"));
+	}
+
+	@Test
+	public void keepsFirstClassWithSameName() throws Exception {
+		index.add(header("package a; class A extends TestCase {}"));
+		index.add(header("package a; class A {}"));
+
+		assertEquals(1, index.size());
+		assertTrue(index.isTestCase("a.A"));
+	}
+
+	/* --- Helper Methods --- */
+
+	private TypeHeader header(String source) {
+		return TypeHeader.read(new ANTLRStringStream(source));
+	}
+}
@@ -0,0 +1,98 @@
+package tests.junitconverter.benchmarks;
+
+import java.util.*;
+
+import junitconverter.ClassWriter;
+import junitconverter.EditPlan;
+import junitconverter.SimpleClassWriter;
+
+/**
+ * Times the {@link ClassWriter} implementations on a large generated class
+ * with many edits, the way a generated suite with thousands of test methods
+ * gets annotated. Run with <code>ant benchmark</code>, optionally passing the
+ * number of edits and of original lines as arguments.
+ */
+public class ClassWriterBenchmark {
+
+	private static final int DEFAULT_EDITS = 10000;
+	private static final int WARM_UP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	/**
+	 * Creates the writer to time.
+	 */
+	public interface WriterFactory {
+		ClassWriter create(List<String> lines);
+	}
+
+	public static void main(String[] args) {
+		int edits = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EDITS;
+		int lineCount = args.length > 1 ? Integer.parseInt(args[1]) : edits * 2;
+
+		Map<String, WriterFactory> writers = new LinkedHashMap<String, WriterFactory>();
+		writers.put("naive", new WriterFactory() {
+			public ClassWriter create(List<String> lines) {
+				return new NaiveClassWriter(lines);
+			}
+		});
+		writers.put(SimpleClassWriter.class.getSimpleName(), new WriterFactory() {
+			public ClassWriter create(List<String> lines) {
+				return new SimpleClassWriter(lines);
+			}
+		});
+		writers.put(EditPlan.class.getSimpleName(), new WriterFactory() {
+			public ClassWriter create(List<String> lines) {
+				return new EditPlan(lines);
+			}
+		});
+
+		System.out.println(edits + " edits on " + lineCount + " lines");
+		for (Map.Entry<String, WriterFactory> writer : writers.entrySet()) {
+			System.out.println(String.format("%-24s %8.2f ms", writer.getKey(),
+					time(writer.getValue(), lineCount, edits) / 1e6));
+		}
+	}
+
+	/**
+	 * @return The median time, in nanoseconds, of a run of all the edits.
+	 */
+	public static long time(WriterFactory factory, int lineCount, int edits) {
+		List<String> lines = new ArrayList<String>(lineCount);
+		for (int i = 0; i < lineCount; i++) {
+			lines.add("line " + i);
+		}
+
+		long[] times = new long[ROUNDS];
+		for (int round = -WARM_UP_ROUNDS; round < ROUNDS; round++) {
+			// Same edits on every round, and for every writer
+			Random random = new Random(42);
+			long start = System.nanoTime();
+			ClassWriter writer = factory.create(lines);
+			applyEdits(writer, random, lineCount, edits);
+			if (writer.result().size() != lineCount + edits / 2) {
+				throw new IllegalStateException("Wrong number of lines");
+			}
+			if (round >= 0) {
+				times[round] = System.nanoTime() - start;
+			}
+		}
+		Arrays.sort(times);
+		return times[ROUNDS / 2];
+	}
+
+	/**
+	 * Half insertions, like annotations, and half replacements, like
+	 * visibility changes, all over the class.
+	 */
+	private static void applyEdits(ClassWriter writer, Random random,
+			int lineCount, int edits) {
+		for (int i = 0; i < edits; i++) {
+			int line = random.nextInt(lineCount);
+			if (i % 2 == 0) {
+				writer.insertLine(line, "@Test");
+			} else {
+				writer.replaceLine(line, "public void test" + i + "() {");
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package tests.junitconverter.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.MemoProfile;
+import junitconverter.SourceBuffer;
+
+/**
+ * Profiles the memo table of the parser, rule by rule, over the sources in a directory (the project's own sources by
+ * default), each parsed both in outline and in full. Run with <code>ant profile-memo</code>, which profiles a parser
+ * generated with every rule memoized, on the benchmark corpus unless <code>-Dmemo-profile-sources</code> says
+ * otherwise.
+ * <p>
+ * The rules it finds worth memoizing are printed with the <code>memoize=true</code> option to give them in Java.g.
+ * Given the grammar as a second argument, it also checks that these are the rules the grammar memoizes, and exits
+ * with an error if they aren't.
+ */
+public class MemoProfiler {
+
+	private static final String DEFAULT_DIRECTORY = "src";
+
+	/** A rule's name, at the start of a line, followed by its options on the next one. */
+	private static final Pattern MEMOIZED_RULE =
+		Pattern.compile("^([a-z]\\w*)\\b.*\\n\\s*options\\s*\\{[^}]*\\bmemoize\\s*=\\s*true\\b", Pattern.MULTILINE);
+
+	public static void main(String[] args) throws IOException, RecognitionException {
+		List<File> files = new ArrayList<File>();
+		list(new File(args.length > 0 ? args[0] : DEFAULT_DIRECTORY), files);
+
+		MemoProfile profile = new MemoProfile();
+		// The parser reports syntax errors on System.err, which would drown the profile
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+		try {
+			for (File file : files) {
+				SourceBuffer source = SourceBuffer.read(file);
+				parse(source, true, profile);
+				parse(source, false, profile);
+			}
+		} finally {
+			System.setErr(err);
+		}
+
+		List<String> worthMemoizing = profile.getRulesWorthMemoizing();
+		System.out.println(files.size() + " sources");
+		profile.print(System.out);
+		System.out.println();
+		System.out.println("Worth memoizing (found in at least " + MemoProfile.MIN_HIT_RATE + " of their lookups):");
+		for (String rule : worthMemoizing) {
+			System.out.println();
+			System.out.println(rule);
+			System.out.println("options {memoize=true;}");
+		}
+
+		if (args.length > 1) {
+			List<String> memoized = readMemoizedRules(new File(args[1]));
+			List<String> missing = new ArrayList<String>(worthMemoizing);
+			missing.removeAll(memoized);
+			List<String> extra = new ArrayList<String>(memoized);
+			extra.removeAll(worthMemoizing);
+			System.out.println();
+			if (missing.isEmpty() && extra.isEmpty()) {
+				System.out.println(args[1] + " memoizes these rules, and only these");
+			} else {
+				System.out.println(args[1] + " doesn't memoize " + missing + ", but memoizes " + extra);
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void parse(SourceBuffer source, boolean outline, MemoProfile profile)
+			throws RecognitionException {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(source.charStream())));
+		parser.setOutline(outline);
+		parser.setProfile(profile);
+		parser.compilationUnit();
+	}
+
+	/**
+	 * @return The rules that have the <code>memoize=true</code> option in the grammar, in its order.
+	 */
+	private static List<String> readMemoizedRules(File grammar) throws IOException {
+		StringBuilder text = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new FileReader(grammar));
+		try {
+			for (String line; (line = reader.readLine()) != null;) {
+				text.append(line).append('\n');
+			}
+		} finally {
+			reader.close();
+		}
+
+		List<String> rules = new ArrayList<String>();
+		for (Matcher matcher = MEMOIZED_RULE.matcher(text); matcher.find();) {
+			rules.add(matcher.group(1));
+		}
+		return rules;
+	}
+
+	private static void list(File directory, List<File> files) {
+		File[] children = directory.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory()) {
+				list(child, files);
+			} else if (child.getName().endsWith(".java")) {
+				files.add(child);
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package tests.junitconverter.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+import junitconverter.ClassWriter;
+
+/**
+ * The original {@link junitconverter.SimpleClassWriter}, which walks every
+ * earlier insertion to translate a line and sorts them all after each
+ * insertion. Kept as a reference for tests and benchmarks.
+ */
+public class NaiveClassWriter implements ClassWriter {
+
+	private final List<String> lines;
+
+	private final List<Integer> insertions = new ArrayList<Integer>();
+
+	private final List<Integer> deletions = new ArrayList<Integer>();
+
+	public NaiveClassWriter(List<String> lines) {
+		this.lines = new ArrayList<String>(lines);
+	}
+
+	public void insertLine(int lineNumber, String line) {
+		lines.add(getRealLinePosition(lineNumber), line);
+		insertions.add(lineNumber);
+		Collections.sort(insertions);
+	}
+
+	public void replaceLine(int lineNumber, String line) {
+		int realLine = getRealLinePosition(lineNumber);
+		lines.remove(realLine);
+		lines.add(realLine, line);
+	}
+
+	public void deleteLine(int lineNumber) {
+		lines.remove(getRealLinePosition(lineNumber + 1) - 1);
+		deletions.add(lineNumber);
+	}
+
+	public List<String> result() {
+		return new ArrayList<String>(lines);
+	}
+
+	public void writeTo(Writer writer) throws IOException {
+		for (String line : lines) {
+			writer.write(line);
+			writer.write('\n');
+		}
+	}
+
+	private int getRealLinePosition(int origLine) {
+		int realLine = origLine;
+		for (int insertion : insertions) {
+			if (insertion < origLine) {
+				realLine++;
+			}
+		}
+		for (int deletion : deletions) {
+			if (deletion < origLine) {
+				realLine--;
+			}
+		}
+		return realLine;
+	}
+}
@@ -0,0 +1,131 @@
+package tests.junitconverter.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+
+import junitconverter.ClassFacts;
+import junitconverter.JavaLexer;
+import junitconverter.JavaParser;
+import junitconverter.OutlineScanner;
+import junitconverter.SourceBuffer;
+
+/**
+ * Times the ways of getting the {@link ClassFacts} of sources: the parser in
+ * full, the parser in outline mode and the hand-written scanner. Every
+ * backend gets the facts of every source in a directory, already read:
+ * the one given, or the project's own sources. Run with
+ * <code>ant benchmark-parsers</code>, which runs it on a fixed corpus of
+ * JDK 8 sources (see the <code>benchmark-corpus</code> target). The
+ * syntax errors the parser finds in sources using Java 7 and 8 features
+ * aren't printed.
+ */
+public class ParserBackendBenchmark {
+
+	private static final String DEFAULT_DIRECTORY = "src";
+	private static final int WARM_UP_ROUNDS = 30;
+	private static final int ROUNDS = 10;
+
+	/**
+	 * Gets the facts of a source.
+	 */
+	public interface Backend {
+		ClassFacts factsOf(SourceBuffer source) throws RecognitionException;
+	}
+
+	public static void main(String[] args) throws IOException, RecognitionException {
+		List<SourceBuffer> sources = new ArrayList<SourceBuffer>();
+		read(new File(args.length > 0 ? args[0] : DEFAULT_DIRECTORY), sources);
+		long characters = 0;
+		for (SourceBuffer source : sources) {
+			characters += source.length();
+		}
+
+		Map<String, Backend> backends = new LinkedHashMap<String, Backend>();
+		backends.put("parser, full", new Backend() {
+			public ClassFacts factsOf(SourceBuffer source) throws RecognitionException {
+				return parse(source, false);
+			}
+		});
+		backends.put("parser, outline", new Backend() {
+			public ClassFacts factsOf(SourceBuffer source) throws RecognitionException {
+				return parse(source, true);
+			}
+		});
+		backends.put(OutlineScanner.class.getSimpleName(), new Backend() {
+			public ClassFacts factsOf(SourceBuffer source) {
+				OutlineScanner scanner = new OutlineScanner(source.chars());
+				scanner.scan();
+				return scanner.getSyntaxErrors() == 0 ? new ClassFacts(scanner) : null;
+			}
+		});
+
+		System.out.println(sources.size() + " sources, " + characters / 1024 + " KB");
+		for (Map.Entry<String, Backend> backend : backends.entrySet()) {
+			long time = time(backend.getValue(), sources);
+			System.out.println(String.format("%-24s %8.2f ms %8.2f MB/s", backend.getKey(),
+					time / 1e6, characters * 1e3 / time));
+		}
+		System.out.println(countUnscanned(sources) + " sources left to the parser by the scanner");
+	}
+
+	/**
+	 * @return The median time, in nanoseconds, of getting the facts of all
+	 *         the sources.
+	 */
+	public static long time(Backend backend, List<SourceBuffer> sources) throws RecognitionException {
+		long[] times = new long[ROUNDS];
+		for (int round = -WARM_UP_ROUNDS; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (SourceBuffer source : sources) {
+				backend.factsOf(source);
+			}
+			if (round >= 0) {
+				times[round] = System.nanoTime() - start;
+			}
+		}
+		Arrays.sort(times);
+		return times[ROUNDS / 2];
+	}
+
+	private static ClassFacts parse(SourceBuffer source, boolean outline) throws RecognitionException {
+		JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(source.charStream()))) {
+			@Override
+			public void emitErrorMessage(String message) {
+				// Printing the errors would take longer than parsing
+			}
+		};
+		parser.setOutline(outline);
+		parser.compilationUnit();
+		return new ClassFacts(parser);
+	}
+
+	private static int countUnscanned(List<SourceBuffer> sources) {
+		int unscanned = 0;
+		for (SourceBuffer source : sources) {
+			OutlineScanner scanner = new OutlineScanner(source.chars());
+			scanner.scan();
+			if (scanner.getSyntaxErrors() > 0) {
+				unscanned++;
+			}
+		}
+		return unscanned;
+	}
+
+	private static void read(File directory, List<SourceBuffer> sources) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				read(file, sources);
+			} else if (file.getName().endsWith(".java")) {
+				sources.add(SourceBuffer.read(file));
+			}
+		}
+	}
+}
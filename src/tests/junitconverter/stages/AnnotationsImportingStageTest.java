@@ -28,7 +28,6 @@ public class AnnotationsImportingStageTest {
 	public void setUp() {
 		mock = createMock(CodeEditor.class);
 		testedStage = new AnnotationsImportingStage();
-		testedStage.setCodeEditor(mock);
 	}
 	
 	/* --- Tests --- */
@@ -37,7 +36,7 @@ public class AnnotationsImportingStageTest {
 	public void noImportingWhenEmpty() {
 		// We expect no changes
 		replay(mock);
-		testedStage.convertClass(new TestCaseClass(null));
+		testedStage.convertClass(new TestCaseClass(null), mock);
 		verify(mock);
 	}
 	
@@ -48,7 +47,7 @@ public class AnnotationsImportingStageTest {
 					Collections.<String>emptyList(), new SetUpMethod(0), null);
 		mock.importClass(testCaseClass, Before.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -59,7 +58,7 @@ public class AnnotationsImportingStageTest {
 					Collections.singletonList(new TestMethod(0)));
 		mock.importClass(testCaseClass, Test.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -70,7 +69,7 @@ public class AnnotationsImportingStageTest {
 					new TearDownMethod(0), null, null);
 		mock.importClass(testCaseClass, After.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }
@@ -31,8 +31,7 @@ public class AssertImportingStageTest {
 		replay(mock);
 		
 		AssertsImportingStage stage = new AssertsImportingStage();
-		stage.setCodeEditor(mock);
-		stage.convertClass(testCaseClass);
+		stage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }
@@ -31,7 +31,6 @@ public class PreperationMethodsAnnotationStageTest {
 	public void setUp() {
 		mock = createMock(CodeEditor.class);
 		testedStage = new PreperationMethodsAnnotationStage();
-		testedStage.setCodeEditor(mock);
 	}
 	
 	/* --- Tests --- */
@@ -40,7 +39,7 @@ public class PreperationMethodsAnnotationStageTest {
 	public void handlingNoSetUp() {
 		// We do not expect anything
 		replay(mock);
-		testedStage.convertClass(new TestCaseClass(null));
+		testedStage.convertClass(new TestCaseClass(null), mock);
 		verify(mock);
 	}
 	
@@ -52,7 +51,7 @@ public class PreperationMethodsAnnotationStageTest {
 					Collections.<String>emptyList(), setUpMethod, null);
 		mock.annotateMethod(testCaseClass, setUpMethod, Before.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -64,7 +63,7 @@ public class PreperationMethodsAnnotationStageTest {
 					tearDownMethod, null, null);
 		mock.annotateMethod(testCaseClass, tearDownMethod, After.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }
@@ -29,7 +29,6 @@ public class SuperRemovingStageTest {
 	public void setUp() {
 		mock = createMock(CodeEditor.class);
 		testedStage = new SuperRemovingStage();
-		testedStage.setCodeEditor(mock);
 	}
 	
 	/* --- Tests --- */
@@ -46,7 +45,7 @@ public class SuperRemovingStageTest {
 		// We expect nothing to be done
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -63,7 +62,7 @@ public class SuperRemovingStageTest {
 		// We expect nothing to be done
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -81,7 +80,7 @@ public class SuperRemovingStageTest {
 		mock.removeSuper(testCaseClass);
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -99,7 +98,7 @@ public class SuperRemovingStageTest {
 		mock.removeSuper(testCaseClass);
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }
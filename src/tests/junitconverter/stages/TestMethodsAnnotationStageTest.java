@@ -28,7 +28,6 @@ public class TestMethodsAnnotationStageTest {
 	public void setUp() {
 		mock = createMock(CodeEditor.class);
 		testedStage = new TestMethodsAnnotationStage();
-		testedStage.setCodeEditor(mock);
 	}
 	
 	/* --- Tests --- */
@@ -37,7 +36,7 @@ public class TestMethodsAnnotationStageTest {
 	public void noChangesWhenNoMethods() {
 		// We do not expect any editing
 		replay(mock);
-		testedStage.convertClass(new TestCaseClass(null));
+		testedStage.convertClass(new TestCaseClass(null), mock);
 		verify(mock);
 	}
 	
@@ -49,7 +48,7 @@ public class TestMethodsAnnotationStageTest {
 					Collections.singletonList(testMethod));
 		mock.annotateMethod(testCaseClass, testMethod, Test.class);
 		replay(mock);
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }
@@ -0,0 +1,96 @@
+package tests.junitconverter.stages;
+
+import static org.easymock.EasyMock.*;
+
+import java.util.*;
+
+import junitconverter.CodeEditor;
+import junitconverter.stages.UnusedImportsRemovingStage;
+import junitconverter.testcase.ImportIndex;
+import junitconverter.testcase.LineSet;
+import junitconverter.testcase.TestCaseClass;
+import junitconverter.testcase.TestMethod;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link UnusedImportsRemovingStage} class.
+ */
+public class UnusedImportsRemovingStageTest {
+
+	private static final List<String> LINES = Arrays.asList(
+			"import junit.framework.TestCase;",
+			"import junit.framework.TestSuite;",
+			"import java.util.List;",
+			"public class MyTest extends TestCase {",
+			"  public static junit.framework.Test suite() {",
+			"    return new TestSuite(MyTest.class);",
+			"  }",
+			"}");
+
+	private CodeEditor mock;
+	private TestCaseClass testCaseClass;
+	private Map<String, LineSet> references;
+
+	/* --- Tests Organization --- */
+
+	@Before
+	public void setUp() {
+		mock = createMock(CodeEditor.class);
+		testCaseClass = new TestCaseClass(LINES, null, null,
+				Collections.<TestMethod>emptyList(), "TestCase");
+		testCaseClass.setExtendsClause(4, 15, 4, 31);
+		testCaseClass.setSuiteLine(4, 6);
+		references = new HashMap<String, LineSet>();
+		references.put("TestCase", LineSet.of(3));
+		references.put("TestSuite", LineSet.of(5));
+		references.put("List", new LineSet());
+		testCaseClass.setReferences(references);
+	}
+
+	/* --- Tests --- */
+
+	@Test
+	public void removesImportsOnlyUsedInTheExtendsClause() {
+		mock.removeImport(testCaseClass, entry(0));
+		replay(mock);
+
+		new UnusedImportsRemovingStage(false).convertClass(testCaseClass, mock);
+		verify(mock);
+	}
+
+	@Test
+	public void removesImportsOnlyUsedInTheRemovedSuite() {
+		mock.removeImport(testCaseClass, entry(0));
+		mock.removeImport(testCaseClass, entry(1));
+		replay(mock);
+
+		new UnusedImportsRemovingStage(true).convertClass(testCaseClass, mock);
+		verify(mock);
+	}
+
+	@Test
+	public void keepsImportsUsedElsewhere() {
+		references.put("TestCase", LineSet.of(3, 7));
+		replay(mock);
+
+		new UnusedImportsRemovingStage(false).convertClass(testCaseClass, mock);
+		verify(mock);
+	}
+
+	@Test
+	public void doesNothingWithoutReferences() {
+		testCaseClass.setReferences(null);
+		replay(mock);
+
+		new UnusedImportsRemovingStage(true).convertClass(testCaseClass, mock);
+		verify(mock);
+	}
+
+	/* --- Helper Methods --- */
+
+	private ImportIndex.Entry entry(int index) {
+		return testCaseClass.getImports().getEntries().get(index);
+	}
+}
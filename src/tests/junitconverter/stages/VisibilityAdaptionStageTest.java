@@ -31,7 +31,6 @@ public class VisibilityAdaptionStageTest {
 	public void setUp() {
 		mock = createMock(CodeEditor.class);
 		testedStage = new VisibilityAdaptionStage();
-		testedStage.setCodeEditor(mock);
 	}
 	
 	/* --- Tests --- */
@@ -46,7 +45,7 @@ public class VisibilityAdaptionStageTest {
 		mock.changeVisiblity(testCaseClass, setUpMethod, Visibility.PUBLIC);
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 	
@@ -61,7 +60,7 @@ public class VisibilityAdaptionStageTest {
 		mock.changeVisiblity(testCaseClass, tearDownMethod, Visibility.PUBLIC);
 		replay(mock);
 		
-		testedStage.convertClass(testCaseClass);
+		testedStage.convertClass(testCaseClass, mock);
 		verify(mock);
 	}
 }